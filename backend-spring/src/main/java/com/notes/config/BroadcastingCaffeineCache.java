@@ -0,0 +1,147 @@
+package com.notes.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.notes.service.CacheInvalidationBus;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Cache Caffeine dont les évictions sont propagées aux autres instances (CacheInvalidationBus)
+// Reste un CaffeineCache pour que les métriques Spring Boot continuent d'être publiées
+// Chaque éviction (locale ou reçue) avance la génération de la clé : un remplissage chargé
+// avant l'éviction est écarté (putUnlessInvalidated)
+public class BroadcastingCaffeineCache extends CaffeineCache {
+
+    private static final String TOPIC_PREFIX = "cache:";
+
+    // Générations par tranche de clés : mémoire bornée, une collision ne fait qu'écarter un remplissage
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final CacheInvalidationBus invalidationBus;
+    private final String topic;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public BroadcastingCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues,
+                                     CacheInvalidationBus invalidationBus) {
+        super(name, cache, allowNullValues);
+        this.invalidationBus = invalidationBus;
+        this.topic = TOPIC_PREFIX + name;
+
+        invalidationBus.subscribe(topic, new CacheInvalidationBus.Listener() {
+            @Override
+            public void invalidate(String key) {
+                evictLocally(decodeKey(key));
+            }
+
+            @Override
+            public void flush() {
+                clearLocally();
+            }
+        });
+    }
+
+    // Cache sous-jacent d'un cache du CacheManager (enveloppé par TransactionAwareCacheManagerProxy)
+    public static BroadcastingCaffeineCache unwrap(org.springframework.cache.Cache cache) {
+        if (cache instanceof TransactionAwareCacheDecorator decorator) {
+            return (BroadcastingCaffeineCache) decorator.getTargetCache();
+        }
+        return (BroadcastingCaffeineCache) cache;
+    }
+
+    // Génération courante de la clé, à relever avant de lire la valeur à mettre en cache
+    public long generation(Object key) {
+        return generations.get(stripe(key));
+    }
+
+    // Remplissage immédiat (hors transaction) d'une valeur lue après le relevé de generation(key) ;
+    // écarté si la clé a été évincée entre-temps. Une éviction avance la génération avant de retirer
+    // l'entrée : si elle précède la vérification, l'entrée est retirée ici, sinon par l'éviction
+    public void putUnlessInvalidated(Object key, Object value, long generation) {
+        super.put(key, value);
+        if (generations.get(stripe(key)) != generation) {
+            super.evict(key);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        advance(key);
+        super.evict(key);
+        broadcastEviction(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        advance(key);
+        boolean present = super.evictIfPresent(key);
+        // L'entrée peut exister sur une autre instance même si elle est absente ici
+        broadcastEviction(key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        advanceAll();
+        super.clear();
+        invalidationBus.publishFlush(topic);
+    }
+
+    @Override
+    public boolean invalidate() {
+        advanceAll();
+        boolean notEmpty = super.invalidate();
+        invalidationBus.publishFlush(topic);
+        return notEmpty;
+    }
+
+    private void evictLocally(Object key) {
+        advance(key);
+        super.evict(key);
+    }
+
+    private void clearLocally() {
+        advanceAll();
+        super.clear();
+    }
+
+    private void advance(Object key) {
+        generations.incrementAndGet(stripe(key));
+    }
+
+    private void advanceAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+    }
+
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private void broadcastEviction(Object key) {
+        String encoded = encodeKey(key);
+        if (encoded != null) {
+            invalidationBus.publish(topic, encoded);
+        } else {
+            invalidationBus.publishFlush(topic);
+        }
+    }
+
+    // Clés des caches applicatifs : identifiants (Long) et emails/libellés (String)
+    private static String encodeKey(Object key) {
+        if (key instanceof Long) {
+            return "L" + key;
+        }
+        if (key instanceof String) {
+            return "S" + key;
+        }
+        return null;
+    }
+
+    private static Object decodeKey(String encoded) {
+        String value = encoded.substring(1);
+        return encoded.charAt(0) == 'L' ? Long.valueOf(value) : value;
+    }
+}
@@ -0,0 +1,67 @@
+package com.notes.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notes.service.CacheInvalidationBus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Caches applicatifs bornés (Caffeine), une spécification taille/TTL par cache
+// Les statistiques sont activées : Spring Boot publie hits, misses et évictions
+// (cache.gets, cache.evictions...) sur /actuator/metrics et /actuator/prometheus
+// Dans une transaction, put et evict sont appliqués après le commit ; les lectures remplissent le
+// cache sous-jacent sans attendre (BroadcastingCaffeineCache.putUnlessInvalidated)
+// Les évictions sont diffusées aux autres instances (CacheInvalidationBus, LISTEN/NOTIFY)
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // NoteDto complets lus par NoteService.getNoteById
+    public static final String NOTES = "notes";
+
+    // Utilisateurs authentifiés, par email (AuthenticatedPrincipalResolver)
+    public static final String USERS = "users";
+
+    // Identifiants des tags, par libellé (TagResolver)
+    public static final String TAGS = "tags";
+
+    // Liens publics résolus, par token (PublicLinkService.resolvePublicLink)
+    public static final String PUBLIC_LINKS = "publicLinks";
+
+    @Value("${notes.cache.notes:maximumSize=5000,expireAfterWrite=10m}")
+    private String notesSpec;
+
+    @Value("${notes.cache.users:maximumSize=10000,expireAfterWrite=60s}")
+    private String usersSpec;
+
+    @Value("${notes.cache.tags:maximumSize=10000,expireAfterAccess=1h}")
+    private String tagsSpec;
+
+    @Value("${notes.cache.public-links:maximumSize=10000,expireAfterWrite=10m}")
+    private String publicLinksSpec;
+
+    @Bean
+    public CacheManager cacheManager(CacheInvalidationBus invalidationBus) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected org.springframework.cache.Cache adaptCaffeineCache(String name, Cache<Object, Object> cache) {
+                return new BroadcastingCaffeineCache(name, cache, isAllowNullValues(), invalidationBus);
+            }
+        };
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(NOTES, buildCache(notesSpec));
+        cacheManager.registerCustomCache(USERS, buildCache(usersSpec));
+        cacheManager.registerCustomCache(TAGS, buildCache(tagsSpec));
+        cacheManager.registerCustomCache(PUBLIC_LINKS, buildCache(publicLinksSpec));
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    private Cache<Object, Object> buildCache(String spec) {
+        return Caffeine.from(spec).recordStats().build();
+    }
+}
@@ -0,0 +1,10 @@
+package com.notes.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Activation des tâches planifiées (vidage des compteurs, nettoyages périodiques)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
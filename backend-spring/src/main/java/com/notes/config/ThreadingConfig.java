@@ -0,0 +1,77 @@
+package com.notes.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import javax.sql.DataSource;
+
+// Mode threads virtuels (Java 21, spring.threads.virtual.enabled) : Tomcat, @Async et les tâches
+// planifiées s'exécutent sur des threads virtuels, configurés par Spring Boot.
+// Le nombre de requêtes simultanées n'étant plus borné par le pool de threads Tomcat, l'accès au pool
+// de connexions passe par une file équitable (ConcurrencyLimitingDataSource).
+// Compilation et exécution en Java 21 : mvn -Pjava21 ...
+// notes.datasource.concurrency-limit.enabled : auto (défaut) n'active la file que si les threads virtuels
+// sont réellement utilisés ; en Java 17, spring.threads.virtual.enabled est ignoré et le pool Tomcat
+// borne déjà la concurrence. true ou false forcent le choix.
+@Configuration
+@Conditional(ThreadingConfig.ConcurrencyLimitCondition.class)
+public class ThreadingConfig {
+
+    @Bean
+    public static BeanPostProcessor dataSourceConcurrencyLimiter(Environment environment) {
+        // Par défaut : taille et délai d'attente du pool Hikari
+        int maxConcurrency = environment.getProperty("notes.datasource.concurrency-limit.max-concurrency",
+                Integer.class, environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        long acquireTimeoutMs = environment.getProperty("notes.datasource.concurrency-limit.acquire-timeout-ms",
+                Long.class, environment.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30000L));
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof ConcurrencyLimitingDataSource) {
+                    return bean;
+                }
+                return new ConcurrencyLimitingDataSource((DataSource) bean, maxConcurrency, acquireTimeoutMs);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder dataSourceConcurrencyMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof ConcurrencyLimitingDataSource) {
+                Gauge.builder("notes.datasource.waiting", (ConcurrencyLimitingDataSource) dataSource, ConcurrencyLimitingDataSource::getWaitingCount)
+                        .description("Threads waiting for a database connection permit")
+                        .register(registry);
+            }
+        };
+    }
+
+    static class ConcurrencyLimitCondition extends SpringBootCondition {
+
+        private static final String PROPERTY = "notes.datasource.concurrency-limit.enabled";
+
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            String enabled = context.getEnvironment().getProperty(PROPERTY, "auto").trim();
+            if ("auto".equalsIgnoreCase(enabled)) {
+                return Threading.VIRTUAL.isActive(context.getEnvironment())
+                        ? ConditionOutcome.match("virtual threads are active")
+                        : ConditionOutcome.noMatch("virtual threads are not active");
+            }
+            return Boolean.parseBoolean(enabled)
+                    ? ConditionOutcome.match(PROPERTY + " is true")
+                    : ConditionOutcome.noMatch(PROPERTY + " is " + enabled);
+        }
+    }
+}
@@ -2,9 +2,12 @@ package com.notes.config;
 
 import com.notes.security.AccessDeniedHandlerJwt;
 import com.notes.security.AuthEntryPointJwt;
+import com.notes.security.BoundedPasswordEncoder;
 import com.notes.security.JwtAuthenticationFilter;
 import com.notes.service.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -43,9 +46,25 @@ public class WebSecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Value("${notes.password-hashing.threads:0}")
+    private int passwordHashingThreads;
+
+    @Value("${notes.password-hashing.queue-capacity:0}")
+    private int passwordHashingQueueCapacity;
+
+    @Value("${notes.password-hashing.timeout-ms:1000}")
+    private long passwordHashingTimeoutMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // BCrypt sur un pool borné (par défaut un thread par cœur et deux hachages en attente par thread)
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int threads = passwordHashingThreads > 0 ? passwordHashingThreads : Runtime.getRuntime().availableProcessors();
+        int queueCapacity = passwordHashingQueueCapacity > 0 ? passwordHashingQueueCapacity : threads * 2;
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity,
+                passwordHashingTimeoutMs, meterRegistry);
     }
 
     @Bean
@@ -106,6 +125,10 @@ public class WebSecurityConfig {
                 
                 // Endpoints publics
                 .requestMatchers("/api/public/**").permitAll()
+                .requestMatchers("/api/v1/p/**").permitAll()
+
+                // Édition collaborative : authentification dans la poignée de main (WebSocketAuthInterceptor)
+                .requestMatchers("/api/v1/notes/*/live").permitAll()
                 
                 // Documentation API
                 .requestMatchers("/swagger-ui/**").permitAll()
@@ -0,0 +1,55 @@
+package com.notes.config;
+
+import com.notes.controller.NoteCollaborationHandler;
+import com.notes.security.WebSocketAuthInterceptor;
+import jakarta.servlet.ServletContext;
+import jakarta.websocket.server.ServerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.ServletContextAware;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+// Point d'entrée WebSocket de l'édition collaborative
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer, ServletContextAware {
+
+    private final NoteCollaborationHandler noteCollaborationHandler;
+    private final WebSocketAuthInterceptor webSocketAuthInterceptor;
+
+    @Value("${notes.collaboration.allowed-origins:*}")
+    private String[] allowedOrigins;
+
+    // Un collage volumineux arrive en une seule opération
+    @Value("${notes.collaboration.max-message-bytes:1048576}")
+    private int maxMessageBytes;
+
+    @Value("${notes.collaboration.idle-timeout-ms:300000}")
+    private long idleTimeoutMs;
+
+    public WebSocketConfig(NoteCollaborationHandler noteCollaborationHandler,
+                           WebSocketAuthInterceptor webSocketAuthInterceptor) {
+        this.noteCollaborationHandler = noteCollaborationHandler;
+        this.webSocketAuthInterceptor = webSocketAuthInterceptor;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(noteCollaborationHandler, "/api/v1/notes/*/live")
+                .addInterceptors(webSocketAuthInterceptor)
+                .setAllowedOriginPatterns(allowedOrigins);
+    }
+
+    // Conteneur WebSocket absent hors serveur (tests MockMvc) : configuration ignorée
+    @Override
+    public void setServletContext(ServletContext servletContext) {
+        Object container = servletContext.getAttribute(ServerContainer.class.getName());
+        if (container instanceof ServerContainer) {
+            ServerContainer serverContainer = (ServerContainer) container;
+            serverContainer.setDefaultMaxTextMessageBufferSize(maxMessageBytes);
+            serverContainer.setDefaultMaxSessionIdleTimeout(idleTimeoutMs);
+        }
+    }
+}
@@ -4,12 +4,14 @@ import com.notes.dto.auth.AuthResponse;
 import com.notes.dto.auth.LoginRequest;
 import com.notes.dto.auth.RegisterRequest;
 import com.notes.dto.auth.RefreshTokenRequest;
+import com.notes.exception.PasswordHashingBusyException;
 import com.notes.service.AuthService;
 import com.notes.service.RefreshTokenService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -47,6 +49,9 @@ public class AuthController {
             logger.info("Registration successful for email: {}", registerRequest.getEmail());
             return ResponseEntity.status(HttpStatus.CREATED).body(authResponse);
             
+        } catch (PasswordHashingBusyException e) {
+            logger.warn("Password hashing saturated, rejecting registration for email {}", registerRequest.getEmail());
+            return tooManyRequests(e);
         } catch (RuntimeException e) {
             logger.error("Registration failed for email {}: {}", registerRequest.getEmail(), e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -72,6 +77,9 @@ public class AuthController {
             logger.info("Login successful for email: {}", loginRequest.getEmail());
             return ResponseEntity.ok(authResponse);
             
+        } catch (PasswordHashingBusyException e) {
+            logger.warn("Password hashing saturated, rejecting login for email {}", loginRequest.getEmail());
+            return tooManyRequests(e);
         } catch (RuntimeException e) {
             logger.error("Login failed for email {}: {}", loginRequest.getEmail(), e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -166,7 +174,7 @@ public class AuthController {
         try {
             logger.info("Get current user request");
             
-            var currentUser = authService.getCurrentUser();
+            var currentUser = authService.loadCurrentUser().orElse(null);
             if (currentUser == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(createErrorResponse("Non autorisé", "Utilisateur non authentifié"));
@@ -223,6 +231,12 @@ public class AuthController {
         return request.getRemoteAddr();
     }
 
+    private ResponseEntity<?> tooManyRequests(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(createErrorResponse("Service momentanément surchargé", e.getMessage()));
+    }
+
     private Map<String, Object> createErrorResponse(String message, String details) {
         Map<String, Object> response = new HashMap<>();
         response.put("success", false);
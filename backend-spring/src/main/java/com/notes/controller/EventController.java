@@ -0,0 +1,38 @@
+package com.notes.controller;
+
+import com.notes.model.User;
+import com.notes.service.EventStreamService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/v1/events")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class EventController {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventController.class);
+
+    private final EventStreamService eventStreamService;
+
+    public EventController(EventStreamService eventStreamService) {
+        this.eventStreamService = eventStreamService;
+    }
+
+    // GET /api/v1/events  (text/event-stream : note.changed, note.removed, share.granted, share.revoked, resync)
+    // Reprise par l'en-tête Last-Event-ID (envoyé automatiquement par EventSource) ou le paramètre lastEventId
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public SseEmitter streamEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                                   @RequestParam(required = false) String lastEventId,
+                                   @AuthenticationPrincipal User currentUser) {
+        logger.debug("Opening event stream for user {}", currentUser.getEmail());
+
+        return eventStreamService.subscribe(currentUser.getId(),
+                lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+}
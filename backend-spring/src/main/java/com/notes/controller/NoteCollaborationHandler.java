@@ -0,0 +1,49 @@
+package com.notes.controller;
+
+import com.notes.model.User;
+import com.notes.security.WebSocketAuthInterceptor;
+import com.notes.service.CollaborationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+// WS /api/v1/notes/{id}/live : session d'édition collaborative (protocole décrit dans CollaborationService)
+// Client -> serveur : {"type": "op", "revision": 12, "ops": [5, "abc", -3, 40], "clientOpId": "..."}
+// Serveur -> client : init, ack, op, join, leave, reset, error
+@Component
+public class NoteCollaborationHandler extends TextWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteCollaborationHandler.class);
+
+    private final CollaborationService collaborationService;
+
+    public NoteCollaborationHandler(CollaborationService collaborationService) {
+        this.collaborationService = collaborationService;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        User user = (User) session.getAttributes().get(WebSocketAuthInterceptor.ATTR_USER);
+        Long noteId = (Long) session.getAttributes().get(WebSocketAuthInterceptor.ATTR_NOTE_ID);
+        collaborationService.join(noteId, user, session);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        collaborationService.handleMessage(session, message.getPayload());
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        logger.debug("Collaboration transport error on {}: {}", session.getId(), exception.getMessage());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        collaborationService.leave(session);
+    }
+}
@@ -1,10 +1,21 @@
 package com.notes.controller;
 
+import com.notes.dto.note.NoteBatchRequestDto;
+import com.notes.dto.note.NoteBatchResultDto;
+import com.notes.dto.note.NoteChangesDto;
+import com.notes.dto.note.NoteContentPatchDto;
 import com.notes.dto.note.NoteCreateDto;
 import com.notes.dto.note.NoteDto;
+import com.notes.dto.note.NoteSummaryDto;
+import com.notes.dto.note.NoteTagsPatchDto;
 import com.notes.dto.note.NoteUpdateDto;
+import com.notes.dto.pagination.CursorPageDto;
+import com.notes.dto.tag.TagDto;
+import com.notes.exception.NoteVersionConflictException;
 import com.notes.model.NoteVisibility;
 import com.notes.model.User;
+import com.notes.service.NoteBatchService;
+import com.notes.service.NoteChangeLog;
 import com.notes.service.NoteService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -13,6 +24,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,7 +33,9 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/notes")
@@ -29,13 +44,24 @@ public class NoteController {
 
     private static final Logger logger = LoggerFactory.getLogger(NoteController.class);
 
+    // Vue complète (contenu, partages, liens publics) ; les listes renvoient une vue allégée par défaut
+    private static final String VIEW_FULL = "full";
+
+    // Nombre maximal d'entrées du journal lues par appel de synchronisation
+    private static final int MAX_CHANGES = 500;
+
     private final NoteService noteService;
+    private final NoteChangeLog noteChangeLog;
+    private final NoteBatchService noteBatchService;
 
-    public NoteController(NoteService noteService) {
+    public NoteController(NoteService noteService, NoteChangeLog noteChangeLog, NoteBatchService noteBatchService) {
         this.noteService = noteService;
+        this.noteChangeLog = noteChangeLog;
+        this.noteBatchService = noteBatchService;
     }
 
-    // GET /api/v1/notes?query=&tag=&visibility=&page=&size=
+    // GET /api/v1/notes?query=&tag=&visibility=&page=&size=&view=
+    // GET /api/v1/notes?visibility=&cursor=&size=&includeTotal= (pagination par curseur, tri updatedAt DESC)
     @GetMapping
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> getNotes(
@@ -46,17 +72,29 @@ public class NoteController {
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "updatedAt") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "summary") String view,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
             @AuthenticationPrincipal User currentUser) {
         
         try {
             logger.info("Getting notes for user: {} with query: {}, tag: {}, visibility: {}", 
                        currentUser.getEmail(), query, tag, visibility);
 
+            // Pagination par curseur pour les listes sans recherche (les recherches restent paginées par page)
+            if (cursor != null && isBlank(query) && isBlank(tag) && !VIEW_FULL.equalsIgnoreCase(view)) {
+                CursorPageDto<NoteSummaryDto> notes =
+                        noteService.getNoteSummariesAfter(visibility, currentUser, cursor, size, includeTotal);
+                return ResponseEntity.ok(notes);
+            }
+
             // Configuration de la pagination et du tri
             Sort sort = Sort.by(Sort.Direction.fromString(sortDir), sortBy);
             Pageable pageable = PageRequest.of(page, size, sort);
 
-            Page<NoteDto> notes = noteService.searchNotes(query, tag, visibility, currentUser, pageable);
+            Page<?> notes = VIEW_FULL.equalsIgnoreCase(view)
+                    ? noteService.searchNotes(query, tag, visibility, currentUser, pageable)
+                    : noteService.searchNoteSummaries(query, tag, visibility, currentUser, pageable);
 
             Map<String, Object> response = new HashMap<>();
             response.put("content", notes.getContent());
@@ -70,6 +108,9 @@ public class NoteController {
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Paramètres de pagination invalides", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error getting notes for user {}: {}", currentUser.getEmail(), e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -96,17 +137,56 @@ public class NoteController {
         }
     }
 
-    // GET /api/v1/notes/{id}
+    // POST /api/v1/notes/batch
+    // Opérations CREATE/UPDATE/DELETE appliquées dans l'ordre ; un résultat par opération
+    @PostMapping("/batch")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> applyBatch(@Valid @RequestBody NoteBatchRequestDto batchRequest,
+                                        @AuthenticationPrincipal User currentUser) {
+        try {
+            logger.info("Applying batch of {} operations for user: {}",
+                    batchRequest.getOperations().size(), currentUser.getEmail());
+
+            List<NoteBatchResultDto> results = noteBatchService.apply(batchRequest.getOperations(), currentUser);
+            long succeeded = results.stream().filter(NoteBatchResultDto::isSuccess).count();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("results", results);
+            response.put("succeeded", succeeded);
+            response.put("failed", results.size() - succeeded);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Lot d'opérations invalide", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error applying batch for user {}: {}", currentUser.getEmail(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Erreur lors de l'application du lot", e.getMessage()));
+        }
+    }
+
+    // GET /api/v1/notes/{id}  (If-None-Match: "version" -> 304 si la note n'a pas changé)
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> getNoteById(@PathVariable Long id,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
                                         @AuthenticationPrincipal User currentUser) {
         try {
             logger.info("Getting note with ID: {} for user: {}", id, currentUser.getEmail());
 
+            // Note inchangée : ni contenu chargé ni mapping
+            if (ifNoneMatch != null) {
+                Optional<Long> version = noteService.findAccessibleNoteVersion(id, currentUser);
+                if (version.isPresent() && matchesETag(ifNoneMatch, version.get())) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag(version.get())).build();
+                }
+            }
+
             NoteDto note = noteService.getNoteById(id, currentUser);
 
-            return ResponseEntity.ok(note);
+            return ResponseEntity.ok().eTag(eTag(note.getVersion())).body(note);
 
         } catch (com.notes.exception.NoteNotFoundException e) {
             logger.warn("Note not found with ID: {}", id);
@@ -128,14 +208,24 @@ public class NoteController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> updateNote(@PathVariable Long id,
                                        @Valid @RequestBody NoteUpdateDto noteUpdateDto,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                        @AuthenticationPrincipal User currentUser) {
         try {
             logger.info("Updating note with ID: {} by user: {}", id, currentUser.getEmail());
 
-            NoteDto updatedNote = noteService.updateNote(id, noteUpdateDto, currentUser);
+            NoteDto updatedNote = noteService.updateNote(id, noteUpdateDto, currentUser, parseETag(ifMatch));
 
-            return ResponseEntity.ok(updatedNote);
+            return ResponseEntity.ok().eTag(eTag(updatedNote.getVersion())).body(updatedNote);
 
+        } catch (NoteVersionConflictException e) {
+            logger.warn("Stale If-Match on note {} by user {}", id, currentUser.getEmail());
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .eTag(eTag(e.getCurrentVersion()))
+                    .body(createErrorResponse("La note a été modifiée entre-temps", e.getMessage()));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.warn("Concurrent update of note {} by user {}", id, currentUser.getEmail());
+            return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT)
+                    .body(createErrorResponse("La note a été modifiée entre-temps", e.getMessage()));
         } catch (com.notes.exception.NoteNotFoundException e) {
             logger.warn("Note not found with ID: {}", id);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -151,6 +241,74 @@ public class NoteController {
         }
     }
 
+    // PATCH /api/v1/notes/{id}/content  {"baseVersion": 3, "edits": [{"start": 10, "end": 12, "text": "..."}]}
+    // Réponse : uniquement la nouvelle version (corps et ETag), le client possède déjà le contenu
+    @PatchMapping("/{id}/content")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> patchNoteContent(@PathVariable Long id,
+                                             @Valid @RequestBody NoteContentPatchDto noteContentPatchDto,
+                                             @AuthenticationPrincipal User currentUser) {
+        try {
+            Long version = noteService.patchNoteContent(id, noteContentPatchDto, currentUser);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("id", id);
+            response.put("version", version);
+
+            return ResponseEntity.ok().eTag(eTag(version)).body(response);
+
+        } catch (NoteVersionConflictException e) {
+            logger.warn("Content patch of note {} by user {} based on a stale version", id, currentUser.getEmail());
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .eTag(eTag(e.getCurrentVersion()))
+                    .body(createErrorResponse("La note a été modifiée entre-temps", e.getMessage()));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            logger.warn("Concurrent content patch of note {} by user {}", id, currentUser.getEmail());
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(createErrorResponse("La note a été modifiée entre-temps", e.getMessage()));
+        } catch (com.notes.exception.NoteNotFoundException e) {
+            logger.warn("Note not found with ID: {}", id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(createErrorResponse("Note non trouvée", e.getMessage()));
+        } catch (com.notes.exception.UnauthorizedAccessException e) {
+            logger.warn("Unauthorized content patch attempt to note {} by user {}", id, currentUser.getEmail());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(createErrorResponse("Accès non autorisé", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error patching content of note {} for user {}: {}", id, currentUser.getEmail(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Erreur lors de la modification du contenu", e.getMessage()));
+        }
+    }
+
+    // PATCH /api/v1/notes/{id}/tags  {"add": [...], "remove": [...]}
+    @PatchMapping("/{id}/tags")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> patchNoteTags(@PathVariable Long id,
+                                          @RequestBody NoteTagsPatchDto noteTagsPatchDto,
+                                          @AuthenticationPrincipal User currentUser) {
+        try {
+            logger.info("Patching tags of note {} by user: {}", id, currentUser.getEmail());
+
+            List<TagDto> tags = noteService.patchNoteTags(id, noteTagsPatchDto, currentUser);
+
+            return ResponseEntity.ok(tags);
+
+        } catch (com.notes.exception.NoteNotFoundException e) {
+            logger.warn("Note not found with ID: {}", id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(createErrorResponse("Note non trouvée", e.getMessage()));
+        } catch (com.notes.exception.UnauthorizedAccessException e) {
+            logger.warn("Unauthorized tag update attempt to note {} by user {}", id, currentUser.getEmail());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(createErrorResponse("Accès non autorisé", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error patching tags of note {} for user {}: {}", id, currentUser.getEmail(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Erreur lors de la mise à jour des tags", e.getMessage()));
+        }
+    }
+
     // DELETE /api/v1/notes/{id}
     @DeleteMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
@@ -178,19 +336,75 @@ public class NoteController {
         }
     }
 
-    // GET /api/v1/notes/favorites
+    // GET /api/v1/notes/public?cursor=&size=&includeTotal=
+    // Flux des notes publiques, paginé par curseur (le coût ne dépend pas de la profondeur)
+    @GetMapping("/public")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getPublicNotes(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @AuthenticationPrincipal User currentUser) {
+
+        try {
+            logger.info("Getting public notes feed for user: {}", currentUser.getEmail());
+
+            CursorPageDto<NoteSummaryDto> notes =
+                    noteService.getNoteSummariesAfter(NoteVisibility.PUBLIC, currentUser, cursor, size, includeTotal);
+            return ResponseEntity.ok(notes);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Paramètres de pagination invalides", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error getting public notes feed: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Erreur lors de la récupération des notes publiques", e.getMessage()));
+        }
+    }
+
+    // GET /api/v1/notes/changes?since=&limit=
+    // Synchronisation incrémentale : notes créées/modifiées (upserted) et retirées (removed) depuis le curseur
+    @GetMapping("/changes")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "100") int limit,
+            @AuthenticationPrincipal User currentUser) {
+
+        try {
+            logger.info("Getting note changes for user: {}", currentUser.getEmail());
+
+            NoteChangesDto changes = noteChangeLog.getChanges(currentUser, since,
+                    Math.min(Math.max(limit, 1), MAX_CHANGES));
+            return ResponseEntity.ok(changes);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Curseur de synchronisation invalide", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error getting note changes for user {}: {}", currentUser.getEmail(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Erreur lors de la synchronisation des notes", e.getMessage()));
+        }
+    }
+
+    // GET /api/v1/notes/favorites?view=
     @GetMapping("/favorites")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> getFavoriteNotes(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "summary") String view,
             @AuthenticationPrincipal User currentUser) {
         
         try {
             logger.info("Getting favorite notes for user: {}", currentUser.getEmail());
 
             Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "updatedAt"));
-            Page<NoteDto> notes = noteService.getFavoriteNotes(currentUser, pageable);
+            Page<?> notes = VIEW_FULL.equalsIgnoreCase(view)
+                    ? noteService.getFavoriteNotes(currentUser, pageable)
+                    : noteService.getFavoriteNoteSummaries(currentUser, pageable);
 
             Map<String, Object> response = new HashMap<>();
             response.put("content", notes.getContent());
@@ -208,19 +422,22 @@ public class NoteController {
         }
     }
 
-    // GET /api/v1/notes/shared
+    // GET /api/v1/notes/shared?view=
     @GetMapping("/shared")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> getSharedNotes(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "summary") String view,
             @AuthenticationPrincipal User currentUser) {
         
         try {
             logger.info("Getting shared notes for user: {}", currentUser.getEmail());
 
             Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "updatedAt"));
-            Page<NoteDto> notes = noteService.getSharedNotes(currentUser, pageable);
+            Page<?> notes = VIEW_FULL.equalsIgnoreCase(view)
+                    ? noteService.getSharedNotes(currentUser, pageable)
+                    : noteService.getSharedNoteSummaries(currentUser, pageable);
 
             Map<String, Object> response = new HashMap<>();
             response.put("content", notes.getContent());
@@ -266,6 +483,43 @@ public class NoteController {
     }
 
     // Méthodes utilitaires
+    private boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    // ETag fort dérivé de la version de la note
+    private static String eTag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    // If-Match : version attendue, ou null si absent ou "*" (aucune condition)
+    private static Long parseETag(String header) {
+        if (header == null || header.isBlank() || "*".equals(header.trim())) {
+            return null;
+        }
+        String value = header.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        try {
+            return Long.parseLong(value.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            // ETag inconnu : ne peut correspondre à aucune version
+            return -1L;
+        }
+    }
+
+    // If-None-Match : liste d'ETags séparés par des virgules, ou "*"
+    private static boolean matchesETag(String header, Long version) {
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if ("*".equals(value) || eTag(version).equals(value) || ("W/" + eTag(version)).equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private Map<String, Object> createErrorResponse(String message, String details) {
         Map<String, Object> response = new HashMap<>();
         response.put("success", false);
@@ -0,0 +1,137 @@
+package com.notes.controller;
+
+import com.notes.dto.revision.NoteRevisionDto;
+import com.notes.dto.revision.RevisionDiffDto;
+import com.notes.model.User;
+import com.notes.service.NoteRevisionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/notes/{id}/revisions")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class NoteRevisionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteRevisionController.class);
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final NoteRevisionService noteRevisionService;
+
+    public NoteRevisionController(NoteRevisionService noteRevisionService) {
+        this.noteRevisionService = noteRevisionService;
+    }
+
+    // GET /api/v1/notes/{id}/revisions?page=&size=  (plus récentes d'abord, sans contenu)
+    @GetMapping
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getRevisions(@PathVariable Long id,
+                                          @RequestParam(defaultValue = "0") int page,
+                                          @RequestParam(defaultValue = "20") int size,
+                                          @AuthenticationPrincipal User currentUser) {
+        try {
+            logger.info("Getting revisions of note {} for user {}", id, currentUser.getEmail());
+
+            Page<NoteRevisionDto> revisions = noteRevisionService.getRevisions(id, currentUser,
+                    PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE)));
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("content", revisions.getContent());
+            response.put("totalElements", revisions.getTotalElements());
+            response.put("totalPages", revisions.getTotalPages());
+            response.put("currentPage", revisions.getNumber());
+            response.put("size", revisions.getSize());
+            response.put("first", revisions.isFirst());
+            response.put("last", revisions.isLast());
+
+            return ResponseEntity.ok(response);
+
+        } catch (com.notes.exception.NoteNotFoundException e) {
+            logger.warn("Note not found with ID: {}", id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(createErrorResponse("Note non trouvée", e.getMessage()));
+        } catch (com.notes.exception.UnauthorizedAccessException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(createErrorResponse("Accès non autorisé", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error getting revisions of note {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Erreur lors de la récupération des révisions", e.getMessage()));
+        }
+    }
+
+    // GET /api/v1/notes/{id}/revisions/diff?from=&to=
+    @GetMapping("/diff")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> diffRevisions(@PathVariable Long id,
+                                           @RequestParam Integer from,
+                                           @RequestParam Integer to,
+                                           @AuthenticationPrincipal User currentUser) {
+        try {
+            logger.info("Diffing revisions {} and {} of note {} for user {}", from, to, id, currentUser.getEmail());
+
+            RevisionDiffDto diff = noteRevisionService.diff(id, from, to, currentUser);
+
+            return ResponseEntity.ok(diff);
+
+        } catch (com.notes.exception.NoteNotFoundException e) {
+            logger.warn("Revision not found for note {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(createErrorResponse("Révision non trouvée", e.getMessage()));
+        } catch (com.notes.exception.UnauthorizedAccessException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(createErrorResponse("Accès non autorisé", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error diffing revisions of note {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Erreur lors de la comparaison des révisions", e.getMessage()));
+        }
+    }
+
+    // GET /api/v1/notes/{id}/revisions/{revision}
+    @GetMapping("/{revision}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getRevision(@PathVariable Long id,
+                                         @PathVariable Integer revision,
+                                         @AuthenticationPrincipal User currentUser) {
+        try {
+            logger.info("Getting revision {} of note {} for user {}", revision, id, currentUser.getEmail());
+
+            NoteRevisionDto revisionDto = noteRevisionService.getRevision(id, revision, currentUser);
+
+            return ResponseEntity.ok(revisionDto);
+
+        } catch (com.notes.exception.NoteNotFoundException e) {
+            logger.warn("Revision not found for note {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(createErrorResponse("Révision non trouvée", e.getMessage()));
+        } catch (com.notes.exception.UnauthorizedAccessException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(createErrorResponse("Accès non autorisé", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error getting revision {} of note {}: {}", revision, id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Erreur lors de la récupération de la révision", e.getMessage()));
+        }
+    }
+
+    // Méthodes utilitaires
+    private Map<String, Object> createErrorResponse(String message, String details) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        response.put("details", details);
+        response.put("timestamp", java.time.LocalDateTime.now());
+        return response;
+    }
+}
@@ -2,16 +2,20 @@ package com.notes.controller;
 
 import com.notes.dto.note.NoteDto;
 import com.notes.dto.publiclink.PublicLinkDto;
-import com.notes.mapper.NoteMapper;
-import com.notes.model.Note;
+import com.notes.exception.PasswordHashingBusyException;
 import com.notes.service.NoteService;
 import com.notes.service.PublicLinkService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -22,52 +26,62 @@ public class PublicAccessController {
 
     private static final Logger logger = LoggerFactory.getLogger(PublicAccessController.class);
 
+    private static final String GRANT_HEADER = "X-Public-Link-Grant";
+    private static final String GRANT_COOKIE = "public_link_grant";
+
     private final PublicLinkService publicLinkService;
     private final NoteService noteService;
-    private final NoteMapper noteMapper;
 
-    public PublicAccessController(PublicLinkService publicLinkService, NoteService noteService, NoteMapper noteMapper) {
+    @Value("${notes.public-links.grant-ttl-ms:900000}")
+    private long grantTtlMs;
+
+    public PublicAccessController(PublicLinkService publicLinkService, NoteService noteService) {
         this.publicLinkService = publicLinkService;
         this.noteService = noteService;
-        this.noteMapper = noteMapper;
     }
 
     // GET /api/v1/p/{url_token} (accès public)
+    // Lien protégé : l'autorisation délivrée après le mot de passe est renvoyée en cookie (ou en-tête X-Public-Link-Grant)
     @GetMapping("/{urlToken}")
     public ResponseEntity<?> accessNoteByPublicLink(@PathVariable String urlToken,
-                                                   @RequestParam(required = false) String password) {
+                                                   @RequestParam(required = false) String password,
+                                                   @RequestHeader(value = GRANT_HEADER, required = false) String grantHeader,
+                                                   @CookieValue(value = GRANT_COOKIE, required = false) String grantCookie,
+                                                   HttpServletRequest request) {
         try {
             logger.info("Public access attempt to note with token: {}", urlToken);
 
             // Accès via le lien public
-            PublicLinkDto publicLink = publicLinkService.accessNoteByToken(urlToken, password);
+            PublicLinkDto publicLink = publicLinkService.accessNoteByToken(urlToken, password,
+                    grantHeader != null ? grantHeader : grantCookie);
 
             // Récupération de la note
-            Note note = noteService.findNoteById(publicLink.getNoteId())
+            NoteDto noteDto = noteService.findNoteDtoById(publicLink.getNoteId())
                     .orElseThrow(() -> new RuntimeException("Note non trouvée"));
 
             // Vérification que la note est accessible publiquement
-            if (note.getVisibility() != com.notes.model.NoteVisibility.PUBLIC) {
+            if (noteDto.getVisibility() != com.notes.model.NoteVisibility.PUBLIC) {
                 logger.warn("Attempt to access non-public note via public link: {}", urlToken);
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(createErrorResponse("Cette note n'est pas accessible publiquement", "La note n'est pas publique"));
             }
 
-            NoteDto noteDto = noteMapper.toDto(note);
-
             // Création de la réponse avec les informations du lien public
             Map<String, Object> response = new HashMap<>();
             response.put("note", noteDto);
             response.put("publicLink", publicLink);
             response.put("accessInfo", createAccessInfo(publicLink));
 
-            logger.info("Public access successful to note {} via token {}", note.getId(), urlToken);
-            return ResponseEntity.ok(response);
+            logger.info("Public access successful to note {} via token {}", noteDto.getId(), urlToken);
+            return withGrantCookie(ResponseEntity.ok(), publicLink, request).body(response);
 
         } catch (com.notes.exception.PublicLinkNotFoundException e) {
             logger.warn("Public link not found or invalid: {}", urlToken);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(createErrorResponse("Lien public non trouvé ou invalide", e.getMessage()));
+        } catch (PasswordHashingBusyException e) {
+            logger.warn("Password hashing saturated, rejecting public access to {}", urlToken);
+            return tooManyRequests(e);
         } catch (RuntimeException e) {
             logger.error("Error accessing note via public link {}: {}", urlToken, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -85,25 +99,20 @@ public class PublicAccessController {
         try {
             logger.info("Getting public link info for token: {}", urlToken);
 
-            // Vérification de l'existence du lien public
-            if (!publicLinkService.publicLinkExists(urlToken)) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(createErrorResponse("Lien public non trouvé", "Le lien public n'existe pas"));
-            }
-
-            // Récupération des informations du lien public
-            var publicLinkOpt = publicLinkService.findPublicLinkByToken(urlToken);
+            // Récupération des informations du lien public (tokens inconnus rejetés sans requête)
+            var publicLinkOpt = publicLinkService.resolvePublicLink(urlToken);
             if (publicLinkOpt.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(createErrorResponse("Lien public non trouvé", "Le lien public n'existe pas"));
             }
 
             var publicLink = publicLinkOpt.get();
+            long accessCount = publicLinkService.getAccessCount(urlToken);
 
             // Vérification de la validité
-            if (!publicLink.isValid()) {
+            if (!publicLink.isValid(accessCount)) {
                 String reason = publicLink.isExpired() ? "Le lien a expiré" : 
-                               (publicLink.getMaxAccessCount() != null && publicLink.getAccessCount() >= publicLink.getMaxAccessCount()) ? "Le lien a atteint le nombre maximum d'accès" :
+                               publicLink.isAccessLimitReached(accessCount) ? "Le lien a atteint le nombre maximum d'accès" :
                                "Le lien n'est plus actif";
                 
                 return ResponseEntity.status(HttpStatus.GONE)
@@ -116,10 +125,10 @@ public class PublicAccessController {
             response.put("isPasswordProtected", publicLink.isPasswordProtected());
             response.put("expiresAt", publicLink.getExpiresAt());
             response.put("maxAccessCount", publicLink.getMaxAccessCount());
-            response.put("accessCount", publicLink.getAccessCount());
+            response.put("accessCount", accessCount);
             response.put("remainingAccess", publicLink.getMaxAccessCount() != null ? 
-                        publicLink.getMaxAccessCount() - publicLink.getAccessCount() : null);
-            response.put("isValid", publicLink.isValid());
+                        publicLink.getMaxAccessCount() - accessCount : null);
+            response.put("isValid", publicLink.isValid(accessCount));
 
             return ResponseEntity.ok(response);
 
@@ -133,7 +142,8 @@ public class PublicAccessController {
     // POST /api/v1/p/{url_token}/verify-password (vérification du mot de passe)
     @PostMapping("/{urlToken}/verify-password")
     public ResponseEntity<?> verifyPassword(@PathVariable String urlToken,
-                                           @RequestBody Map<String, String> passwordRequest) {
+                                           @RequestBody Map<String, String> passwordRequest,
+                                           HttpServletRequest request) {
         try {
             logger.info("Password verification attempt for token: {}", urlToken);
 
@@ -152,8 +162,10 @@ public class PublicAccessController {
                 response.put("message", "Mot de passe correct");
                 response.put("publicLink", publicLink);
                 
-                return ResponseEntity.ok(response);
+                return withGrantCookie(ResponseEntity.ok(), publicLink, request).body(response);
                 
+            } catch (PasswordHashingBusyException e) {
+                throw e;
             } catch (RuntimeException e) {
                 if (e.getMessage().contains("Mot de passe incorrect")) {
                     return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -166,6 +178,9 @@ public class PublicAccessController {
             logger.warn("Public link not found for password verification: {}", urlToken);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(createErrorResponse("Lien public non trouvé", e.getMessage()));
+        } catch (PasswordHashingBusyException e) {
+            logger.warn("Password hashing saturated, rejecting password verification for {}", urlToken);
+            return tooManyRequests(e);
         } catch (Exception e) {
             logger.error("Error verifying password for token {}: {}", urlToken, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -183,6 +198,28 @@ public class PublicAccessController {
         return response;
     }
 
+    // Cookie limité au chemin du lien, non lisible en JavaScript
+    private ResponseEntity.BodyBuilder withGrantCookie(ResponseEntity.BodyBuilder builder, PublicLinkDto publicLink,
+                                                       HttpServletRequest request) {
+        if (publicLink.getAccessGrant() == null) {
+            return builder;
+        }
+        ResponseCookie cookie = ResponseCookie.from(GRANT_COOKIE, publicLink.getAccessGrant())
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .sameSite("Lax")
+                .path(request.getContextPath() + "/api/v1/p/" + publicLink.getUrlToken())
+                .maxAge(Duration.ofMillis(grantTtlMs))
+                .build();
+        return builder.header(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    private ResponseEntity<?> tooManyRequests(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(createErrorResponse("Service momentanément surchargé", e.getMessage()));
+    }
+
     private Map<String, Object> createAccessInfo(PublicLinkDto publicLink) {
         Map<String, Object> accessInfo = new HashMap<>();
         accessInfo.put("isPasswordProtected", publicLink.getIsPasswordProtected());
@@ -1,5 +1,6 @@
 package com.notes.controller;
 
+import com.notes.dto.pagination.CursorPageDto;
 import com.notes.dto.share.ShareCreateDto;
 import com.notes.dto.share.ShareDto;
 import com.notes.model.User;
@@ -93,17 +94,25 @@ public class ShareController {
         }
     }
 
-    // GET /api/v1/shares/received
+    // GET /api/v1/shares/received?page=&size=  ou  ?cursor=&size=&includeTotal=
+    // La présence du paramètre cursor (vide pour la première page) active la pagination par curseur
     @GetMapping("/shares/received")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> getReceivedShares(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
             @AuthenticationPrincipal User currentUser) {
         
         try {
             logger.info("Getting received shares for user: {}", currentUser.getEmail());
 
+            if (cursor != null) {
+                CursorPageDto<ShareDto> shares = shareService.getReceivedSharesAfter(currentUser, cursor, size, includeTotal);
+                return ResponseEntity.ok(shares);
+            }
+
             Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
             Page<ShareDto> shares = shareService.getReceivedShares(currentUser, pageable);
 
@@ -116,6 +125,9 @@ public class ShareController {
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(createErrorResponse("Paramètres de pagination invalides", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error getting received shares for user {}: {}", currentUser.getEmail(), e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
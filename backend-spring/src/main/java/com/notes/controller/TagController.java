@@ -0,0 +1,36 @@
+package com.notes.controller;
+
+import com.notes.dto.tag.TagSuggestionDto;
+import com.notes.service.TagSuggestionIndex;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/tags")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class TagController {
+
+    private static final int MAX_SUGGESTIONS = 20;
+
+    private final TagSuggestionIndex tagSuggestionIndex;
+
+    public TagController(TagSuggestionIndex tagSuggestionIndex) {
+        this.tagSuggestionIndex = tagSuggestionIndex;
+    }
+
+    // GET /api/v1/tags/suggest?q=&limit=
+    // Autocomplétion servie depuis l'index en mémoire (aucune requête en base)
+    @GetMapping("/suggest")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<TagSuggestionDto>> suggestTags(
+            @RequestParam("q") String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        List<TagSuggestionDto> suggestions =
+                tagSuggestionIndex.suggest(prefix, Math.min(Math.max(limit, 0), MAX_SUGGESTIONS));
+        return ResponseEntity.ok(suggestions);
+    }
+}
@@ -0,0 +1,129 @@
+package com.notes.dto.note;
+
+import com.notes.model.NoteVisibility;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// Opération d'un lot POST /notes/batch (file hors ligne rejouée par le client)
+// CREATE : clientId identifie la note créée ; un rejeu renvoie la note déjà créée
+// UPDATE / DELETE : note désignée par id, ou à défaut par le clientId de sa création
+// UPDATE avec version : refusée (412) si la note a changé depuis cette version
+public class NoteBatchOperationDto {
+
+    public enum Type {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    @NotNull(message = "Le type d'opération est obligatoire")
+    private Type type;
+
+    @NotBlank(message = "L'identifiant client est obligatoire")
+    @Size(max = 64, message = "L'identifiant client ne peut pas dépasser 64 caractères")
+    private String clientId;
+
+    private Long id;
+
+    private Long version;
+
+    private String title;
+
+    private String contentMd;
+
+    private NoteVisibility visibility;
+
+    private List<String> tags;
+
+    // Constructors
+    public NoteBatchOperationDto() {}
+
+    public NoteBatchOperationDto(Type type, String clientId, Long id) {
+        this.type = type;
+        this.clientId = clientId;
+        this.id = id;
+    }
+
+    public NoteCreateDto toCreateDto() {
+        NoteCreateDto createDto = new NoteCreateDto(title, contentMd, visibility);
+        createDto.setTags(tags);
+        return createDto;
+    }
+
+    public NoteUpdateDto toUpdateDto() {
+        NoteUpdateDto updateDto = new NoteUpdateDto();
+        updateDto.setTitle(title);
+        updateDto.setContentMd(contentMd);
+        updateDto.setVisibility(visibility);
+        updateDto.setTags(tags);
+        return updateDto;
+    }
+
+    // Getters and Setters
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContentMd() {
+        return contentMd;
+    }
+
+    public void setContentMd(String contentMd) {
+        this.contentMd = contentMd;
+    }
+
+    public NoteVisibility getVisibility() {
+        return visibility;
+    }
+
+    public void setVisibility(NoteVisibility visibility) {
+        this.visibility = visibility;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+}
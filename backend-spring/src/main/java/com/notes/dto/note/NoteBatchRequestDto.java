@@ -0,0 +1,31 @@
+package com.notes.dto.note;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Lot d'opérations appliquées dans l'ordre (POST /notes/batch)
+public class NoteBatchRequestDto {
+
+    @NotEmpty(message = "Le lot doit contenir au moins une opération")
+    @Valid
+    private List<NoteBatchOperationDto> operations = new ArrayList<>();
+
+    // Constructors
+    public NoteBatchRequestDto() {}
+
+    public NoteBatchRequestDto(List<NoteBatchOperationDto> operations) {
+        this.operations = operations;
+    }
+
+    // Getters and Setters
+    public List<NoteBatchOperationDto> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<NoteBatchOperationDto> operations) {
+        this.operations = operations;
+    }
+}
@@ -0,0 +1,78 @@
+package com.notes.dto.note;
+
+// Résultat d'une opération du lot, dans l'ordre de la requête
+// status reprend le code HTTP qu'aurait renvoyé l'appel unitaire (200, 201, 204, 400, 403, 404, 412, 500)
+public class NoteBatchResultDto {
+
+    private String clientId;
+    private NoteBatchOperationDto.Type type;
+    private int status;
+    private Long noteId;
+    private NoteDto note;
+    private String error;
+
+    public NoteBatchResultDto() {}
+
+    public NoteBatchResultDto(String clientId, NoteBatchOperationDto.Type type, int status,
+                              Long noteId, NoteDto note, String error) {
+        this.clientId = clientId;
+        this.type = type;
+        this.status = status;
+        this.noteId = noteId;
+        this.note = note;
+        this.error = error;
+    }
+
+    public boolean isSuccess() {
+        return status < 400;
+    }
+
+    // Getters et Setters
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public NoteBatchOperationDto.Type getType() {
+        return type;
+    }
+
+    public void setType(NoteBatchOperationDto.Type type) {
+        this.type = type;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(Long noteId) {
+        this.noteId = noteId;
+    }
+
+    public NoteDto getNote() {
+        return note;
+    }
+
+    public void setNote(NoteDto note) {
+        this.note = note;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
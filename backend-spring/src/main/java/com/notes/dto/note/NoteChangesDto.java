@@ -0,0 +1,68 @@
+package com.notes.dto.note;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Modifications des notes accessibles depuis un curseur (GET /notes/changes)
+// resetRequired : curseur absent ou trop ancien, le client recharge la liste complète
+// puis reprend la synchronisation à partir de nextCursor
+public class NoteChangesDto {
+
+    private List<NoteDto> upserted = new ArrayList<>();
+    private List<Long> removed = new ArrayList<>();
+    private String nextCursor;
+    private boolean hasMore;
+    private boolean resetRequired;
+
+    public NoteChangesDto() {}
+
+    public NoteChangesDto(List<NoteDto> upserted, List<Long> removed, String nextCursor,
+                          boolean hasMore, boolean resetRequired) {
+        this.upserted = upserted;
+        this.removed = removed;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+        this.resetRequired = resetRequired;
+    }
+
+    // Getters et Setters
+    public List<NoteDto> getUpserted() {
+        return upserted;
+    }
+
+    public void setUpserted(List<NoteDto> upserted) {
+        this.upserted = upserted;
+    }
+
+    public List<Long> getRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(List<Long> removed) {
+        this.removed = removed;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public boolean isResetRequired() {
+        return resetRequired;
+    }
+
+    public void setResetRequired(boolean resetRequired) {
+        this.resetRequired = resetRequired;
+    }
+}
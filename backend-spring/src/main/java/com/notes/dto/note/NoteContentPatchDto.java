@@ -0,0 +1,92 @@
+package com.notes.dto.note;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Modification partielle du contenu : remplacements de plages du contenu de la version baseVersion
+// Les positions sont en unités UTF-16 (indices String Java / JavaScript), les plages triées et disjointes
+public class NoteContentPatchDto {
+
+    @NotNull(message = "La version de base est obligatoire")
+    private Long baseVersion;
+
+    @NotEmpty(message = "Au moins une modification est requise")
+    @Valid
+    private List<Edit> edits = new ArrayList<>();
+
+    // Remplacement de [start, end) par text (insertion si start == end, suppression si text vide)
+    public static class Edit {
+
+        @NotNull(message = "La position de début est obligatoire")
+        @Min(value = 0, message = "La position de début doit être positive")
+        private Integer start;
+
+        @NotNull(message = "La position de fin est obligatoire")
+        @Min(value = 0, message = "La position de fin doit être positive")
+        private Integer end;
+
+        private String text;
+
+        public Edit() {}
+
+        public Edit(Integer start, Integer end, String text) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+
+        public Integer getStart() {
+            return start;
+        }
+
+        public void setStart(Integer start) {
+            this.start = start;
+        }
+
+        public Integer getEnd() {
+            return end;
+        }
+
+        public void setEnd(Integer end) {
+            this.end = end;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public void setText(String text) {
+            this.text = text;
+        }
+    }
+
+    // Constructors
+    public NoteContentPatchDto() {}
+
+    public NoteContentPatchDto(Long baseVersion, List<Edit> edits) {
+        this.baseVersion = baseVersion;
+        this.edits = edits;
+    }
+
+    // Getters and Setters
+    public Long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public void setBaseVersion(Long baseVersion) {
+        this.baseVersion = baseVersion;
+    }
+
+    public List<Edit> getEdits() {
+        return edits;
+    }
+
+    public void setEdits(List<Edit> edits) {
+        this.edits = edits;
+    }
+}
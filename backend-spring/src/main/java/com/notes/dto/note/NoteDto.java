@@ -20,6 +20,8 @@ public class NoteDto {
     private LocalDateTime updatedAt;
     private Long viewCount;
     private Boolean isFavorite;
+    private String clientId;
+    private Long version;
     private List<TagDto> tags;
     private List<ShareDto> shares;
     private List<PublicLinkDto> publicLinks;
@@ -123,6 +125,22 @@ public class NoteDto {
         this.isFavorite = isFavorite;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
     public List<TagDto> getTags() {
         return tags;
     }
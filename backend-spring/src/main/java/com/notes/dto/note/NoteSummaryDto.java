@@ -0,0 +1,147 @@
+package com.notes.dto.note;
+
+import com.notes.model.NoteVisibility;
+import com.notes.dto.tag.TagDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Vue allégée d'une note pour les listes (sans contenu complet, partages ni liens publics)
+public class NoteSummaryDto {
+
+    // Longueur de l'extrait de contenu renvoyé dans les listes
+    public static final int EXCERPT_LENGTH = 200;
+
+    private Long id;
+    private Long ownerId;
+    private String ownerEmail;
+    private String title;
+    private String excerpt;
+    private NoteVisibility visibility;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Long viewCount;
+    private Boolean isFavorite;
+    private List<TagDto> tags = new ArrayList<>();
+
+    // Constructors
+    public NoteSummaryDto() {}
+
+    // Utilisé par les projections JPQL (SELECT new ...)
+    public NoteSummaryDto(Long id, Long ownerId, String ownerEmail, String title, String excerpt,
+                          NoteVisibility visibility, LocalDateTime createdAt, LocalDateTime updatedAt,
+                          Long viewCount, Boolean isFavorite) {
+        this.id = id;
+        this.ownerId = ownerId;
+        this.ownerEmail = ownerEmail;
+        this.title = title;
+        this.excerpt = excerpt;
+        this.visibility = visibility;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.viewCount = viewCount;
+        this.isFavorite = isFavorite;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public String getOwnerEmail() {
+        return ownerEmail;
+    }
+
+    public void setOwnerEmail(String ownerEmail) {
+        this.ownerEmail = ownerEmail;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public void setExcerpt(String excerpt) {
+        this.excerpt = excerpt;
+    }
+
+    public NoteVisibility getVisibility() {
+        return visibility;
+    }
+
+    public void setVisibility(NoteVisibility visibility) {
+        this.visibility = visibility;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getViewCount() {
+        return viewCount;
+    }
+
+    public void setViewCount(Long viewCount) {
+        this.viewCount = viewCount;
+    }
+
+    public Boolean getIsFavorite() {
+        return isFavorite;
+    }
+
+    public void setIsFavorite(Boolean isFavorite) {
+        this.isFavorite = isFavorite;
+    }
+
+    public List<TagDto> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<TagDto> tags) {
+        this.tags = tags;
+    }
+
+    @Override
+    public String toString() {
+        return "NoteSummaryDto{" +
+                "id=" + id +
+                ", ownerId=" + ownerId +
+                ", title='" + title + '\'' +
+                ", visibility=" + visibility +
+                ", updatedAt=" + updatedAt +
+                ", tags=" + tags +
+                '}';
+    }
+}
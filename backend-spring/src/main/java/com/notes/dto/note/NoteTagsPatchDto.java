@@ -0,0 +1,37 @@
+package com.notes.dto.note;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Modification partielle des tags d'une note : libellés à ajouter et à retirer
+public class NoteTagsPatchDto {
+
+    private List<String> add = new ArrayList<>();
+
+    private List<String> remove = new ArrayList<>();
+
+    // Constructors
+    public NoteTagsPatchDto() {}
+
+    public NoteTagsPatchDto(List<String> add, List<String> remove) {
+        this.add = add;
+        this.remove = remove;
+    }
+
+    // Getters and Setters
+    public List<String> getAdd() {
+        return add;
+    }
+
+    public void setAdd(List<String> add) {
+        this.add = add;
+    }
+
+    public List<String> getRemove() {
+        return remove;
+    }
+
+    public void setRemove(List<String> remove) {
+        this.remove = remove;
+    }
+}
@@ -0,0 +1,54 @@
+package com.notes.dto.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Position opaque dans le journal des modifications (note_changes)
+// Porte le dernier identifiant lu et la date à partir de laquelle les entrées suivantes ont été
+// écrites, pour détecter un curseur plus ancien que la rétention du journal
+public class ChangeCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final Long lastId;
+    private final LocalDateTime watermark;
+
+    public ChangeCursor(Long lastId, LocalDateTime watermark) {
+        this.lastId = lastId;
+        this.watermark = watermark;
+    }
+
+    // Un curseur vide (première synchronisation) retourne null
+    public static ChangeCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separatorIndex = decoded.indexOf(SEPARATOR);
+            if (separatorIndex <= 0) {
+                throw new IllegalArgumentException("Curseur de synchronisation invalide");
+            }
+            return new ChangeCursor(Long.parseLong(decoded.substring(0, separatorIndex)),
+                    LocalDateTime.parse(decoded.substring(separatorIndex + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Curseur de synchronisation invalide", e);
+        }
+    }
+
+    public String encode() {
+        String raw = lastId + SEPARATOR + watermark;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public LocalDateTime getWatermark() {
+        return watermark;
+    }
+}
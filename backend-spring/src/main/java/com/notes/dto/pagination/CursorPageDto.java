@@ -0,0 +1,75 @@
+package com.notes.dto.pagination;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Page obtenue par pagination par curseur (sans COUNT ni OFFSET)
+public class CursorPageDto<T> {
+
+    private List<T> content = new ArrayList<>();
+    private String nextCursor;
+    private boolean hasNext;
+    private int size;
+    private int numberOfElements;
+    // Total approximatif calculé en arrière-plan ; null tant qu'il n'est pas disponible
+    private Long totalElements;
+
+    public CursorPageDto() {}
+
+    public CursorPageDto(List<T> content, String nextCursor, boolean hasNext, int size) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+        this.size = size;
+        this.numberOfElements = content.size();
+    }
+
+    // Getters et Setters
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public int getNumberOfElements() {
+        return numberOfElements;
+    }
+
+    public void setNumberOfElements(int numberOfElements) {
+        this.numberOfElements = numberOfElements;
+    }
+
+    public Long getTotalElements() {
+        return totalElements;
+    }
+
+    public void setTotalElements(Long totalElements) {
+        this.totalElements = totalElements;
+    }
+}
@@ -16,6 +16,7 @@ public class PublicLinkDto {
     private Boolean isActive;
     private String description;
     private Boolean isPasswordProtected;
+    private String accessGrant;
 
     // Constructors
     public PublicLinkDto() {}
@@ -39,6 +40,14 @@ public class PublicLinkDto {
         this.isPasswordProtected = isPasswordProtected;
     }
 
+    public String getAccessGrant() {
+        return accessGrant;
+    }
+
+    public void setAccessGrant(String accessGrant) {
+        this.accessGrant = accessGrant;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
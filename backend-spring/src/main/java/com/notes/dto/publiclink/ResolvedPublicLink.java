@@ -0,0 +1,91 @@
+package com.notes.dto.publiclink;
+
+import com.notes.model.PublicLink;
+
+import java.time.LocalDateTime;
+
+// Champs d'un lien public nécessaires à l'accès par token, gardés en cache (PublicLinkService.resolvePublicLink)
+// Seuls PublicLinkService modifie ces champs, et il évince l'entrée correspondante ; le compteur d'accès,
+// modifié à chaque consultation, n'en fait pas partie et est toujours lu en base.
+public final class ResolvedPublicLink {
+
+    private final Long id;
+    private final Long noteId;
+    private final String urlToken;
+    private final String passwordHash;
+    private final LocalDateTime expiresAt;
+    private final Long maxAccessCount;
+    private final Boolean isActive;
+    private final String description;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+
+    public ResolvedPublicLink(PublicLink publicLink) {
+        this.id = publicLink.getId();
+        this.noteId = publicLink.getNote().getId();
+        this.urlToken = publicLink.getUrlToken();
+        this.passwordHash = publicLink.getPasswordHash();
+        this.expiresAt = publicLink.getExpiresAt();
+        this.maxAccessCount = publicLink.getMaxAccessCount();
+        this.isActive = publicLink.getIsActive();
+        this.description = publicLink.getDescription();
+        this.createdAt = publicLink.getCreatedAt();
+        this.updatedAt = publicLink.getUpdatedAt();
+    }
+
+    public boolean isExpired() {
+        return expiresAt != null && expiresAt.isBefore(LocalDateTime.now());
+    }
+
+    public boolean isAccessLimitReached(long accessCount) {
+        return maxAccessCount != null && accessCount >= maxAccessCount;
+    }
+
+    public boolean isValid(long accessCount) {
+        return Boolean.TRUE.equals(isActive) && !isExpired() && !isAccessLimitReached(accessCount);
+    }
+
+    public boolean isPasswordProtected() {
+        return passwordHash != null && !passwordHash.isEmpty();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public String getUrlToken() {
+        return urlToken;
+    }
+
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public Long getMaxAccessCount() {
+        return maxAccessCount;
+    }
+
+    public Boolean getIsActive() {
+        return isActive;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
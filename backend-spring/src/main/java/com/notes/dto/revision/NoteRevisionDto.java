@@ -0,0 +1,75 @@
+package com.notes.dto.revision;
+
+import java.time.LocalDateTime;
+
+// Révision d'une note ; contentMd n'est renseigné que pour la lecture d'une révision
+public class NoteRevisionDto {
+
+    private Integer revision;
+    private String title;
+    private Integer contentLength;
+    private Long authorId;
+    private LocalDateTime createdAt;
+    private String contentMd;
+
+    public NoteRevisionDto() {}
+
+    // Utilisé par la projection JPQL de la liste des révisions
+    public NoteRevisionDto(Integer revision, String title, Integer contentLength, Long authorId,
+                           LocalDateTime createdAt) {
+        this.revision = revision;
+        this.title = title;
+        this.contentLength = contentLength;
+        this.authorId = authorId;
+        this.createdAt = createdAt;
+    }
+
+    // Getters et Setters
+    public Integer getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Integer revision) {
+        this.revision = revision;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Integer getContentLength() {
+        return contentLength;
+    }
+
+    public void setContentLength(Integer contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getContentMd() {
+        return contentMd;
+    }
+
+    public void setContentMd(String contentMd) {
+        this.contentMd = contentMd;
+    }
+}
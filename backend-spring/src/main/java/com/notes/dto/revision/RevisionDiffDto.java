@@ -0,0 +1,89 @@
+package com.notes.dto.revision;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Différence ligne à ligne entre deux révisions d'une note
+public class RevisionDiffDto {
+
+    public static final String EQUAL = "EQUAL";
+    public static final String DELETE = "DELETE";
+    public static final String INSERT = "INSERT";
+
+    private Integer fromRevision;
+    private Integer toRevision;
+    private boolean titleChanged;
+    private List<Segment> segments = new ArrayList<>();
+
+    public RevisionDiffDto() {}
+
+    public RevisionDiffDto(Integer fromRevision, Integer toRevision, boolean titleChanged, List<Segment> segments) {
+        this.fromRevision = fromRevision;
+        this.toRevision = toRevision;
+        this.titleChanged = titleChanged;
+        this.segments = segments;
+    }
+
+    // Bloc de lignes consécutives de même nature (EQUAL, DELETE ou INSERT)
+    public static class Segment {
+
+        private String op;
+        private String text;
+
+        public Segment() {}
+
+        public Segment(String op, String text) {
+            this.op = op;
+            this.text = text;
+        }
+
+        public String getOp() {
+            return op;
+        }
+
+        public void setOp(String op) {
+            this.op = op;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public void setText(String text) {
+            this.text = text;
+        }
+    }
+
+    // Getters et Setters
+    public Integer getFromRevision() {
+        return fromRevision;
+    }
+
+    public void setFromRevision(Integer fromRevision) {
+        this.fromRevision = fromRevision;
+    }
+
+    public Integer getToRevision() {
+        return toRevision;
+    }
+
+    public void setToRevision(Integer toRevision) {
+        this.toRevision = toRevision;
+    }
+
+    public boolean isTitleChanged() {
+        return titleChanged;
+    }
+
+    public void setTitleChanged(boolean titleChanged) {
+        this.titleChanged = titleChanged;
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public void setSegments(List<Segment> segments) {
+        this.segments = segments;
+    }
+}
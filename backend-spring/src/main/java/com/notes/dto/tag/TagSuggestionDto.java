@@ -0,0 +1,50 @@
+package com.notes.dto.tag;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Suggestion de tag pour l'autocomplétion")
+public class TagSuggestionDto {
+
+    @Schema(description = "Identifiant unique du tag", example = "1")
+    private Long id;
+
+    @Schema(description = "Libellé du tag", example = "travail")
+    private String label;
+
+    @Schema(description = "Nombre de notes utilisant le tag", example = "12")
+    private Long usageCount;
+
+    // Constructors
+    public TagSuggestionDto() {}
+
+    public TagSuggestionDto(Long id, String label, Long usageCount) {
+        this.id = id;
+        this.label = label;
+        this.usageCount = usageCount;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public Long getUsageCount() {
+        return usageCount;
+    }
+
+    public void setUsageCount(Long usageCount) {
+        this.usageCount = usageCount;
+    }
+}
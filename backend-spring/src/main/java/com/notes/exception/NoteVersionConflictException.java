@@ -0,0 +1,21 @@
+package com.notes.exception;
+
+public class NoteVersionConflictException extends RuntimeException {
+
+    private final Long noteId;
+    private final Long currentVersion;
+
+    public NoteVersionConflictException(Long noteId, Long currentVersion) {
+        super("La note " + noteId + " a été modifiée entre-temps (version actuelle : " + currentVersion + ")");
+        this.noteId = noteId;
+        this.currentVersion = currentVersion;
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
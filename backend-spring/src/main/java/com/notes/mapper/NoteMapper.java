@@ -12,7 +12,7 @@ import org.mapstruct.factory.Mappers;
 
 import java.util.List;
 
-@Mapper(componentModel = "spring", uses = {UserMapper.class, TagMapper.class, PublicLinkMapper.class})
+@Mapper(componentModel = "spring", uses = {UserMapper.class, TagMapper.class, PublicLinkMapper.class, ShareMapper.class})
 public interface NoteMapper {
     NoteMapper INSTANCE = Mappers.getMapper(NoteMapper.class);
 
@@ -20,6 +20,9 @@ public interface NoteMapper {
     @Mapping(target = "ownerEmail", source = "owner.email")
     NoteDto toDto(Note note);
 
+    // Copie d'un NoteDto mis en cache, avant personnalisation (compteur de vues)
+    NoteDto copy(NoteDto noteDto);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "owner", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
@@ -29,6 +32,10 @@ public interface NoteMapper {
     @Mapping(target = "noteTags", ignore = true)
     @Mapping(target = "shares", ignore = true)
     @Mapping(target = "publicLinks", ignore = true)
+    @Mapping(target = "clientId", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    // Tags résolus par NoteService (Note.getTags() est une vue non modifiable des associations)
+    @Mapping(target = "tags", ignore = true)
     Note toEntity(NoteCreateDto noteCreateDto);
 
     @Mapping(target = "id", ignore = true)
@@ -40,6 +47,10 @@ public interface NoteMapper {
     @Mapping(target = "noteTags", ignore = true)
     @Mapping(target = "shares", ignore = true)
     @Mapping(target = "publicLinks", ignore = true)
+    @Mapping(target = "clientId", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    // Tags résolus par NoteService (Note.getTags() est une vue non modifiable des associations)
+    @Mapping(target = "tags", ignore = true)
     void updateEntity(NoteUpdateDto noteUpdateDto, @MappingTarget Note note);
 
     // Méthodes de mapping pour les tags
@@ -1,6 +1,7 @@
 package com.notes.mapper;
 
 import com.notes.dto.publiclink.PublicLinkDto;
+import com.notes.dto.publiclink.ResolvedPublicLink;
 import com.notes.model.PublicLink;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -13,5 +14,13 @@ public interface PublicLinkMapper {
     @Mapping(target = "noteId", source = "note.id")
     @Mapping(target = "noteTitle", source = "note.title")
     @Mapping(target = "isPasswordProtected", expression = "java(publicLink.isPasswordProtected())")
+    @Mapping(target = "accessGrant", ignore = true)
     PublicLinkDto toDto(PublicLink publicLink);
+
+    // Titre de la note et compteur d'accès lus en base par PublicLinkService (absents du cache)
+    @Mapping(target = "noteTitle", ignore = true)
+    @Mapping(target = "accessCount", ignore = true)
+    @Mapping(target = "accessGrant", ignore = true)
+    @Mapping(target = "isPasswordProtected", expression = "java(publicLink.isPasswordProtected())")
+    PublicLinkDto toDto(ResolvedPublicLink publicLink);
 }
@@ -4,25 +4,35 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+// UPDATE limité aux colonnes modifiées : un changement de favori ou de tags ne réécrit pas content_md
+@DynamicUpdate
 @Table(name = "notes",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_note_owner_client_id", columnNames = {"owner_id", "client_id"})
+       },
        indexes = {
            @Index(name = "idx_note_owner", columnList = "owner_id"),
            @Index(name = "idx_note_visibility", columnList = "visibility"),
            @Index(name = "idx_note_created_at", columnList = "created_at"),
            @Index(name = "idx_note_updated_at", columnList = "updated_at"),
            @Index(name = "idx_note_title", columnList = "title"),
-           @Index(name = "idx_note_owner_visibility", columnList = "owner_id, visibility")
+           @Index(name = "idx_note_owner_visibility", columnList = "owner_id, visibility"),
+           @Index(name = "idx_note_updated_at_id", columnList = "updated_at, id"),
+           @Index(name = "idx_note_visibility_updated_at_id", columnList = "visibility, updated_at, id")
        })
 public class Note {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Séquence allouée par blocs de 50 (pooled-lo) : les insertions sont regroupées en lots JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_seq")
+    @SequenceGenerator(name = "note_seq", sequenceName = "notes_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "Le propriétaire est obligatoire")
@@ -49,12 +59,22 @@ public class Note {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
-    @Column(name = "view_count", nullable = false)
+    // Incrémenté uniquement par ViewCountAggregator (UPDATE relatif), jamais réécrit par Hibernate
+    @Column(name = "view_count", nullable = false, updatable = false)
     private Long viewCount = 0L;
 
     @Column(name = "is_favorite", nullable = false)
     private Boolean isFavorite = false;
 
+    // Verrouillage optimiste, exposé en ETag ; les compteurs de vues n'en changent pas
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
+
+    // Identifiant attribué hors ligne par le client : rend la création par lot rejouable
+    @Column(name = "client_id", length = 64, updatable = false)
+    private String clientId;
+
     // Relations
     @OneToMany(mappedBy = "note", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<NoteTag> noteTags = new ArrayList<>();
@@ -209,6 +229,22 @@ public class Note {
         this.isFavorite = isFavorite; 
     }
 
+    public Long getVersion() { 
+        return version; 
+    }
+    
+    public void setVersion(Long version) { 
+        this.version = version; 
+    }
+
+    public String getClientId() { 
+        return clientId; 
+    }
+    
+    public void setClientId(String clientId) { 
+        this.clientId = clientId; 
+    }
+
     public List<NoteTag> getNoteTags() { 
         return noteTags; 
     }
@@ -0,0 +1,89 @@
+package com.notes.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Table dénormalisée des droits d'accès aux notes (propriétaire, partages, notes publiques)
+// Dérivée de notes et shares : maintenue par NoteAccessService et réparable par reconstruction
+@Entity
+@Table(name = "note_access",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_note_access_user_note", columnNames = {"user_id", "note_id"})
+       },
+       indexes = {
+           @Index(name = "idx_note_access_note", columnList = "note_id")
+       })
+public class NoteAccess {
+
+    // Utilisateur fictif portant l'accès en lecture des notes publiques
+    public static final long PUBLIC_USER_ID = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "note_id", nullable = false)
+    private Long noteId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private SharePermission permission;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    // Constructors
+    public NoteAccess() {}
+
+    public NoteAccess(Long userId, Long noteId, SharePermission permission, LocalDateTime expiresAt) {
+        this.userId = userId;
+        this.noteId = noteId;
+        this.permission = permission;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(Long noteId) {
+        this.noteId = noteId;
+    }
+
+    public SharePermission getPermission() {
+        return permission;
+    }
+
+    public void setPermission(SharePermission permission) {
+        this.permission = permission;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,86 @@
+package com.notes.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Journal des modifications de notes, une ligne par utilisateur ayant (eu) accès à la note
+// L'identifiant croissant sert de curseur de synchronisation ; les suppressions et retraits
+// d'accès restent visibles sous forme de REMOVE jusqu'à la purge (rétention)
+@Entity
+@Table(name = "note_changes",
+       indexes = {
+           @Index(name = "idx_note_change_user_id", columnList = "user_id, id"),
+           @Index(name = "idx_note_change_changed_at", columnList = "changed_at")
+       })
+public class NoteChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Pas de clé étrangère : l'entrée survit à la suppression de la note
+    @Column(name = "note_id", nullable = false)
+    private Long noteId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 10)
+    private NoteChangeType changeType;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    // Constructors
+    public NoteChange() {}
+
+    public NoteChange(Long noteId, Long userId, NoteChangeType changeType, LocalDateTime changedAt) {
+        this.noteId = noteId;
+        this.userId = userId;
+        this.changeType = changeType;
+        this.changedAt = changedAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(Long noteId) {
+        this.noteId = noteId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public NoteChangeType getChangeType() {
+        return changeType;
+    }
+
+    public void setChangeType(NoteChangeType changeType) {
+        this.changeType = changeType;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
@@ -0,0 +1,7 @@
+package com.notes.model;
+
+// Nature d'une entrée du journal des modifications (note_changes)
+public enum NoteChangeType {
+    UPSERT,
+    REMOVE
+}
@@ -0,0 +1,162 @@
+package com.notes.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Révision d'une note : contenu complet compressé (SNAPSHOT) ou delta compressé par rapport
+// au SNAPSHOT de base. Un DELTA ne dépend que de son SNAPSHOT : une révision se reconstruit
+// en au plus une application de delta.
+@Entity
+@Table(name = "note_revisions",
+       uniqueConstraints = @UniqueConstraint(name = "uk_note_revision_note_revision",
+                                             columnNames = {"note_id", "revision"}),
+       indexes = {
+           @Index(name = "idx_note_revision_base", columnList = "base_revision_id"),
+           @Index(name = "idx_note_revision_created_at", columnList = "created_at")
+       })
+public class NoteRevision {
+
+    @Id
+    // Séquence allouée par blocs de 50 (pooled-lo) : les révisions d'un lot de créations sont
+    // insérées en lots JDBC (IDENTITY forcerait un INSERT immédiat, et le flush des notes en attente)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_revision_seq")
+    @SequenceGenerator(name = "note_revision_seq", sequenceName = "note_revisions_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "note_id", nullable = false)
+    private Long noteId;
+
+    // Numéro croissant par note, indépendant de la version (ETag)
+    @Column(nullable = false)
+    private Integer revision;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private NoteRevisionKind kind;
+
+    // SNAPSHOT auquel s'applique le delta (null pour un SNAPSHOT)
+    @Column(name = "base_revision_id")
+    private Long baseRevisionId;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(nullable = false, length = 10485760)
+    private byte[] payload;
+
+    @Column(name = "content_length", nullable = false)
+    private Integer contentLength;
+
+    @Column(name = "author_id")
+    private Long authorId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // DELTA déjà traité par la compaction (NoteRevisionService.maintain)
+    @Column(nullable = false)
+    private boolean compacted;
+
+    // Constructors
+    public NoteRevision() {}
+
+    public NoteRevision(Long noteId, Integer revision, Long authorId) {
+        this.noteId = noteId;
+        this.revision = revision;
+        this.authorId = authorId;
+    }
+
+    public boolean isSnapshot() {
+        return kind == NoteRevisionKind.SNAPSHOT;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(Long noteId) {
+        this.noteId = noteId;
+    }
+
+    public Integer getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Integer revision) {
+        this.revision = revision;
+    }
+
+    public NoteRevisionKind getKind() {
+        return kind;
+    }
+
+    public void setKind(NoteRevisionKind kind) {
+        this.kind = kind;
+    }
+
+    public Long getBaseRevisionId() {
+        return baseRevisionId;
+    }
+
+    public void setBaseRevisionId(Long baseRevisionId) {
+        this.baseRevisionId = baseRevisionId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public Integer getContentLength() {
+        return contentLength;
+    }
+
+    public void setContentLength(Integer contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public boolean isCompacted() {
+        return compacted;
+    }
+
+    public void setCompacted(boolean compacted) {
+        this.compacted = compacted;
+    }
+}
@@ -0,0 +1,7 @@
+package com.notes.model;
+
+// SNAPSHOT : contenu complet compressé ; DELTA : différence compressée avec un SNAPSHOT
+public enum NoteRevisionKind {
+    SNAPSHOT,
+    DELTA
+}
@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class PublicLink {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "public_link_seq")
+    @SequenceGenerator(name = "public_link_seq", sequenceName = "public_links_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "La note est obligatoire")
@@ -40,7 +41,8 @@ public class PublicLink {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    @Column(name = "access_count", nullable = false)
+    // Incrémenté uniquement par UPDATE conditionnel (PublicLinkRepository.incrementAccessCountIfAllowed)
+    @Column(name = "access_count", nullable = false, updatable = false)
     private Long accessCount = 0L;
 
     @Column(name = "max_access_count")
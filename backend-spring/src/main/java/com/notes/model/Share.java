@@ -12,12 +12,14 @@ import java.time.LocalDateTime;
            @Index(name = "idx_share_user", columnList = "shared_with_user_id"),
            @Index(name = "idx_share_permission", columnList = "permission"),
            @Index(name = "idx_share_created_at", columnList = "created_at"),
-           @Index(name = "idx_share_note_user", columnList = "note_id, shared_with_user_id", unique = true)
+           @Index(name = "idx_share_note_user", columnList = "note_id, shared_with_user_id", unique = true),
+           @Index(name = "idx_share_user_created_at_id", columnList = "shared_with_user_id, created_at, id")
        })
 public class Share {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "share_seq")
+    @SequenceGenerator(name = "share_seq", sequenceName = "shares_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "La note est obligatoire")
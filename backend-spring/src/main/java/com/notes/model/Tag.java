@@ -12,12 +12,14 @@ import java.util.List;
 @Table(name = "tags",
        indexes = {
            @Index(name = "idx_tag_label", columnList = "label", unique = true),
-           @Index(name = "idx_tag_created_at", columnList = "created_at")
+           @Index(name = "idx_tag_created_at", columnList = "created_at"),
+           @Index(name = "idx_tag_usage_count", columnList = "usage_count")
        })
 public class Tag {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tag_seq")
+    @SequenceGenerator(name = "tag_seq", sequenceName = "tags_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Le libellé du tag est obligatoire")
@@ -38,7 +40,8 @@ public class Tag {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    @Column(name = "usage_count", nullable = false)
+    // Maintenu par TagUsageAccumulator (UPDATE par lots), jamais réécrit par Hibernate
+    @Column(name = "usage_count", nullable = false, updatable = false)
     private Long usageCount = 0L;
 
     // Relations
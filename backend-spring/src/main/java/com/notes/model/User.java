@@ -12,6 +12,7 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 @Entity
 @Table(name = "users", 
@@ -22,7 +23,8 @@ import java.util.List;
 public class User implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "L'email est obligatoire")
@@ -201,6 +203,21 @@ public class User implements UserDetails {
 
     // RefreshToken getters/setters removed to avoid circular dependencies
 
+    // Égalité par identifiant : le principal authentifié (cache, claims) n'est pas l'instance
+    // chargée avec les notes, et le propriétaire d'une note peut être un proxy Hibernate
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof User)) return false;
+        User user = (User) o;
+        return getId() != null && Objects.equals(getId(), user.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return User.class.hashCode();
+    }
+
     @Override
     public String toString() {
         return "User{" +
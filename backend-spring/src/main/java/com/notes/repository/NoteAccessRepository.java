@@ -0,0 +1,32 @@
+package com.notes.repository;
+
+import com.notes.model.NoteAccess;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NoteAccessRepository extends JpaRepository<NoteAccess, Long> {
+
+    Optional<NoteAccess> findByUserIdAndNoteId(Long userId, Long noteId);
+
+    @Query("SELECT a.userId FROM NoteAccess a WHERE a.noteId = :noteId")
+    List<Long> findUserIdsByNoteId(@Param("noteId") Long noteId);
+
+    @Query("SELECT a.noteId, a.userId FROM NoteAccess a WHERE a.noteId IN :noteIds")
+    List<Object[]> findNoteAndUserIdsByNoteIdIn(@Param("noteIds") Collection<Long> noteIds);
+
+    @Modifying
+    @Query("DELETE FROM NoteAccess a WHERE a.userId = :userId AND a.noteId = :noteId")
+    int deleteByUserIdAndNoteId(@Param("userId") Long userId, @Param("noteId") Long noteId);
+
+    @Modifying
+    @Query("DELETE FROM NoteAccess a WHERE a.noteId = :noteId")
+    int deleteByNoteId(@Param("noteId") Long noteId);
+}
@@ -1,22 +1,41 @@
 package com.notes.repository;
 
+import com.notes.dto.note.NoteSummaryDto;
 import com.notes.model.Note;
 import com.notes.model.NoteVisibility;
 import com.notes.model.Tag;
 import com.notes.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NoteRepository extends JpaRepository<Note, Long> {
 
+    // Projection des colonnes affichées dans les listes (extrait de 200 caractères au lieu du contenu complet)
+    String SUMMARY_SELECT = "SELECT new com.notes.dto.note.NoteSummaryDto(n.id, o.id, o.email, n.title, " +
+                            "SUBSTRING(n.contentMd, 1, 200), n.visibility, n.createdAt, n.updatedAt, " +
+                            "n.viewCount, n.isFavorite) FROM Note n JOIN n.owner o ";
+
+    // Pagination par curseur : lignes strictement après la position (updatedAt, id), sans COUNT
+    String KEYSET_ORDER = "ORDER BY n.updatedAt DESC, n.id DESC";
+    String KEYSET_AFTER = "(n.updatedAt < :cursorUpdatedAt OR (n.updatedAt = :cursorUpdatedAt AND n.id < :cursorId)) ";
+
+    // Droits d'accès lus dans la table dénormalisée note_access (index unique user_id, note_id)
+    // L'utilisateur 0 porte l'accès en lecture des notes publiques (NoteAccess.PUBLIC_USER_ID)
+    String ACCESSIBLE_BY_USER = "n.id IN (SELECT a.noteId FROM NoteAccess a WHERE a.userId IN (:userId, 0) " +
+                                "AND (a.expiresAt IS NULL OR a.expiresAt > CURRENT_TIMESTAMP)) ";
+
     // Recherche par propriétaire
     Page<Note> findByOwner(User owner, Pageable pageable);
     List<Note> findByOwner(User owner);
@@ -62,6 +81,24 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
            "LOWER(n.contentMd) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
     Page<Note> findPublicNotesBySearchTerm(@Param("searchTerm") String searchTerm, Pageable pageable);
 
+    // Recherche plein texte (PostgreSQL tsvector + index GIN), triée par pertinence
+    // Le Pageable transmis ne doit pas porter de tri : l'ordre est imposé par le rang
+    @Query(value = "SELECT n.* FROM notes n, websearch_to_tsquery('french', :searchTerm) q " +
+                   "WHERE n.owner_id = :ownerId AND n.search_vector @@ q " +
+                   "ORDER BY ts_rank_cd(n.search_vector, q) DESC, n.updated_at DESC",
+           countQuery = "SELECT COUNT(*) FROM notes n " +
+                        "WHERE n.owner_id = :ownerId AND n.search_vector @@ websearch_to_tsquery('french', :searchTerm)",
+           nativeQuery = true)
+    Page<Note> fullTextSearchByOwner(@Param("ownerId") Long ownerId, @Param("searchTerm") String searchTerm, Pageable pageable);
+
+    @Query(value = "SELECT n.* FROM notes n, websearch_to_tsquery('french', :searchTerm) q " +
+                   "WHERE n.visibility = 'PUBLIC' AND n.search_vector @@ q " +
+                   "ORDER BY ts_rank_cd(n.search_vector, q) DESC, n.updated_at DESC",
+           countQuery = "SELECT COUNT(*) FROM notes n " +
+                        "WHERE n.visibility = 'PUBLIC' AND n.search_vector @@ websearch_to_tsquery('french', :searchTerm)",
+           nativeQuery = true)
+    Page<Note> fullTextSearchPublicNotes(@Param("searchTerm") String searchTerm, Pageable pageable);
+
     // Filtrage par tags
     @Query("SELECT DISTINCT n FROM Note n JOIN n.noteTags nt WHERE nt.tag = :tag")
     List<Note> findByTag(@Param("tag") Tag tag);
@@ -105,15 +142,11 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
            "(SELECT s.note.id FROM Share s WHERE s.sharedWithUser.id = :userId AND s.isActive = true)")
     Page<Note> findSharedWithUser(@Param("userId") Long userId, Pageable pageable);
 
-    // Notes accessibles par un utilisateur (propriétaire + partagées + publiques)
-    @Query("SELECT n FROM Note n WHERE n.owner.id = :userId OR n.id IN " +
-           "(SELECT s.note.id FROM Share s WHERE s.sharedWithUser.id = :userId AND s.isActive = true) OR " +
-           "n.visibility = 'PUBLIC'")
+    // Notes accessibles par un utilisateur (propriétaire + partagées + publiques), via note_access
+    @Query("SELECT n FROM Note n WHERE " + ACCESSIBLE_BY_USER)
     List<Note> findAccessibleByUser(@Param("userId") Long userId);
 
-    @Query("SELECT n FROM Note n WHERE n.owner.id = :userId OR n.id IN " +
-           "(SELECT s.note.id FROM Share s WHERE s.sharedWithUser.id = :userId AND s.isActive = true) OR " +
-           "n.visibility = 'PUBLIC'")
+    @Query("SELECT n FROM Note n WHERE " + ACCESSIBLE_BY_USER)
     Page<Note> findAccessibleByUser(@Param("userId") Long userId, Pageable pageable);
 
     // Tri par updated_at
@@ -188,4 +221,131 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
 
     @Query("SELECT n FROM Note n WHERE n.owner.id = :ownerId AND n.isFavorite = true")
     Page<Note> findFavoriteNotesByOwner(@Param("ownerId") Long ownerId, Pageable pageable);
-}
\ No newline at end of file
+
+    // Listes allégées (NoteSummaryDto), les tags sont chargés ensuite en une requête pour toute la page
+    @Query(value = SUMMARY_SELECT + "WHERE " + ACCESSIBLE_BY_USER,
+           countQuery = "SELECT COUNT(n) FROM Note n WHERE " + ACCESSIBLE_BY_USER)
+    Page<NoteSummaryDto> findSummariesAccessibleByUser(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE n.id IN " +
+                   "(SELECT s.note.id FROM Share s WHERE s.sharedWithUser.id = :userId AND s.isActive = true)",
+           countQuery = "SELECT COUNT(n) FROM Note n WHERE n.id IN " +
+                        "(SELECT s.note.id FROM Share s WHERE s.sharedWithUser.id = :userId AND s.isActive = true)")
+    Page<NoteSummaryDto> findSummariesSharedWithUser(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE o.id = :ownerId AND n.isFavorite = true",
+           countQuery = "SELECT COUNT(n) FROM Note n WHERE n.owner.id = :ownerId AND n.isFavorite = true")
+    Page<NoteSummaryDto> findFavoriteSummariesByOwner(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE n.visibility = :visibility",
+           countQuery = "SELECT COUNT(n) FROM Note n WHERE n.visibility = :visibility")
+    Page<NoteSummaryDto> findSummariesByVisibility(@Param("visibility") NoteVisibility visibility, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE o.id = :ownerId AND n.visibility = :visibility",
+           countQuery = "SELECT COUNT(n) FROM Note n WHERE n.owner.id = :ownerId AND n.visibility = :visibility")
+    Page<NoteSummaryDto> findSummariesByOwnerAndVisibility(@Param("ownerId") Long ownerId,
+                                                           @Param("visibility") NoteVisibility visibility,
+                                                           Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE " + ACCESSIBLE_BY_USER + "AND " + KEYSET_AFTER + KEYSET_ORDER)
+    Slice<NoteSummaryDto> findSummariesAccessibleByUserAfter(@Param("userId") Long userId,
+                                                             @Param("cursorUpdatedAt") LocalDateTime cursorUpdatedAt,
+                                                             @Param("cursorId") Long cursorId,
+                                                             Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE n.visibility = :visibility AND " + KEYSET_AFTER + KEYSET_ORDER)
+    Slice<NoteSummaryDto> findSummariesByVisibilityAfter(@Param("visibility") NoteVisibility visibility,
+                                                         @Param("cursorUpdatedAt") LocalDateTime cursorUpdatedAt,
+                                                         @Param("cursorId") Long cursorId,
+                                                         Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE o.id = :ownerId AND n.visibility = :visibility AND " + KEYSET_AFTER + KEYSET_ORDER)
+    Slice<NoteSummaryDto> findSummariesByOwnerAndVisibilityAfter(@Param("ownerId") Long ownerId,
+                                                                 @Param("visibility") NoteVisibility visibility,
+                                                                 @Param("cursorUpdatedAt") LocalDateTime cursorUpdatedAt,
+                                                                 @Param("cursorId") Long cursorId,
+                                                                 Pageable pageable);
+
+    @Query("SELECT COUNT(n) FROM Note n WHERE " + ACCESSIBLE_BY_USER)
+    Long countAccessibleByUser(@Param("userId") Long userId);
+
+    @Query("SELECT COUNT(n) FROM Note n WHERE n.owner.id = :ownerId AND n.visibility = :visibility")
+    Long countByOwnerIdAndVisibility(@Param("ownerId") Long ownerId, @Param("visibility") NoteVisibility visibility);
+
+    @Query(value = SUMMARY_SELECT + "WHERE o.id = :ownerId AND n.id IN " +
+                   "(SELECT nt.note.id FROM NoteTag nt WHERE nt.tag.label = :tagLabel)",
+           countQuery = "SELECT COUNT(n) FROM Note n WHERE n.owner.id = :ownerId AND n.id IN " +
+                        "(SELECT nt.note.id FROM NoteTag nt WHERE nt.tag.label = :tagLabel)")
+    Page<NoteSummaryDto> findSummariesByOwnerIdAndTagLabel(@Param("ownerId") Long ownerId,
+                                                           @Param("tagLabel") String tagLabel,
+                                                           Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE o.id = :ownerId AND " +
+                   "(LOWER(n.title) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+                   "LOWER(n.contentMd) LIKE LOWER(CONCAT('%', :searchTerm, '%')))",
+           countQuery = "SELECT COUNT(n) FROM Note n WHERE n.owner.id = :ownerId AND " +
+                        "(LOWER(n.title) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+                        "LOWER(n.contentMd) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
+    Page<NoteSummaryDto> findSummariesByOwnerAndSearchTerm(@Param("ownerId") Long ownerId,
+                                                           @Param("searchTerm") String searchTerm,
+                                                           Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE n.visibility = 'PUBLIC' AND " +
+                   "(LOWER(n.title) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+                   "LOWER(n.contentMd) LIKE LOWER(CONCAT('%', :searchTerm, '%')))",
+           countQuery = "SELECT COUNT(n) FROM Note n WHERE n.visibility = 'PUBLIC' AND " +
+                        "(LOWER(n.title) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+                        "LOWER(n.contentMd) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
+    Page<NoteSummaryDto> findPublicSummariesBySearchTerm(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE n.id IN :ids")
+    List<NoteSummaryDto> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    Optional<Note> findByOwnerIdAndClientId(Long ownerId, String clientId);
+
+    @Query("SELECT n.clientId, n.id FROM Note n WHERE n.owner.id = :ownerId AND n.clientId IN :clientIds")
+    List<Object[]> findIdsByOwnerIdAndClientIdIn(@Param("ownerId") Long ownerId,
+                                                 @Param("clientIds") Collection<String> clientIds);
+
+    // Version courante si la note est accessible (réponse 304 sans charger le contenu)
+    @Query("SELECT n.version FROM Note n WHERE n.id = :id AND " + ACCESSIBLE_BY_USER)
+    Optional<Long> findAccessibleVersion(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Titre seul (accès par lien public : le lien résolu en cache ne porte pas le titre, modifiable)
+    @Query("SELECT n.title FROM Note n WHERE n.id = :id")
+    Optional<String> findTitleById(@Param("id") Long id);
+
+    // Compteur de vues écrit (hors modèle de lecture en cache, relu à chaque consultation)
+    @Query("SELECT n.viewCount FROM Note n WHERE n.id = :id")
+    Optional<Long> findViewCountById(@Param("id") Long id);
+
+    // Versions courantes des notes ouvertes en édition collaborative (détection des écritures extérieures)
+    @Query("SELECT n.id, n.version FROM Note n WHERE n.id IN :ids")
+    List<Object[]> findVersionsByIds(@Param("ids") Collection<Long> ids);
+
+    // Partages et liens publics modifiés : la représentation de la note (et son ETag) change
+    @Modifying
+    @Query("UPDATE Note n SET n.version = n.version + 1 WHERE n.id = :id")
+    int incrementVersion(@Param("id") Long id);
+
+    // Notes d'un lot encore accessibles à l'utilisateur (synchronisation incrémentale)
+    @Query("SELECT n FROM Note n WHERE n.id IN :ids AND " + ACCESSIBLE_BY_USER)
+    List<Note> findAccessibleByIds(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    // Recherche plein texte ne retournant que les identifiants classés (pour la vue allégée)
+    @Query(value = "SELECT n.id FROM notes n, websearch_to_tsquery('french', :searchTerm) q " +
+                   "WHERE n.owner_id = :ownerId AND n.search_vector @@ q " +
+                   "ORDER BY ts_rank_cd(n.search_vector, q) DESC, n.updated_at DESC",
+           countQuery = "SELECT COUNT(*) FROM notes n " +
+                        "WHERE n.owner_id = :ownerId AND n.search_vector @@ websearch_to_tsquery('french', :searchTerm)",
+           nativeQuery = true)
+    Page<Long> fullTextSearchIdsByOwner(@Param("ownerId") Long ownerId, @Param("searchTerm") String searchTerm, Pageable pageable);
+
+    @Query(value = "SELECT n.id FROM notes n, websearch_to_tsquery('french', :searchTerm) q " +
+                   "WHERE n.visibility = 'PUBLIC' AND n.search_vector @@ q " +
+                   "ORDER BY ts_rank_cd(n.search_vector, q) DESC, n.updated_at DESC",
+           countQuery = "SELECT COUNT(*) FROM notes n " +
+                        "WHERE n.visibility = 'PUBLIC' AND n.search_vector @@ websearch_to_tsquery('french', :searchTerm)",
+           nativeQuery = true)
+    Page<Long> fullTextSearchPublicIds(@Param("searchTerm") String searchTerm, Pageable pageable);
+}
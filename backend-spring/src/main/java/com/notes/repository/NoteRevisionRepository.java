@@ -0,0 +1,67 @@
+package com.notes.repository;
+
+import com.notes.dto.revision.NoteRevisionDto;
+import com.notes.model.NoteRevision;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NoteRevisionRepository extends JpaRepository<NoteRevision, Long> {
+
+    Optional<NoteRevision> findFirstByNoteIdOrderByRevisionDesc(Long noteId);
+
+    Optional<NoteRevision> findByNoteIdAndRevision(Long noteId, Integer revision);
+
+    // DELTA conservés d'un SNAPSHOT (rebasés si leur SNAPSHOT est supprimé)
+    List<NoteRevision> findByBaseRevisionIdInOrderByRevisionAsc(Collection<Long> baseRevisionIds);
+
+    long countByBaseRevisionId(Long baseRevisionId);
+
+    // Liste sans charger les contenus
+    @Query(value = "SELECT new com.notes.dto.revision.NoteRevisionDto(r.revision, r.title, r.contentLength, " +
+                   "r.authorId, r.createdAt) FROM NoteRevision r WHERE r.noteId = :noteId ORDER BY r.revision DESC",
+           countQuery = "SELECT COUNT(r) FROM NoteRevision r WHERE r.noteId = :noteId")
+    Page<NoteRevisionDto> findSummariesByNoteId(@Param("noteId") Long noteId, Pageable pageable);
+
+    @Query("SELECT MAX(r.revision) FROM NoteRevision r WHERE r.noteId = :noteId")
+    Optional<Integer> findLatestRevision(@Param("noteId") Long noteId);
+
+    // Notes ayant encore du travail de maintenance, par pages (noteId > afterNoteId) : DELTA non compactés
+    // au-delà de compactBefore, ou révisions au-delà de retainAfter ; jamais la dernière révision d'une note
+    @Query("SELECT DISTINCT r.noteId FROM NoteRevision r WHERE r.noteId > :afterNoteId AND (" +
+           "(r.kind = com.notes.model.NoteRevisionKind.DELTA AND r.compacted = false AND r.createdAt < :compactBefore) " +
+           "OR r.createdAt < :retainAfter) " +
+           "AND EXISTS (SELECT 1 FROM NoteRevision later WHERE later.noteId = r.noteId AND later.revision > r.revision) " +
+           "ORDER BY r.noteId")
+    List<Long> findNoteIdsToMaintain(@Param("afterNoteId") Long afterNoteId,
+                                     @Param("compactBefore") LocalDateTime compactBefore,
+                                     @Param("retainAfter") LocalDateTime retainAfter,
+                                     Pageable pageable);
+
+    // Révisions candidates à la maintenance, sans leur contenu : id, revision, kind, baseRevisionId, createdAt
+    @Query("SELECT r.id, r.revision, r.kind, r.baseRevisionId, r.createdAt FROM NoteRevision r " +
+           "WHERE r.noteId = :noteId AND r.createdAt < :before AND r.revision < :latest ORDER BY r.revision")
+    List<Object[]> findMaintenanceCandidates(@Param("noteId") Long noteId, @Param("before") LocalDateTime before,
+                                             @Param("latest") Integer latest);
+
+    @Modifying
+    @Query("UPDATE NoteRevision r SET r.compacted = true WHERE r.noteId = :noteId " +
+           "AND r.kind = com.notes.model.NoteRevisionKind.DELTA AND r.compacted = false " +
+           "AND r.createdAt < :before AND r.revision < :latest")
+    int markCompacted(@Param("noteId") Long noteId, @Param("before") LocalDateTime before,
+                      @Param("latest") Integer latest);
+
+    @Modifying
+    @Query("DELETE FROM NoteRevision r WHERE r.noteId = :noteId")
+    int deleteByNoteId(@Param("noteId") Long noteId);
+}
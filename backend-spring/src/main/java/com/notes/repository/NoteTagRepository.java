@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,5 +24,9 @@ public interface NoteTagRepository extends JpaRepository<NoteTag, NoteTagId> {
     
     @Query("SELECT nt FROM NoteTag nt WHERE nt.note.id = :noteId AND nt.tag.id = :tagId")
     Optional<NoteTag> findByNoteIdAndTagId(@Param("noteId") Long noteId, @Param("tagId") Long tagId);
+    
+    // Tags d'une page de notes en une seule requête : [noteId, tagId, label]
+    @Query("SELECT nt.note.id, t.id, t.label FROM NoteTag nt JOIN nt.tag t WHERE nt.note.id IN :noteIds ORDER BY t.label")
+    List<Object[]> findTagLabelsByNoteIds(@Param("noteIds") Collection<Long> noteIds);
 }
 
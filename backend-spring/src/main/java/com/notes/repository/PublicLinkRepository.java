@@ -5,6 +5,7 @@ import com.notes.model.PublicLink;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -113,8 +114,12 @@ public interface PublicLinkRepository extends JpaRepository<PublicLink, Long> {
     @Query("SELECT pl FROM PublicLink pl WHERE " +
            "(:note IS NULL OR pl.note = :note) AND " +
            "(:isActive IS NULL OR pl.isActive = :isActive) AND " +
-           "(:hasPassword IS NULL OR (pl.passwordHash IS NOT NULL AND pl.passwordHash != '') = :hasPassword) AND " +
-           "(:hasAccessLimit IS NULL OR (pl.maxAccessCount IS NOT NULL) = :hasAccessLimit) AND " +
+           "(:hasPassword IS NULL " +
+           "  OR (:hasPassword = true AND pl.passwordHash IS NOT NULL AND pl.passwordHash <> '') " +
+           "  OR (:hasPassword = false AND (pl.passwordHash IS NULL OR pl.passwordHash = ''))) AND " +
+           "(:hasAccessLimit IS NULL " +
+           "  OR (:hasAccessLimit = true AND pl.maxAccessCount IS NOT NULL) " +
+           "  OR (:hasAccessLimit = false AND pl.maxAccessCount IS NULL)) AND " +
            "(:createdAfter IS NULL OR pl.createdAt >= :createdAfter) AND " +
            "(:createdBefore IS NULL OR pl.createdAt <= :createdBefore) AND " +
            "(:expiresAfter IS NULL OR pl.expiresAt >= :expiresAfter) AND " +
@@ -169,6 +174,15 @@ public interface PublicLinkRepository extends JpaRepository<PublicLink, Long> {
     @Query("SELECT pl FROM PublicLink pl WHERE pl.urlToken = :token AND pl.isActive = true AND (pl.expiresAt IS NULL OR pl.expiresAt > :now) AND (pl.maxAccessCount IS NULL OR pl.accessCount < pl.maxAccessCount)")
     Optional<PublicLink> findValidLinkByToken(@Param("token") String token, @Param("now") LocalDateTime now);
 
+    // Incrément atomique du compteur d'accès, refusé (0 ligne) si le lien est inactif, expiré ou à sa limite
+    @Modifying
+    @Query("UPDATE PublicLink pl SET pl.accessCount = pl.accessCount + 1 WHERE pl.urlToken = :token AND pl.isActive = true AND (pl.expiresAt IS NULL OR pl.expiresAt > :now) AND (pl.maxAccessCount IS NULL OR pl.accessCount < pl.maxAccessCount)")
+    int incrementAccessCountIfAllowed(@Param("token") String token, @Param("now") LocalDateTime now);
+
+    // Lecture du compteur d'accès en base (sans passer par le contexte de persistance)
+    @Query("SELECT pl.accessCount FROM PublicLink pl WHERE pl.urlToken = :token")
+    Optional<Long> findAccessCountByUrlToken(@Param("token") String token);
+
     // Suppression des liens expirés
     @Query("DELETE FROM PublicLink pl WHERE pl.expiresAt IS NOT NULL AND pl.expiresAt < :now")
     int deleteExpiredLinks(@Param("now") LocalDateTime now);
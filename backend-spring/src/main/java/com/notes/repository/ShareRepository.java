@@ -6,6 +6,7 @@ import com.notes.model.SharePermission;
 import com.notes.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -170,6 +171,19 @@ public interface ShareRepository extends JpaRepository<Share, Long> {
     @Query("SELECT s FROM Share s WHERE s.sharedWithUser.id = :userId")
     Page<Share> findBySharedWithUserId(@Param("userId") Long userId, Pageable pageable);
 
+    // Pagination par curseur sur (createdAt, id), sans COUNT ni OFFSET
+    @Query("SELECT s FROM Share s JOIN FETCH s.note JOIN FETCH s.sharedWithUser " +
+           "WHERE s.sharedWithUser.id = :userId AND " +
+           "(s.createdAt < :cursorCreatedAt OR (s.createdAt = :cursorCreatedAt AND s.id < :cursorId)) " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    Slice<Share> findBySharedWithUserIdAfter(@Param("userId") Long userId,
+                                             @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                             @Param("cursorId") Long cursorId,
+                                             Pageable pageable);
+
+    @Query("SELECT COUNT(s) FROM Share s WHERE s.sharedWithUser.id = :userId")
+    Long countBySharedWithUserId(@Param("userId") Long userId);
+
     @Query("SELECT s FROM Share s WHERE s.note.id = :noteId AND s.sharedWithUser.id = :userId")
     Optional<Share> findByNoteIdAndSharedWithUserId(@Param("noteId") Long noteId, @Param("userId") Long userId);
 
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +19,9 @@ public interface TagRepository extends JpaRepository<Tag, Long> {
     Optional<Tag> findByLabel(String label);
     Boolean existsByLabel(String label);
 
+    // Recherche groupée par libellés exacts
+    List<Tag> findByLabelIn(Collection<String> labels);
+
     // Recherche par libellé avec LIKE insensible à la casse
     @Query("SELECT t FROM Tag t WHERE LOWER(t.label) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     List<Tag> findByLabelContainingIgnoreCase(@Param("searchTerm") String searchTerm);
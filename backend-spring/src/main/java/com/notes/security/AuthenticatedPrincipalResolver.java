@@ -0,0 +1,177 @@
+package com.notes.security;
+
+import com.notes.config.CacheConfig;
+import com.notes.model.User;
+import com.notes.service.CacheInvalidationBus;
+import com.notes.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Résolution de l'utilisateur authentifié à partir des claims d'un access token vérifié
+// Modes (jwt.principal-resolution) :
+//  - database : chargement en base à chaque requête
+//  - cache    : chargement en base, puis cache "users" (TTL dans CacheConfig) et éviction explicite
+//  - claims   : utilisateur reconstruit depuis les claims uid/active, sans accès base
+// Un access token n'est pas révocable (comme avant ce resolver) : après evictUser, ses claims ne sont plus
+// crus et l'utilisateur est relu en base, où un compte supprimé ou inactif est refusé (401). Un compte
+// toujours actif reste authentifié jusqu'à l'expiration du token, seul le refresh token étant révoqué.
+@Component
+public class AuthenticatedPrincipalResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticatedPrincipalResolver.class);
+
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ACTIVE = "active";
+
+    private static final String MODE_DATABASE = "database";
+    private static final String MODE_CLAIMS = "claims";
+
+    // Révocations diffusées aux autres instances (CacheInvalidationBus)
+    private static final String TOPIC_USER = "user";
+
+    private final UserDetailsServiceImpl userDetailsService;
+    private final Cache usersCache;
+    private final CacheInvalidationBus invalidationBus;
+
+    // Instant (ms) avant lequel les claims des tokens d'un utilisateur ne sont plus crus sur parole
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    @Value("${jwt.principal-resolution:cache}")
+    private String resolutionMode;
+
+    @Value("${jwt.expiration}")
+    private long accessTokenExpirationMs;
+
+    public AuthenticatedPrincipalResolver(UserDetailsServiceImpl userDetailsService, CacheManager cacheManager,
+                                          CacheInvalidationBus invalidationBus) {
+        this.userDetailsService = userDetailsService;
+        this.usersCache = cacheManager.getCache(CacheConfig.USERS);
+        this.invalidationBus = invalidationBus;
+
+        invalidationBus.subscribe(TOPIC_USER, new CacheInvalidationBus.Listener() {
+            @Override
+            public void invalidate(String key) {
+                // Clé "<userId>:<instant de révocation>" ; l'instant le plus tardif (émetteur ou réception)
+                // est retenu pour tolérer un décalage d'horloge entre instances
+                int separator = key.indexOf(':');
+                if (separator < 0) {
+                    revokeLocally(Long.valueOf(key), System.currentTimeMillis());
+                    return;
+                }
+                long revokedAt = Long.parseLong(key.substring(separator + 1));
+                revokeLocally(Long.valueOf(key.substring(0, separator)), Math.max(revokedAt, System.currentTimeMillis()));
+            }
+
+            @Override
+            public void flush() {
+                // Le cache "users" est vidé par son propre abonnement
+            }
+        });
+    }
+
+    public UserDetails resolve(Claims claims) {
+        String email = claims.getSubject();
+
+        if (MODE_DATABASE.equalsIgnoreCase(resolutionMode)) {
+            return userDetailsService.loadUserByUsername(email);
+        }
+
+        if (MODE_CLAIMS.equalsIgnoreCase(resolutionMode)) {
+            UserDetails fromClaims = fromClaims(claims);
+            if (fromClaims != null) {
+                return fromClaims;
+            }
+            // Token sans claims uid/active, ou émis avant evictUser : revalidation en base via le cache
+        }
+
+        return fromCache(email);
+    }
+
+    // Éviction après modification, suppression ou déconnexion de tous les appareils
+    // Appliquée et diffusée après commit : une instance qui recharge l'utilisateur entre-temps
+    // lirait encore l'ancien état et le remettrait en cache
+    public void evictUser(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revokeAndBroadcast(userId);
+                }
+            });
+        } else {
+            revokeAndBroadcast(userId);
+        }
+    }
+
+    private void revokeAndBroadcast(Long userId) {
+        long now = System.currentTimeMillis();
+        revokeLocally(userId, now);
+        invalidationBus.publish(TOPIC_USER, userId + ":" + now);
+    }
+
+    private void revokeLocally(Long userId, long revokedAt) {
+        long now = System.currentTimeMillis();
+        revokedBefore.merge(userId, revokedAt, Math::max);
+        nativeUsersCache().asMap().values().removeIf(cached -> cached instanceof User
+                && userId.equals(((User) cached).getId()));
+
+        // Les marqueurs plus anciens que la durée de vie d'un access token sont inutiles
+        revokedBefore.values().removeIf(marker -> marker < now - accessTokenExpirationMs);
+        logger.debug("Evicted cached principal for user {}", userId);
+    }
+
+    public void evictEmail(String email) {
+        usersCache.evict(email);
+    }
+
+    private UserDetails fromClaims(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        Boolean active = claims.get(CLAIM_ACTIVE, Boolean.class);
+        if (userId == null || active == null) {
+            return null;
+        }
+
+        Long revokedAt = revokedBefore.get(userId.longValue());
+        if (revokedAt != null && (claims.getIssuedAt() == null || claims.getIssuedAt().getTime() < revokedAt)) {
+            return null;
+        }
+
+        if (!active) {
+            throw new UsernameNotFoundException("User account is inactive: " + claims.getSubject());
+        }
+
+        User user = new User();
+        user.setId(userId.longValue());
+        user.setEmail(claims.getSubject());
+        user.setIsActive(true);
+        return user;
+    }
+
+    private UserDetails fromCache(String email) {
+        User cached = usersCache.get(email, User.class);
+        if (cached != null) {
+            return cached;
+        }
+
+        User user = (User) userDetailsService.loadUserByUsername(email);
+        usersCache.put(email, user);
+        return user;
+    }
+
+    @SuppressWarnings("unchecked")
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeUsersCache() {
+        return (com.github.benmanes.caffeine.cache.Cache<Object, Object>) usersCache.getNativeCache();
+    }
+}
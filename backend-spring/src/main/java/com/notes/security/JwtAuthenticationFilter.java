@@ -1,7 +1,7 @@
 package com.notes.security;
 
-import com.notes.service.UserDetailsServiceImpl;
 import com.notes.security.JwtUtils;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,11 +24,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
+    private static final String EVENTS_PATH = "/api/v1/events";
+
     @Autowired
     private JwtUtils jwtUtils;
 
     @Autowired
-    private UserDetailsServiceImpl userDetailsService;
+    private AuthenticatedPrincipalResolver principalResolver;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -37,13 +39,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = parseJwt(request);
             
-            if (jwt != null && jwtUtils.validateToken(jwt)) {
-                String email = jwtUtils.getEmailFromToken(jwt);
+            if (jwt != null) {
+                // Une seule vérification de signature par requête (claims réutilisés ensuite)
+                Claims claims = jwtUtils.parseVerifiedClaims(jwt);
+
+                if (claims == null) {
+                    logger.warn("JWT token validation failed for request: {}", request.getRequestURI());
+                } else if (!jwtUtils.isAccessToken(claims)) {
+                    // Vérification que c'est bien un access token
+                    logger.warn("Invalid token type for authentication: {}", claims.getSubject());
+                } else {
+                    String email = claims.getSubject();
+                    UserDetails userDetails = principalResolver.resolve(claims);
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-                
-                // Vérification que c'est bien un access token
-                if (jwtUtils.isAccessToken(jwt)) {
                     UsernamePasswordAuthenticationToken authentication = 
                             new UsernamePasswordAuthenticationToken(
                                     userDetails, 
@@ -54,11 +62,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                     
                     logger.debug("Set Authentication in SecurityContext for user: {}", email);
-                } else {
-                    logger.warn("Invalid token type for authentication: {}", email);
                 }
-            } else if (jwt != null) {
-                logger.warn("JWT token validation failed for request: {}", request.getRequestURI());
             }
         } catch (Exception e) {
             logger.error("Cannot set user authentication: {}", e.getMessage());
@@ -74,6 +78,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return headerAuth.substring(7);
         }
 
+        // EventSource ne permet pas d'ajouter d'en-tête : jeton en paramètre pour le flux SSE uniquement.
+        // Une URL peut finir dans les journaux d'accès (proxies, conteneur) : limité à GET /api/v1/events,
+        // l'en-tête Authorization reste prioritaire
+        if (EVENTS_PATH.equals(request.getRequestURI()) && "GET".equals(request.getMethod())) {
+            String accessToken = request.getParameter("access_token");
+            if (StringUtils.hasText(accessToken)) {
+                return accessToken;
+            }
+        }
+
         return null;
     }
 
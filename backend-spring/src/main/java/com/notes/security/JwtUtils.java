@@ -1,30 +1,163 @@
 package com.notes.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.notes.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import javax.crypto.SecretKey;
 import jakarta.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    private static final String PUBLIC_LINK_GRANT_TYPE = "public-link";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private int jwtExpirationMs;
 
+    // Nombre maximum de tokens vérifiés gardés en cache (0 pour désactiver le cache)
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private int verifiedCacheMaxSize;
+
+    // Clé et parser construits une seule fois (le parser est thread-safe)
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    // Tokens déjà vérifiés, indexés par empreinte SHA-256 ; chaque entrée expire à l'exp du token
+    // et les moins utilisées sont évincées une à une quand le cache est plein (Caffeine)
+    private Cache<String, Claims> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+
+        if (verifiedCacheMaxSize > 0) {
+            verifiedTokens = Caffeine.newBuilder()
+                    .maximumSize(verifiedCacheMaxSize)
+                    .expireAfter(new Expiry<String, Claims>() {
+                        @Override
+                        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                            long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+                            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+                        }
+
+                        @Override
+                        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                            return expireAfterCreate(key, claims, currentTime);
+                        }
+
+                        @Override
+                        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                            return currentDuration;
+                        }
+                    })
+                    .build();
+        }
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        return signingKey;
+    }
+
+    // Vérification unique d'un token : retourne les claims vérifiés, ou null si le token est invalide
+    public Claims parseVerifiedClaims(String token) {
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
+
+        String cacheKey = verifiedTokens != null ? hashToken(token) : null;
+
+        if (cacheKey != null) {
+            // Entrée expirée avec le token : absente, le token est revérifié (et refusé) ci-dessous
+            Claims cached = verifiedTokens.getIfPresent(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            if (cacheKey != null && claims.getExpiration() != null) {
+                verifiedTokens.put(cacheKey, claims);
+            }
+            return claims;
+        } catch (MalformedJwtException e) {
+            logger.error("Invalid JWT token: {}", e.getMessage());
+        } catch (ExpiredJwtException e) {
+            logger.error("JWT token is expired: {}", e.getMessage());
+        } catch (UnsupportedJwtException e) {
+            logger.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("JWT signature validation failed: {}", e.getMessage());
+        }
+
+        return null;
+    }
+
+    // Vérifie qu'il s'agit d'un access token (les refresh tokens portent type=refresh)
+    public boolean isAccessToken(Claims claims) {
+        Object type = claims.get("type");
+        return type == null || "access".equals(type);
+    }
+
+    // Autorisation temporaire d'accès à un lien public protégé, délivrée après vérification du mot de passe
+    // Liée à l'empreinte du hash : un changement de mot de passe invalide les autorisations déjà émises
+    public String generatePublicLinkGrant(String urlToken, String passwordHash, long ttlMs) {
+        return Jwts.builder()
+                .setSubject(urlToken)
+                .claim("type", PUBLIC_LINK_GRANT_TYPE)
+                .claim("pwd", hashToken(passwordHash))
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + ttlMs))
+                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    public boolean isPublicLinkGrantValid(String grant, String urlToken, String passwordHash) {
+        if (!StringUtils.hasText(grant)) {
+            return false;
+        }
+        Claims claims = parseVerifiedClaims(grant);
+        return claims != null
+                && PUBLIC_LINK_GRANT_TYPE.equals(claims.get("type"))
+                && urlToken.equals(claims.getSubject())
+                && hashToken(passwordHash).equals(claims.get("pwd"));
+    }
+
+    private static String hashToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponible", e);
+        }
     }
 
     public String generateJwtToken(Authentication authentication) {
@@ -39,32 +172,14 @@ public class JwtUtils {
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody()
                 .getSubject();
     }
 
     public boolean validateJwtToken(String authToken) {
-        try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(authToken);
-            return true;
-        } catch (MalformedJwtException e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
-        } catch (ExpiredJwtException e) {
-            logger.error("JWT token is expired: {}", e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            logger.error("JWT token is unsupported: {}", e.getMessage());
-        } catch (IllegalArgumentException e) {
-            logger.error("JWT claims string is empty: {}", e.getMessage());
-        }
-
-        return false;
+        return parseVerifiedClaims(authToken) != null;
     }
 
     // Méthodes supplémentaires pour compatibilité avec le code existant
@@ -77,20 +192,8 @@ public class JwtUtils {
     }
 
     public boolean isAccessToken(String token) {
-        try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            
-            // Vérifier si c'est un access token (pas de refresh token)
-            // On peut ajouter une logique plus sophistiquée ici si nécessaire
-            return true;
-        } catch (Exception e) {
-            logger.error("Error validating access token: {}", e.getMessage());
-            return false;
-        }
+        Claims claims = parseVerifiedClaims(token);
+        return claims != null && isAccessToken(claims);
     }
 
     public String parseJwt(HttpServletRequest request) {
@@ -113,6 +216,18 @@ public class JwtUtils {
                 .compact();
     }
 
+    // Access token portant l'id et le statut de l'utilisateur (résolution sans accès base)
+    public String generateAccessToken(User user) {
+        return Jwts.builder()
+                .setSubject(user.getEmail())
+                .claim(AuthenticatedPrincipalResolver.CLAIM_USER_ID, user.getId())
+                .claim(AuthenticatedPrincipalResolver.CLAIM_ACTIVE, user.getIsActive())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
+                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
     public int getAccessTokenExpirationSeconds() {
         return jwtExpirationMs / 1000; // Convertir de millisecondes en secondes
     }
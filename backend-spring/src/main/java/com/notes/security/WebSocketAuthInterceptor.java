@@ -0,0 +1,99 @@
+package com.notes.security;
+
+import com.notes.model.User;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+// Authentification de la poignée de main WebSocket de l'édition collaborative
+// En-tête Authorization (traité par JwtAuthenticationFilter) ou, pour les navigateurs qui ne
+// peuvent pas le fournir, paramètre access_token vérifié ici de la même façon
+@Component
+public class WebSocketAuthInterceptor implements HandshakeInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketAuthInterceptor.class);
+
+    public static final String ATTR_USER = "collaboration.user";
+    public static final String ATTR_NOTE_ID = "collaboration.noteId";
+
+    private static final String TOKEN_PARAM = "access_token";
+
+    private final JwtUtils jwtUtils;
+    private final AuthenticatedPrincipalResolver principalResolver;
+
+    public WebSocketAuthInterceptor(JwtUtils jwtUtils, AuthenticatedPrincipalResolver principalResolver) {
+        this.jwtUtils = jwtUtils;
+        this.principalResolver = principalResolver;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        Long noteId = noteIdOf(request.getURI().getPath());
+        if (noteId == null) {
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
+
+        User user = authenticatedUser(request);
+        if (user == null || !user.isEnabled()) {
+            logger.warn("Unauthenticated collaboration handshake for note {}", noteId);
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        attributes.put(ATTR_USER, user);
+        attributes.put(ATTR_NOTE_ID, noteId);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private User authenticatedUser(ServerHttpRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User) {
+            return (User) authentication.getPrincipal();
+        }
+
+        String token = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst(TOKEN_PARAM);
+        Claims claims = jwtUtils.parseVerifiedClaims(token);
+        if (claims == null || !jwtUtils.isAccessToken(claims)) {
+            return null;
+        }
+        try {
+            UserDetails userDetails = principalResolver.resolve(claims);
+            return userDetails instanceof User ? (User) userDetails : null;
+        } catch (RuntimeException e) {
+            logger.warn("Cannot resolve collaboration user {}: {}", claims.getSubject(), e.getMessage());
+            return null;
+        }
+    }
+
+    // .../notes/{id}/live
+    private static Long noteIdOf(String path) {
+        String[] segments = path.split("/");
+        if (segments.length < 3 || !"live".equals(segments[segments.length - 1])) {
+            return null;
+        }
+        try {
+            return Long.valueOf(segments[segments.length - 2]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
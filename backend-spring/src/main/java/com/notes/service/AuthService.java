@@ -5,9 +5,11 @@ import com.notes.dto.auth.LoginRequest;
 import com.notes.dto.auth.RegisterRequest;
 import com.notes.dto.auth.RefreshTokenRequest;
 import com.notes.entity.RefreshToken;
+import com.notes.exception.PasswordHashingBusyException;
 import com.notes.exception.TokenRefreshException;
 import com.notes.model.User;
 import com.notes.repository.UserRepository;
+import com.notes.security.AuthenticatedPrincipalResolver;
 import com.notes.security.JwtUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +23,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 @Service
 public class AuthService {
@@ -32,17 +35,20 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtils jwtUtils;
     private final RefreshTokenService refreshTokenService;
+    private final AuthenticatedPrincipalResolver principalResolver;
 
     public AuthService(AuthenticationManager authenticationManager,
                        UserRepository userRepository,
                        PasswordEncoder passwordEncoder,
                        JwtUtils jwtUtils,
-                       RefreshTokenService refreshTokenService) {
+                       RefreshTokenService refreshTokenService,
+                       AuthenticatedPrincipalResolver principalResolver) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtils = jwtUtils;
         this.refreshTokenService = refreshTokenService;
+        this.principalResolver = principalResolver;
     }
 
     @Transactional
@@ -91,6 +97,8 @@ public class AuthService {
         } catch (BadCredentialsException e) {
             logger.warn("Login failed: Invalid credentials for email - {}", loginRequest.getEmail());
             throw new RuntimeException("Email ou mot de passe incorrect");
+        } catch (PasswordHashingBusyException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Login failed for email {}: {}", loginRequest.getEmail(), e.getMessage());
             throw new RuntimeException("Erreur lors de la connexion: " + e.getMessage());
@@ -108,7 +116,7 @@ public class AuthService {
             User user = refreshToken.getUser();
 
             // Génération d'un nouveau access token
-            String newAccessToken = jwtUtils.generateAccessTokenFromEmail(user.getEmail());
+            String newAccessToken = jwtUtils.generateAccessToken(user);
 
             logger.info("Token refreshed successfully for user: {}", user.getEmail());
 
@@ -152,6 +160,7 @@ public class AuthService {
 
         try {
             refreshTokenService.revokeAllUserTokens(userId, "Logout all devices");
+            principalResolver.evictUser(userId);
             logger.info("All devices logged out successfully for user: {}", userId);
         } catch (Exception e) {
             logger.error("Logout all devices failed for user {}: {}", userId, e.getMessage());
@@ -161,7 +170,7 @@ public class AuthService {
 
     private AuthResponse generateAuthResponse(User user, String ipAddress, String userAgent) {
         // Génération des tokens
-        String accessToken = jwtUtils.generateAccessTokenFromEmail(user.getEmail());
+        String accessToken = jwtUtils.generateAccessToken(user);
         RefreshToken refreshToken = refreshTokenService.createRefreshToken(user.getId(), ipAddress, userAgent);
 
         return new AuthResponse(
@@ -188,6 +197,13 @@ public class AuthService {
         return null;
     }
 
+    // Utilisateur courant rechargé en base : en mode claims, le principal ne porte que id, email et statut
+    @Transactional(readOnly = true)
+    public Optional<User> loadCurrentUser() {
+        Long userId = getCurrentUserId();
+        return userId != null ? userRepository.findById(userId) : Optional.empty();
+    }
+
     public Long getCurrentUserId() {
         User currentUser = getCurrentUser();
         return currentUser != null ? currentUser.getId() : null;
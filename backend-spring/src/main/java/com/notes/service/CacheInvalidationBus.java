@@ -0,0 +1,270 @@
+package com.notes.service;
+
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+
+// Invalidation des caches locaux entre instances de l'API via PostgreSQL LISTEN/NOTIFY
+// Chaque éviction locale est publiée sur le canal (payload "nœud|sujet|clé") ; chaque instance
+// écoute le canal sur une connexion dédiée (hors pool) et applique les évictions des autres nœuds.
+// Les messages sont émis par le thread d'écoute : un pg_notify exécuté depuis un afterCommit
+// rejoindrait la transaction déjà validée et ne serait jamais délivré.
+// Après une (re)connexion, les caches sont vidés : les notifications manquées sont perdues.
+@Component
+public class CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    public static final String CHANNEL = "notes_cache_invalidation";
+
+    // Clé ou sujet "*" : vidage complet
+    public static final String WILDCARD = "*";
+
+    // Limite PostgreSQL : 8000 octets par payload
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+
+    private static final int MAX_MESSAGES_PER_NOTIFY = 500;
+
+    private static final String NOTIFY_SQL = "SELECT pg_notify(?, payload) FROM unnest(?) AS payload";
+
+    public interface Listener {
+
+        void invalidate(String key);
+
+        void flush();
+    }
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Listener> listeners = new ConcurrentHashMap<>();
+    private final BlockingDeque<String> outgoing = new LinkedBlockingDeque<>();
+
+    @Value("${notes.cache.invalidation.enabled:true}")
+    private boolean enabled;
+
+    // Attente maximale des notifications entrantes, donc délai d'émission des évictions locales
+    @Value("${notes.cache.invalidation.poll-ms:100}")
+    private int pollMs;
+
+    @Value("${notes.cache.invalidation.reconnect-delay-ms:5000}")
+    private long reconnectDelayMs;
+
+    // Au-delà, les messages en attente sont remplacés par un vidage complet
+    @Value("${notes.cache.invalidation.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username:}")
+    private String username;
+
+    @Value("${spring.datasource.password:}")
+    private String password;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    // Utilisés uniquement par le thread d'écoute
+    private Connection connection;
+    private PGConnection pgConnection;
+
+    public void subscribe(String topic, Listener listener) {
+        listeners.put(topic, listener);
+    }
+
+    // Éviction d'une clé sur les autres instances
+    public void publish(String topic, String key) {
+        if (!running) {
+            return;
+        }
+
+        String payload = nodeId + "|" + topic + "|" + key;
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            payload = nodeId + "|" + topic + "|" + WILDCARD;
+        }
+
+        if (outgoing.size() >= maxPending) {
+            outgoing.clear();
+            payload = nodeId + "|" + WILDCARD + "|" + WILDCARD;
+            logger.warn("Cache invalidation backlog exceeded {} messages, requesting a full flush", maxPending);
+        }
+        outgoing.offer(payload);
+    }
+
+    // Vidage d'un sujet complet sur les autres instances
+    public void publishFlush(String topic) {
+        publish(topic, WILDCARD);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || url == null || !url.startsWith("jdbc:postgresql:")) {
+            logger.info("Cross-node cache invalidation disabled");
+            return;
+        }
+
+        running = true;
+        listenerThread = new Thread(this::listen, "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+            try {
+                listenerThread.join(pollMs + 1000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try {
+                if (connection == null) {
+                    connect();
+                }
+
+                sendPending();
+
+                PGNotification[] notifications = pgConnection.getNotifications(pollMs);
+                if (notifications != null) {
+                    for (PGNotification notification : notifications) {
+                        dispatch(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                logger.warn("Cache invalidation connection lost, reconnecting in {} ms: {}",
+                        reconnectDelayMs, e.getMessage());
+                closeConnection();
+                sleepBeforeReconnect();
+            }
+        }
+        closeConnection();
+    }
+
+    private void connect() throws SQLException {
+        connection = DriverManager.getConnection(url, username, password);
+        connection.setAutoCommit(true);
+        pgConnection = connection.unwrap(PGConnection.class);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        }
+
+        // Les notifications émises avant l'écoute (démarrage, coupure) sont perdues
+        flushAll();
+        logger.info("Listening for cache invalidations on channel {} (node {})", CHANNEL, nodeId);
+    }
+
+    private void sendPending() throws SQLException {
+        List<String> drained = new ArrayList<>();
+        outgoing.drainTo(drained, MAX_MESSAGES_PER_NOTIFY);
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        // pg_notify ne délivre qu'une fois les payloads identiques d'une même transaction
+        List<String> payloads = new ArrayList<>(new LinkedHashSet<>(drained));
+        try (PreparedStatement statement = connection.prepareStatement(NOTIFY_SQL)) {
+            Array array = connection.createArrayOf("text", payloads.toArray());
+            statement.setString(1, CHANNEL);
+            statement.setArray(2, array);
+            statement.executeQuery().close();
+        } catch (SQLException e) {
+            // Renvoi après reconnexion, dans l'ordre d'origine
+            for (int i = payloads.size() - 1; i >= 0; i--) {
+                outgoing.offerFirst(payloads.get(i));
+            }
+            throw e;
+        }
+    }
+
+    private void dispatch(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+
+        String topic = parts[1];
+        String key = parts[2];
+        try {
+            if (WILDCARD.equals(topic)) {
+                flushAll();
+                return;
+            }
+
+            Listener listener = listeners.get(topic);
+            if (listener == null) {
+                return;
+            }
+            if (WILDCARD.equals(key)) {
+                listener.flush();
+            } else {
+                listener.invalidate(key);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to apply cache invalidation {}: {}", payload, e.getMessage());
+        }
+    }
+
+    private void flushAll() {
+        for (Listener listener : listeners.values()) {
+            try {
+                listener.flush();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to flush cache listener: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.debug("Error while closing cache invalidation connection: {}", e.getMessage());
+            }
+        }
+        connection = null;
+        pgConnection = null;
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(reconnectDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
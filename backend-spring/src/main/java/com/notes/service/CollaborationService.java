@@ -0,0 +1,565 @@
+package com.notes.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notes.config.CacheConfig;
+import com.notes.model.Note;
+import com.notes.model.SharePermission;
+import com.notes.model.User;
+import com.notes.repository.NoteRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Édition collaborative en temps réel (WebSocket /api/v1/notes/{id}/live)
+// Une session par note ouverte : document en mémoire, numéro de révision et historique borné des
+// opérations. Le serveur ordonne les opérations (transformation opérationnelle centralisée, format
+// et convention d'ot.js) : une opération reçue est transformée contre les opérations appliquées
+// depuis sa révision de base, appliquée, acquittée à l'émetteur et diffusée aux autres participants.
+// Le document est écrit dans notes.content_md par la tâche de vidage, après debounce-ms sans
+// modification (ou au plus tard max-delay-ms après la première modification non écrite), et quand
+// le dernier participant quitte la session.
+// Une écriture faite hors session (PUT, PATCH, autre instance) est détectée par la version de la
+// note et fusionnée dans la session comme une opération concurrente.
+@Service
+public class CollaborationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CollaborationService.class);
+
+    private final NoteRepository noteRepository;
+    private final ShareService shareService;
+    private final NoteChangeLog noteChangeLog;
+    private final NoteRevisionService noteRevisionService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache notesCache;
+
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+
+    // Participants indexés par identifiant de connexion WebSocket
+    private final Map<String, Participant> participants = new ConcurrentHashMap<>();
+
+    @Value("${notes.collaboration.debounce-ms:2000}")
+    private long debounceMs;
+
+    @Value("${notes.collaboration.max-delay-ms:10000}")
+    private long maxDelayMs;
+
+    // Opérations conservées pour transformer les opérations en retard ; au-delà, le client est resynchronisé
+    @Value("${notes.collaboration.history-size:1000}")
+    private int historySize;
+
+    // Les droits sont revérifiés (ShareService) au-delà de ce délai : à la réception d'une opération,
+    // et par la tâche de vidage pour les participants qui ne font que lire
+    @Value("${notes.collaboration.permission-ttl-ms:30000}")
+    private long permissionTtlMs;
+
+    @Value("${notes.collaboration.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${notes.collaboration.send-buffer-bytes:1048576}")
+    private int sendBufferBytes;
+
+    public CollaborationService(NoteRepository noteRepository, ShareService shareService,
+                                NoteChangeLog noteChangeLog, NoteRevisionService noteRevisionService,
+                                TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                                CacheManager cacheManager) {
+        this.noteRepository = noteRepository;
+        this.shareService = shareService;
+        this.noteChangeLog = noteChangeLog;
+        this.noteRevisionService = noteRevisionService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.notesCache = cacheManager.getCache(CacheConfig.NOTES);
+    }
+
+    public void join(Long noteId, User user, WebSocketSession socket) {
+        SharePermission permission = permissionOf(noteId, user);
+        if (permission == null) {
+            logger.warn("Collaboration access denied to note {} for user {}", noteId, user.getEmail());
+            close(socket, CloseStatus.POLICY_VIOLATION.withReason("Accès non autorisé"));
+            return;
+        }
+
+        Participant participant = new Participant(noteId, user,
+                new ConcurrentWebSocketSessionDecorator(socket, sendTimeLimitMs, sendBufferBytes), permission);
+
+        while (true) {
+            Session session = sessions.computeIfAbsent(noteId, this::load);
+            if (session == null) {
+                close(socket, CloseStatus.POLICY_VIOLATION.withReason("Note non trouvée"));
+                return;
+            }
+            synchronized (session) {
+                // Session en cours de fermeture par le dernier participant : une nouvelle est chargée
+                if (session.closed) {
+                    continue;
+                }
+                session.participants.put(socket.getId(), participant);
+                participants.put(socket.getId(), participant);
+
+                Map<String, Object> init = message("init");
+                init.put("noteId", noteId);
+                init.put("revision", session.revision);
+                init.put("content", session.content);
+                init.put("readOnly", !participant.canEdit());
+                init.put("participants", userIds(session));
+                send(participant, init);
+
+                Map<String, Object> joined = message("join");
+                joined.put("userId", user.getId());
+                broadcast(session, joined, participant);
+            }
+            logger.info("User {} joined collaboration on note {}", user.getEmail(), noteId);
+            return;
+        }
+    }
+
+    public void handleMessage(WebSocketSession socket, String payload) {
+        Participant participant = participants.get(socket.getId());
+        if (participant == null) {
+            return;
+        }
+
+        Map<String, Object> message;
+        try {
+            message = objectMapper.readValue(payload, new TypeReference<Map<String, Object>>() {});
+        } catch (IOException e) {
+            sendError(participant, "Message illisible");
+            return;
+        }
+
+        if ("op".equals(message.get("type"))) {
+            handleOperation(participant, message);
+        } else {
+            sendError(participant, "Type de message inconnu : " + message.get("type"));
+        }
+    }
+
+    public void leave(WebSocketSession socket) {
+        Participant participant = participants.remove(socket.getId());
+        if (participant == null) {
+            return;
+        }
+        Session session = sessions.get(participant.noteId);
+        if (session == null) {
+            return;
+        }
+
+        synchronized (session) {
+            session.participants.remove(socket.getId());
+            if (!session.participants.isEmpty()) {
+                Map<String, Object> left = message("leave");
+                left.put("userId", participant.user.getId());
+                broadcast(session, left, null);
+                return;
+            }
+        }
+
+        // Dernier participant : écriture immédiate puis fermeture, sauf si quelqu'un a rejoint entre-temps
+        persist(session);
+        closeIfIdle(session);
+    }
+
+    // Vidage différé des sessions modifiées et détection des écritures extérieures (une requête par passage)
+    @Scheduled(fixedDelayString = "${notes.collaboration.flush-interval-ms:1000}")
+    public void flush() {
+        if (sessions.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Long> versions = new HashMap<>();
+        for (Object[] row : noteRepository.findVersionsByIds(new ArrayList<>(sessions.keySet()))) {
+            versions.put((Long) row[0], (Long) row[1]);
+        }
+
+        long now = System.currentTimeMillis();
+        for (Session session : sessions.values()) {
+            Long version = versions.get(session.noteId);
+            if (version == null) {
+                terminate(session, "La note a été supprimée");
+                continue;
+            }
+
+            boolean due;
+            synchronized (session) {
+                due = !version.equals(session.persistedVersion)
+                        || (session.dirty && (now - session.lastEditAt >= debounceMs
+                                              || now - session.firstDirtyAt >= maxDelayMs));
+            }
+            if (due) {
+                persist(session);
+            }
+            // Écriture échouée au départ du dernier participant : fermeture une fois le document écrit
+            closeIfIdle(session);
+        }
+
+        revalidatePermissions();
+    }
+
+    // Partage révoqué ou expiré, note devenue privée : la connexion est fermée même sans opération
+    // reçue, pour que le participant cesse de recevoir le document
+    private void revalidatePermissions() {
+        for (Participant participant : participants.values()) {
+            if (!participant.permissionExpired(permissionTtlMs)) {
+                continue;
+            }
+
+            SharePermission permission;
+            try {
+                permission = permissionOf(participant.noteId, participant.user);
+            } catch (RuntimeException e) {
+                logger.warn("Could not check collaboration permission of user {} on note {}: {}",
+                        participant.user.getEmail(), participant.noteId, e.getMessage());
+                continue;
+            }
+
+            if (permission == null) {
+                logger.info("Collaboration access to note {} revoked for user {}",
+                        participant.noteId, participant.user.getEmail());
+                close(participant.socket, CloseStatus.POLICY_VIOLATION.withReason("Accès révoqué"));
+                // Retrait immédiat, sans attendre la notification de fermeture de la connexion
+                leave(participant.socket);
+            } else {
+                participant.updatePermission(permission);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Session session : sessions.values()) {
+            persist(session);
+            terminate(session, "Redémarrage du serveur");
+        }
+    }
+
+    private void handleOperation(Participant participant, Map<String, Object> message) {
+        if (!participant.canEdit() || participant.permissionExpired(permissionTtlMs)) {
+            // Revérification hors verrou de session : la requête peut être lente
+            SharePermission permission = permissionOf(participant.noteId, participant.user);
+            if (permission == null) {
+                close(participant.socket, CloseStatus.POLICY_VIOLATION.withReason("Accès révoqué"));
+                return;
+            }
+            participant.updatePermission(permission);
+            if (!participant.canEdit()) {
+                sendError(participant, "Vous n'avez pas le droit de modifier cette note");
+                return;
+            }
+        }
+
+        Session session = sessions.get(participant.noteId);
+        if (session == null) {
+            return;
+        }
+
+        Object revisionValue = message.get("revision");
+        TextOperation operation;
+        try {
+            if (!(revisionValue instanceof Number) || !(message.get("ops") instanceof List)) {
+                throw new IllegalArgumentException("Champs revision et ops obligatoires");
+            }
+            operation = TextOperation.fromJson((List<?>) message.get("ops"));
+        } catch (IllegalArgumentException e) {
+            sendError(participant, e.getMessage());
+            return;
+        }
+        long baseRevision = ((Number) revisionValue).longValue();
+
+        synchronized (session) {
+            if (session.closed) {
+                return;
+            }
+            if (baseRevision > session.revision || baseRevision < session.historyStart) {
+                // Révision inconnue ou opérations intermédiaires purgées : le client repart de l'état courant
+                sendReset(participant, session);
+                return;
+            }
+
+            try {
+                for (long r = baseRevision; r < session.revision; r++) {
+                    operation = TextOperation.transform(operation,
+                            session.history.get((int) (r - session.historyStart)))[0];
+                }
+                session.content = operation.apply(session.content);
+            } catch (IllegalArgumentException e) {
+                sendError(participant, e.getMessage());
+                sendReset(participant, session);
+                return;
+            }
+
+            append(session, operation);
+            session.lastEditor = participant.user;
+
+            Map<String, Object> ack = message("ack");
+            ack.put("revision", session.revision);
+            ack.put("clientOpId", message.get("clientOpId"));
+            send(participant, ack);
+
+            Map<String, Object> applied = message("op");
+            applied.put("revision", session.revision);
+            applied.put("ops", operation.toJson());
+            applied.put("userId", participant.user.getId());
+            broadcast(session, applied, participant);
+        }
+    }
+
+    // Écriture du document ; une écriture extérieure est d'abord fusionnée dans la session
+    // Une seule écriture à la fois par session : sinon l'écriture concurrente serait prise pour extérieure
+    private void persist(Session session) {
+        session.persistLock.lock();
+        try {
+            Object[] written = transactionTemplate.execute(status -> {
+                Note note = noteRepository.findById(session.noteId).orElse(null);
+                if (note == null) {
+                    return null;
+                }
+                String stored = note.getContentMd() != null ? note.getContentMd() : "";
+
+                String content;
+                long revision;
+                User editor;
+                synchronized (session) {
+                    if (!note.getVersion().equals(session.persistedVersion)) {
+                        mergeExternal(session, stored, note.getVersion());
+                    }
+                    content = session.content;
+                    revision = session.revision;
+                    editor = session.lastEditor;
+                }
+
+                if (!content.equals(stored)) {
+                    note.setContentMd(content);
+                    note.setUpdatedAt(LocalDateTime.now());
+                    note = noteRepository.saveAndFlush(note);
+                    noteChangeLog.recordNoteUpdated(note.getId());
+                    if (editor != null) {
+                        noteRevisionService.record(note, editor);
+                    }
+                    notesCache.evict(note.getId());
+                }
+                return new Object[]{content, revision, note.getVersion()};
+            });
+
+            if (written != null) {
+                synchronized (session) {
+                    session.persistedContent = (String) written[0];
+                    session.persistedVersion = (Long) written[2];
+                    session.dirty = session.revision != (Long) written[1];
+                }
+            }
+        } catch (RuntimeException e) {
+            // Écriture concurrente (verrou optimiste) ou base indisponible : nouvel essai au prochain passage
+            logger.warn("Could not persist collaboration session on note {}: {}", session.noteId, e.getMessage());
+        } finally {
+            session.persistLock.unlock();
+        }
+    }
+
+    private void closeIfIdle(Session session) {
+        synchronized (session) {
+            if (!session.closed && session.participants.isEmpty() && !session.dirty) {
+                session.closed = true;
+                sessions.remove(session.noteId, session);
+                logger.info("Collaboration session on note {} closed", session.noteId);
+            }
+        }
+    }
+
+    // L'écriture extérieure et les modifications de la session depuis la dernière écriture partent du même
+    // contenu : l'écriture extérieure est transformée contre ces dernières puis diffusée comme une opération
+    private void mergeExternal(Session session, String stored, Long version) {
+        TextOperation external = TextOperation.replacing(session.persistedContent, stored);
+        TextOperation local = TextOperation.replacing(session.persistedContent, session.content);
+        TextOperation merged = TextOperation.transform(external, local)[0];
+
+        session.persistedContent = stored;
+        session.persistedVersion = version;
+        if (merged.isNoop()) {
+            return;
+        }
+
+        session.content = merged.apply(session.content);
+        append(session, merged);
+        logger.info("Merged external update of note {} into collaboration session (revision {})",
+                session.noteId, session.revision);
+
+        Map<String, Object> applied = message("op");
+        applied.put("revision", session.revision);
+        applied.put("ops", merged.toJson());
+        applied.put("userId", null);
+        broadcast(session, applied, null);
+    }
+
+    private void append(Session session, TextOperation operation) {
+        long now = System.currentTimeMillis();
+        session.history.add(operation);
+        session.revision++;
+        if (!session.dirty) {
+            session.dirty = true;
+            session.firstDirtyAt = now;
+        }
+        session.lastEditAt = now;
+
+        int excess = session.history.size() - historySize;
+        if (excess > 0) {
+            session.history.subList(0, excess).clear();
+            session.historyStart += excess;
+        }
+    }
+
+    private Session load(Long noteId) {
+        return noteRepository.findById(noteId)
+                .map(note -> new Session(noteId, note.getContentMd() != null ? note.getContentMd() : "",
+                        note.getVersion()))
+                .orElse(null);
+    }
+
+    private void terminate(Session session, String reason) {
+        List<Participant> closing;
+        synchronized (session) {
+            session.closed = true;
+            sessions.remove(session.noteId, session);
+            closing = new ArrayList<>(session.participants.values());
+            session.participants.clear();
+        }
+        for (Participant participant : closing) {
+            participants.remove(participant.socket.getId());
+            close(participant.socket, CloseStatus.GOING_AWAY.withReason(reason));
+        }
+    }
+
+    private SharePermission permissionOf(Long noteId, User user) {
+        return transactionTemplate.execute(status -> shareService.getUserPermissionOnNote(noteId, user));
+    }
+
+    private List<Long> userIds(Session session) {
+        List<Long> ids = new ArrayList<>();
+        session.participants.values().forEach(participant -> ids.add(participant.user.getId()));
+        return ids;
+    }
+
+    private void sendReset(Participant participant, Session session) {
+        Map<String, Object> reset = message("reset");
+        reset.put("revision", session.revision);
+        reset.put("content", session.content);
+        send(participant, reset);
+    }
+
+    private void sendError(Participant participant, String error) {
+        Map<String, Object> message = message("error");
+        message.put("message", error);
+        send(participant, message);
+    }
+
+    private void broadcast(Session session, Map<String, Object> message, Participant except) {
+        for (Participant participant : session.participants.values()) {
+            if (participant != except) {
+                send(participant, message);
+            }
+        }
+    }
+
+    // Envoi non bloquant (tampon par connexion) ; un client trop lent est déconnecté
+    private void send(Participant participant, Map<String, Object> message) {
+        try {
+            participant.socket.sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Dropping collaboration participant {}: {}", participant.user.getEmail(), e.getMessage());
+            close(participant.socket, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    private static Map<String, Object> message(String type) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", type);
+        return message;
+    }
+
+    private static void close(WebSocketSession socket, CloseStatus status) {
+        try {
+            socket.close(status);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Error closing collaboration socket: {}", e.getMessage());
+        }
+    }
+
+    // État d'une note ouverte ; les champs modifiables sont protégés par le moniteur de la session
+    private static final class Session {
+
+        private final Long noteId;
+        private final Map<String, Participant> participants = new LinkedHashMap<>();
+        private final List<TextOperation> history = new ArrayList<>();
+        private final ReentrantLock persistLock = new ReentrantLock();
+
+        private String content;
+        private long revision;
+        private long historyStart;
+        private boolean dirty;
+        private long firstDirtyAt;
+        private long lastEditAt;
+        private User lastEditor;
+        private boolean closed;
+
+        // Dernier état écrit en base : base commune pour fusionner une écriture extérieure
+        private String persistedContent;
+        private Long persistedVersion;
+
+        private Session(Long noteId, String content, Long version) {
+            this.noteId = noteId;
+            this.content = content;
+            this.persistedContent = content;
+            this.persistedVersion = version;
+        }
+    }
+
+    private static final class Participant {
+
+        private final Long noteId;
+        private final User user;
+        private final WebSocketSession socket;
+        private volatile SharePermission permission;
+        private volatile long permissionCheckedAt;
+
+        private Participant(Long noteId, User user, WebSocketSession socket, SharePermission permission) {
+            this.noteId = noteId;
+            this.user = user;
+            this.socket = socket;
+            updatePermission(permission);
+        }
+
+        private boolean canEdit() {
+            return permission == SharePermission.WRITE || permission == SharePermission.ADMIN;
+        }
+
+        private boolean permissionExpired(long ttlMs) {
+            return System.currentTimeMillis() - permissionCheckedAt > ttlMs;
+        }
+
+        private void updatePermission(SharePermission permission) {
+            this.permission = permission;
+            this.permissionCheckedAt = System.currentTimeMillis();
+        }
+    }
+}
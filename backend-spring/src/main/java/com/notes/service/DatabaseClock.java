@@ -0,0 +1,42 @@
+package com.notes.service;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+// Horloge de la base, commune à toutes les instances : les dates du journal des modifications
+// (note_changes.changed_at) et les fenêtres de stabilisation qui les lisent n'en dépendent que d'elle.
+// PostgreSQL : clock_timestamp() (CURRENT_TIMESTAMP est figé au début de la transaction)
+@Component
+class DatabaseClock {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    DatabaseClock(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Expression SQL de l'instant courant, à utiliser dans une requête d'écriture
+    String nowSql() {
+        return isPostgres() ? "CAST(clock_timestamp() AS TIMESTAMP)" : "LOCALTIMESTAMP";
+    }
+
+    LocalDateTime now() {
+        Timestamp now = jdbcTemplate.queryForObject("SELECT " + nowSql(), Timestamp.class);
+        return now != null ? now.toLocalDateTime() : LocalDateTime.now();
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String productName = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = productName != null && productName.toLowerCase().contains("postgresql");
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,429 @@
+package com.notes.service;
+
+import com.notes.model.NoteChangeType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Flux Server-Sent Events par utilisateur (GET /api/v1/events)
+// Les services publient après commit des événements compacts (note.changed, note.removed,
+// share.granted, share.revoked) ; ils sont remis aux abonnés de cette instance et diffusés aux
+// autres instances par CacheInvalidationBus. Une connexion SSE inactive n'occupe aucun thread
+// (traitement asynchrone du servlet) : seul l'émetteur et son entrée dans la table restent en mémoire.
+// Les événements note.changed / note.removed portent l'identifiant de leur entrée note_changes : stable
+// d'une instance à l'autre, il sert à la reprise (Last-Event-ID) depuis le journal de l'utilisateur,
+// quelle que soit l'instance qui l'a émis. Les événements share.* n'ont pas d'identifiant (ils sont
+// doublés d'une entrée note_changes). Si la reprise est impossible (identifiant inconnu, trop
+// d'événements manqués, entrées purgées, notifications perdues), le client reçoit "resync" et se
+// resynchronise via GET /notes/changes.
+// Chaque connexion a sa propre file bornée, vidée par un pool d'envoi partagé : un client lent ou bloqué
+// (tampon TCP plein) n'occupe qu'un thread d'envoi et ne retarde pas les autres abonnés. Une file pleine
+// ou un envoi bloqué au-delà de send-time-limit-ms ferme la connexion en erreur (le client se reconnecte
+// avec Last-Event-ID), comme ConcurrentWebSocketSessionDecorator pour l'édition collaborative.
+@Service
+public class EventStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventStreamService.class);
+
+    public static final String NOTE_CHANGED = "note.changed";
+    public static final String NOTE_REMOVED = "note.removed";
+    public static final String SHARE_GRANTED = "share.granted";
+    public static final String SHARE_REVOKED = "share.revoked";
+
+    private static final String RESYNC = "resync";
+    private static final String TOPIC = "events";
+
+    // Destinataires par message NOTIFY (limite de taille du payload)
+    private static final int USERS_PER_MESSAGE = 300;
+
+    // Entrées de l'utilisateur postérieures au dernier événement reçu, ou écrites dans la fenêtre de
+    // stabilisation : un identifiant plus petit peut être validé après un plus grand (doublons sans effet)
+    private static final String REPLAY_SQL =
+            "SELECT id, note_id, change_type FROM note_changes " +
+            "WHERE user_id = ? AND (id > ? OR changed_at >= ?) ORDER BY id LIMIT ?";
+
+    private static final String OLDEST_SQL = "SELECT MIN(id) FROM note_changes";
+
+    private final CacheInvalidationBus invalidationBus;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseClock databaseClock;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    // Envois (bloquants tant que le tampon du client est plein) hors des threads de requête et de transaction
+    private final ExecutorService senders;
+
+    @Value("${notes.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${notes.events.replay-size:1000}")
+    private int replaySize;
+
+    // Délai maximal attendu entre l'insertion d'une entrée et le commit (voir NoteChangeLog)
+    @Value("${notes.sync.settle-ms:5000}")
+    private long settleMs;
+
+    @Value("${notes.events.max-per-user:5}")
+    private int maxPerUser;
+
+    @Value("${notes.events.send-buffer:64}")
+    private int sendBuffer;
+
+    @Value("${notes.events.send-time-limit-ms:10000}")
+    private long sendTimeLimitMs;
+
+    public EventStreamService(CacheInvalidationBus invalidationBus, JdbcTemplate jdbcTemplate,
+                              DatabaseClock databaseClock, MeterRegistry meterRegistry,
+                              @Value("${notes.events.send-threads:8}") int sendThreads) {
+        this.invalidationBus = invalidationBus;
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseClock = databaseClock;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(sendThreads, runnable -> {
+            Thread thread = new Thread(runnable, "sse-sender-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("notes.events.subscribers", this, EventStreamService::getSubscriberCount)
+                .description("Open SSE connections on this instance")
+                .register(meterRegistry);
+
+        invalidationBus.subscribe(TOPIC, new CacheInvalidationBus.Listener() {
+            @Override
+            public void invalidate(String key) {
+                // "<type>:<noteId>:<userId>[=<changeId>],..."
+                String[] parts = key.split(":", 3);
+                Map<Long, Long> recipients = new LinkedHashMap<>();
+                for (String recipient : parts[2].split(",")) {
+                    int separator = recipient.indexOf('=');
+                    if (separator < 0) {
+                        recipients.put(Long.valueOf(recipient), null);
+                    } else {
+                        recipients.put(Long.valueOf(recipient.substring(0, separator)),
+                                Long.valueOf(recipient.substring(separator + 1)));
+                    }
+                }
+                deliver(recipients, parts[0], Long.valueOf(parts[1]));
+            }
+
+            @Override
+            public void flush() {
+                // Notifications d'autres instances possiblement perdues (reconnexion)
+                resyncAll();
+            }
+        });
+    }
+
+    public SseEmitter subscribe(Long userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(userId, emitter, sendBuffer);
+        Set<Subscriber> userSubscribers = subscribers.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>());
+
+        // Connexions en trop (onglets, reconnexions non détectées) : la plus ancienne est fermée
+        while (userSubscribers.size() >= maxPerUser) {
+            Subscriber oldest = userSubscribers.iterator().next();
+            userSubscribers.remove(oldest);
+            oldest.complete();
+        }
+        userSubscribers.add(subscriber);
+
+        Runnable remove = () -> unsubscribe(subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            resume(subscriber, lastEventId);
+        }
+        logger.debug("Event stream opened for user {} (resume from {})", userId, lastEventId);
+        return emitter;
+    }
+
+    // Publication après commit d'un événement sans entrée note_changes (share.*)
+    public void publish(Collection<Long> userIds, String type, Long noteId) {
+        Map<Long, Long> recipients = new LinkedHashMap<>();
+        userIds.forEach(userId -> recipients.put(userId, null));
+        publish(recipients, type, noteId);
+    }
+
+    // Publication après commit : rien n'est annoncé pour une transaction annulée
+    // changeIds : identifiant note_changes de chaque destinataire (null si aucun)
+    public void publish(Map<Long, Long> changeIds, String type, Long noteId) {
+        Map<Long, Long> recipients = new LinkedHashMap<>(changeIds);
+        if (recipients.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(recipients, type, noteId);
+                }
+            });
+        } else {
+            dispatch(recipients, type, noteId);
+        }
+    }
+
+    // Commentaire périodique : maintient la connexion à travers les proxies et détecte les clients partis
+    // (y compris ceux dont l'envoi en cours est bloqué depuis plus de send-time-limit-ms)
+    @Scheduled(fixedDelayString = "${notes.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(
+                subscriber -> subscriber.enqueue(Event.HEARTBEAT)));
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(Subscriber::complete));
+        subscribers.clear();
+    }
+
+    private void dispatch(Map<Long, Long> recipients, String type, Long noteId) {
+        deliver(recipients, type, noteId);
+
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(recipients.entrySet());
+        for (int from = 0; from < entries.size(); from += USERS_PER_MESSAGE) {
+            List<Map.Entry<Long, Long>> chunk = entries.subList(from, Math.min(from + USERS_PER_MESSAGE, entries.size()));
+            StringBuilder key = new StringBuilder(type).append(':').append(noteId).append(':');
+            for (int i = 0; i < chunk.size(); i++) {
+                key.append(i > 0 ? "," : "").append(chunk.get(i).getKey());
+                if (chunk.get(i).getValue() != null) {
+                    key.append('=').append(chunk.get(i).getValue());
+                }
+            }
+            invalidationBus.publish(TOPIC, key.toString());
+        }
+    }
+
+    // Mise en file uniquement : ne bloque jamais, quel que soit l'état des connexions
+    private void deliver(Map<Long, Long> recipients, String type, Long noteId) {
+        recipients.forEach((userId, changeId) -> {
+            Set<Subscriber> userSubscribers = subscribers.get(userId);
+            if (userSubscribers != null) {
+                Event event = new Event(changeId, type, noteId);
+                for (Subscriber subscriber : userSubscribers) {
+                    subscriber.enqueue(event);
+                }
+            }
+        });
+    }
+
+    // Reprise depuis le journal note_changes de l'utilisateur (identique sur toutes les instances)
+    private void resume(Subscriber subscriber, String lastEventId) {
+        long lastChangeId = parseChangeId(lastEventId);
+        if (lastChangeId < 0) {
+            subscriber.enqueue(Event.RESYNC);
+            return;
+        }
+
+        // Entrées suivantes purgées : reprise incomplète
+        Long oldest = jdbcTemplate.queryForObject(OLDEST_SQL, Long.class);
+        if (oldest != null && oldest > lastChangeId + 1) {
+            subscriber.enqueue(Event.RESYNC);
+            return;
+        }
+
+        // Horloge de la base, comme changed_at (NoteChangeLog)
+        Timestamp settledAfter = Timestamp.valueOf(databaseClock.now().minusNanos(settleMs * 1_000_000L));
+        List<Event> missed = jdbcTemplate.query(REPLAY_SQL,
+                (rs, rowNum) -> new Event(rs.getLong(1),
+                        NoteChangeType.REMOVE.name().equals(rs.getString(3)) ? NOTE_REMOVED : NOTE_CHANGED,
+                        rs.getLong(2)),
+                subscriber.userId, lastChangeId, settledAfter, replaySize + 1);
+
+        // Rejeu plus long que la file : resynchronisation plutôt que fermeture pour dépassement
+        if (missed.size() > Math.min(replaySize, sendBuffer)) {
+            subscriber.enqueue(Event.RESYNC);
+            return;
+        }
+        for (Event event : missed) {
+            subscriber.enqueue(event);
+        }
+    }
+
+    private void resyncAll() {
+        logger.info("Cross-node events may have been lost, asking {} subscribers to resync", getSubscriberCount());
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(
+                subscriber -> subscriber.enqueue(Event.RESYNC)));
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (id, userSubscribers) -> {
+            userSubscribers.remove(subscriber);
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+    }
+
+    // Identifiant note_changes, sinon -1 (identifiant d'un ancien format, valeur invalide)
+    private long parseChangeId(String lastEventId) {
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Connexion SSE et sa file d'envoi ; au plus un thread d'envoi à la fois par connexion
+    private final class Subscriber {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // Début de l'envoi en cours, 0 si aucun
+        private volatile long sendStartedAt;
+
+        private Subscriber(Long userId, SseEmitter emitter, int capacity) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private void enqueue(Event event) {
+            if (closed.get()) {
+                return;
+            }
+            long startedAt = sendStartedAt;
+            if (startedAt != 0 && System.currentTimeMillis() - startedAt > sendTimeLimitMs) {
+                fail("send time limit exceeded");
+                return;
+            }
+            if (!queue.offer(event)) {
+                fail("send buffer overflow");
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Arrêt en cours
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Event event;
+                while (!closed.get() && (event = queue.poll()) != null) {
+                    sendStartedAt = System.currentTimeMillis();
+                    try {
+                        emitter.send(event.toSse());
+                    } catch (IOException | IllegalStateException e) {
+                        // Client parti : le conteneur termine l'émetteur lui-même
+                        close();
+                        return;
+                    } finally {
+                        sendStartedAt = 0;
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+            // Événement mis en file entre la dernière lecture et la remise à zéro du drapeau
+            if (!closed.get() && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        // Client trop lent : connexion fermée en erreur, il se reconnecte avec Last-Event-ID
+        private void fail(String reason) {
+            if (close()) {
+                logger.debug("Closing event stream of user {}: {}", userId, reason);
+                emitter.completeWithError(new IOException(reason));
+            }
+        }
+
+        private void complete() {
+            if (close()) {
+                emitter.complete();
+            }
+        }
+
+        private boolean close() {
+            if (!closed.compareAndSet(false, true)) {
+                return false;
+            }
+            queue.clear();
+            unsubscribe(this);
+            return true;
+        }
+    }
+
+    private static final class Event {
+
+        // Commentaire de maintien de connexion et demande de resynchronisation (sans identifiant)
+        private static final Event HEARTBEAT = new Event(null, null, null);
+        private static final Event RESYNC = new Event(null, EventStreamService.RESYNC, null);
+
+        private final Long changeId;
+        private final String type;
+        private final Long noteId;
+
+        private Event(Long changeId, String type, Long noteId) {
+            this.changeId = changeId;
+            this.type = type;
+            this.noteId = noteId;
+        }
+
+        // Construit à chaque envoi : un SseEventBuilder ne peut pas être partagé entre connexions
+        private SseEmitter.SseEventBuilder toSse() {
+            if (this == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            if (this == RESYNC) {
+                return SseEmitter.event().name(type).data("{}", MediaType.APPLICATION_JSON);
+            }
+            SseEmitter.SseEventBuilder builder = SseEmitter.event();
+            // Sans identifiant, le client conserve le dernier Last-Event-ID reçu
+            if (changeId != null) {
+                builder.id(changeId.toString());
+            }
+            return builder
+                    .name(type)
+                    .data("{\"noteId\":" + noteId + "}", MediaType.APPLICATION_JSON);
+        }
+    }
+}
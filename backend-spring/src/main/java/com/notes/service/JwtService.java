@@ -23,7 +23,7 @@ public class JwtService {
     @Value("${jwt.secret}")
     private String jwtSecret;
     
-    @Value("${jwt.access-token-expiration}")
+    @Value("${jwt.access-token-expiration:${jwt.expiration}}")
     private int accessTokenExpirationMs;
     
     @Value("${jwt.refresh-token-expiration}")
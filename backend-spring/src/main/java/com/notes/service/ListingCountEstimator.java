@@ -0,0 +1,106 @@
+package com.notes.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Totaux des listes paginées par curseur, calculés hors du chemin de la requête
+// Le premier appel déclenche le COUNT en arrière-plan et retourne null ; les suivants
+// retournent la dernière valeur connue, recalculée lorsqu'elle dépasse la durée de validité
+@Component
+public class ListingCountEstimator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListingCountEstimator.class);
+
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor;
+
+    @Value("${notes.pagination.count-ttl-ms:30000}")
+    private long countTtlMs;
+
+    @Value("${notes.pagination.count-cache-max-size:10000}")
+    private int countCacheMaxSize;
+
+    public ListingCountEstimator() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "listing-count-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Dernier total connu pour la clé (éventuellement périmé), ou null s'il n'a jamais été calculé
+    public Long estimate(String key, Supplier<Long> countQuery) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = counts.get(key);
+
+        if (cached == null || cached.computedAtMillis + countTtlMs <= now) {
+            refreshAsync(key, countQuery);
+        }
+
+        return cached != null ? cached.value : null;
+    }
+
+    private void refreshAsync(String key, Supplier<Long> countQuery) {
+        // Un seul calcul en cours par clé
+        if (!inFlight.add(key)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    Long value = countQuery.get();
+                    store(key, value);
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to compute listing count for {}: {}", key, e.getMessage());
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+        }
+    }
+
+    private void store(String key, Long value) {
+        long now = System.currentTimeMillis();
+
+        // Cache borné : purge des entrées périmées, puis vidage complet si toujours plein
+        if (counts.size() >= countCacheMaxSize) {
+            counts.values().removeIf(entry -> entry.computedAtMillis + countTtlMs <= now);
+            if (counts.size() >= countCacheMaxSize) {
+                counts.clear();
+            }
+        }
+        counts.put(key, new CachedCount(value, now));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class CachedCount {
+        private final Long value;
+        private final long computedAtMillis;
+
+        private CachedCount(Long value, long computedAtMillis) {
+            this.value = value;
+            this.computedAtMillis = computedAtMillis;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.notes.service;
+
+import com.notes.model.Note;
+import com.notes.model.NoteAccess;
+import com.notes.model.NoteVisibility;
+import com.notes.model.Share;
+import com.notes.model.SharePermission;
+import com.notes.repository.NoteAccessRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Maintenance de la table note_access à partir des écritures sur notes et shares
+// Les appels se font dans la transaction de l'écriture d'origine et sont appliqués en lots juste
+// avant son commit (un lot par transaction, pas une requête par note) ; un job de vérification
+// compare périodiquement la table à l'état attendu et corrige les lignes divergentes
+// Chaque changement est aussi inscrit au journal de synchronisation (NoteChangeLog)
+@Service
+public class NoteAccessService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteAccessService.class);
+
+    // Droits attendus : propriétaire (ADMIN), notes publiques (READ pour l'utilisateur 0), partages actifs
+    private static final String EXPECTED_ACCESS_SQL =
+            "SELECT n.owner_id AS user_id, n.id AS note_id, 'ADMIN' AS permission, " +
+            "CAST(NULL AS TIMESTAMP) AS expires_at FROM notes n " +
+            "UNION ALL " +
+            "SELECT " + NoteAccess.PUBLIC_USER_ID + ", n.id, 'READ', CAST(NULL AS TIMESTAMP) FROM notes n " +
+            "WHERE n.visibility = 'PUBLIC' " +
+            "UNION ALL " +
+            "SELECT s.shared_with_user_id, s.note_id, s.permission, s.expires_at FROM shares s " +
+            "JOIN notes n ON n.id = s.note_id " +
+            "WHERE s.is_active = true AND s.shared_with_user_id <> n.owner_id";
+
+    private static final String ACTUAL_ACCESS_SQL =
+            "SELECT user_id, note_id, permission, expires_at FROM note_access";
+
+    private static final String DRIFT_COUNT_SQL =
+            "SELECT COUNT(*) FROM (" +
+            "(SELECT user_id, note_id, permission, expires_at FROM (" + EXPECTED_ACCESS_SQL + ") e " +
+            "EXCEPT " + ACTUAL_ACCESS_SQL + ") " +
+            "UNION ALL " +
+            "(" + ACTUAL_ACCESS_SQL + " EXCEPT " +
+            "SELECT user_id, note_id, permission, expires_at FROM (" + EXPECTED_ACCESS_SQL + ") e)" +
+            ") drift";
+
+    // Réparation par différence : suppression des couples (utilisateur, note) qui ne devraient plus exister
+    private static final String DELETE_EXTRA_SQL =
+            "DELETE FROM note_access a WHERE NOT EXISTS (" +
+            "SELECT 1 FROM (" + EXPECTED_ACCESS_SQL + ") e WHERE e.user_id = a.user_id AND e.note_id = a.note_id)";
+
+    private static final String DELETE_ACCESS_SQL = "DELETE FROM note_access WHERE user_id = ? AND note_id = ?";
+
+    // Avant les entrées du journal (NoteChangeLog), qui lisent les accès écrits
+    static final int WRITE_ORDER = 0;
+
+    // PostgreSQL : insertion ou mise à jour atomique sur la contrainte uk_note_access_user_note
+    private static final String POSTGRES_UPSERT_SQL =
+            "INSERT INTO note_access (user_id, note_id, permission, expires_at) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (user_id, note_id) DO UPDATE " +
+            "SET permission = EXCLUDED.permission, expires_at = EXCLUDED.expires_at";
+
+    // PostgreSQL : lignes manquantes insérées, lignes différentes mises à jour, lignes identiques inchangées
+    private static final String POSTGRES_REPAIR_SQL =
+            "INSERT INTO note_access (user_id, note_id, permission, expires_at) " +
+            "SELECT user_id, note_id, permission, expires_at FROM (" + EXPECTED_ACCESS_SQL + ") e " +
+            "ON CONFLICT (user_id, note_id) DO UPDATE " +
+            "SET permission = EXCLUDED.permission, expires_at = EXCLUDED.expires_at " +
+            "WHERE note_access.permission IS DISTINCT FROM EXCLUDED.permission " +
+            "OR note_access.expires_at IS DISTINCT FROM EXCLUDED.expires_at";
+
+    // Autres bases (H2 en test) : MERGE standard
+    private static final String MERGE_UPSERT_SQL =
+            "MERGE INTO note_access t USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), " +
+            "CAST(? AS VARCHAR(20)), CAST(? AS TIMESTAMP))) AS s(user_id, note_id, permission, expires_at) " +
+            "ON t.user_id = s.user_id AND t.note_id = s.note_id " +
+            "WHEN MATCHED THEN UPDATE SET permission = s.permission, expires_at = s.expires_at " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, note_id, permission, expires_at) " +
+            "VALUES (s.user_id, s.note_id, s.permission, s.expires_at)";
+
+    private static final String MERGE_REPAIR_SQL =
+            "MERGE INTO note_access t USING (" + EXPECTED_ACCESS_SQL + ") s " +
+            "ON t.user_id = s.user_id AND t.note_id = s.note_id " +
+            "WHEN MATCHED AND (t.permission IS DISTINCT FROM s.permission " +
+            "OR t.expires_at IS DISTINCT FROM s.expires_at) " +
+            "THEN UPDATE SET permission = s.permission, expires_at = s.expires_at " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, note_id, permission, expires_at) " +
+            "VALUES (s.user_id, s.note_id, s.permission, s.expires_at)";
+
+    private final NoteAccessRepository noteAccessRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NoteChangeLog noteChangeLog;
+    private final EventStreamService eventStreamService;
+
+    // Clé des écritures différées de la transaction courante
+    private final Object pendingWritesKey = new Object();
+
+    private volatile Boolean postgres;
+
+    public NoteAccessService(NoteAccessRepository noteAccessRepository, JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate, NoteChangeLog noteChangeLog,
+                             EventStreamService eventStreamService) {
+        this.noteAccessRepository = noteAccessRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.noteChangeLog = noteChangeLog;
+        this.eventStreamService = eventStreamService;
+    }
+
+    // Note créée ou modifiée : accès du propriétaire et accès public selon la visibilité
+    public void syncNote(Note note) {
+        upsert(note.getOwner().getId(), note.getId(), SharePermission.ADMIN, null);
+
+        if (note.getVisibility() == NoteVisibility.PUBLIC) {
+            upsert(NoteAccess.PUBLIC_USER_ID, note.getId(), SharePermission.READ, null);
+        } else {
+            revoke(NoteAccess.PUBLIC_USER_ID, note.getId());
+        }
+
+        noteChangeLog.recordNoteUpdated(note.getId());
+    }
+
+    // Note créée dans la transaction : aucun accès existant à retirer
+    public void syncCreatedNote(Note note) {
+        upsert(note.getOwner().getId(), note.getId(), SharePermission.ADMIN, null);
+
+        if (note.getVisibility() == NoteVisibility.PUBLIC) {
+            upsert(NoteAccess.PUBLIC_USER_ID, note.getId(), SharePermission.READ, null);
+        }
+
+        noteChangeLog.recordNoteUpdated(note.getId());
+    }
+
+    // Note supprimée
+    public void removeNote(Long noteId) {
+        // Écritures en attente pour cette note : sans objet (et la clé étrangère les rejetterait)
+        PendingWrites pending = pendingWrites();
+        if (pending != null) {
+            pending.byNote.remove(noteId);
+        }
+
+        List<Long> userIds = noteAccessRepository.findUserIdsByNoteId(noteId);
+        noteAccessRepository.deleteByNoteId(noteId);
+        noteChangeLog.recordRemoved(noteId, userIds);
+    }
+
+    // Partage créé, modifié, révoqué ou réactivé
+    public void syncShare(Share share) {
+        Note note = share.getNote();
+        Long userId = share.getSharedWithUser().getId();
+
+        // Le propriétaire garde son accès ADMIN
+        if (userId.equals(note.getOwner().getId())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(share.getIsActive())) {
+            upsert(userId, note.getId(), share.getPermission(), share.getExpiresAt());
+            eventStreamService.publish(List.of(userId), EventStreamService.SHARE_GRANTED, note.getId());
+        } else {
+            revoke(userId, note.getId());
+            eventStreamService.publish(List.of(userId), EventStreamService.SHARE_REVOKED, note.getId());
+        }
+
+        // La liste des partages fait partie de la note synchronisée
+        noteChangeLog.recordNoteUpdated(note.getId());
+    }
+
+    // Partage supprimé
+    public void removeShare(Share share) {
+        Note note = share.getNote();
+        Long userId = share.getSharedWithUser().getId();
+
+        if (!userId.equals(note.getOwner().getId())) {
+            revoke(userId, note.getId());
+            noteChangeLog.recordNoteUpdated(note.getId());
+            eventStreamService.publish(List.of(userId), EventStreamService.SHARE_REVOKED, note.getId());
+        }
+    }
+
+    // Vérification périodique : réparation des seules lignes divergentes
+    @Scheduled(cron = "${notes.access.verify-cron:0 15 3 * * *}")
+    public void verifyAndRepair() {
+        long drift = countDrift();
+        if (drift > 0) {
+            logger.warn("note_access drifted from notes/shares by {} rows, repairing", drift);
+            repair();
+        } else {
+            logger.debug("note_access is consistent with notes/shares");
+        }
+    }
+
+    // Nombre de lignes manquantes ou en trop par rapport à l'état attendu
+    public long countDrift() {
+        Long drift = jdbcTemplate.queryForObject(DRIFT_COUNT_SQL, Long.class);
+        return drift != null ? drift : 0L;
+    }
+
+    // Réparation dans une seule transaction, par différence avec l'état attendu : les lignes correctes
+    // ne sont ni supprimées ni réécrites, les écritures concurrentes ne voient jamais la table vide
+    public int repair() {
+        Integer repaired = transactionTemplate.execute(status -> {
+            int deleted = jdbcTemplate.update(DELETE_EXTRA_SQL);
+            int upserted = jdbcTemplate.update(isPostgres() ? POSTGRES_REPAIR_SQL : MERGE_REPAIR_SQL);
+            logger.info("Repaired note_access: {} rows removed, {} rows inserted or updated", deleted, upserted);
+            return deleted + upserted;
+        });
+        return repaired != null ? repaired : 0;
+    }
+
+    private void revoke(Long userId, Long noteId) {
+        stage(userId, noteId, null);
+    }
+
+    private void upsert(Long userId, Long noteId, SharePermission permission, LocalDateTime expiresAt) {
+        stage(userId, noteId, new AccessRow(permission, expiresAt));
+    }
+
+    // Écriture différée à la fin de la transaction ; immédiate hors transaction
+    private void stage(Long userId, Long noteId, AccessRow row) {
+        PendingWrites pending = pendingWrites();
+        if (pending != null) {
+            pending.put(userId, noteId, row);
+            return;
+        }
+        PendingWrites single = new PendingWrites();
+        single.put(userId, noteId, row);
+        write(single);
+    }
+
+    // Écritures de la transaction courante, appliquées juste avant son commit
+    private PendingWrites pendingWrites() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        PendingWrites pending = (PendingWrites) TransactionSynchronizationManager.getResource(pendingWritesKey);
+        if (pending == null) {
+            PendingWrites created = new PendingWrites();
+            TransactionSynchronizationManager.bindResource(pendingWritesKey, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return WRITE_ORDER;
+                }
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    write(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendingWritesKey);
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+
+    // Un lot de DELETE puis un lot d'upserts, quel que soit le nombre de notes et de partages touchés
+    private void write(PendingWrites pending) {
+        if (pending.byNote.isEmpty()) {
+            return;
+        }
+
+        // Notes et partages encore en attente dans le contexte de persistance (clé étrangère) : un seul flush
+        noteAccessRepository.flush();
+
+        List<Object[]> revoked = new ArrayList<>();
+        List<Object[]> upserted = new ArrayList<>();
+        pending.byNote.forEach((noteId, rows) -> rows.forEach((userId, row) -> {
+            if (row == null) {
+                revoked.add(new Object[]{userId, noteId});
+            } else {
+                upserted.add(new Object[]{userId, noteId, row.permission.name(),
+                        row.expiresAt != null ? Timestamp.valueOf(row.expiresAt) : null});
+            }
+        }));
+        pending.byNote.clear();
+
+        if (!revoked.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate(DELETE_ACCESS_SQL, revoked);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                    noteChangeLog.recordRemoved((Long) revoked.get(i)[1], List.of((Long) revoked.get(i)[0]));
+                }
+            }
+        }
+        if (!upserted.isEmpty()) {
+            jdbcTemplate.batchUpdate(isPostgres() ? POSTGRES_UPSERT_SQL : MERGE_UPSERT_SQL, upserted,
+                    new int[]{Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP});
+        }
+
+        // Entrées du journal dont les destinataires dépendent des accès qui viennent d'être écrits
+        noteChangeLog.flushPending();
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String productName = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = productName != null && productName.toLowerCase().contains("postgresql");
+        }
+        return postgres;
+    }
+
+    // Droit à écrire pour un couple (utilisateur, note) ; null : accès à retirer
+    private static final class AccessRow {
+
+        private final SharePermission permission;
+        private final LocalDateTime expiresAt;
+
+        private AccessRow(SharePermission permission, LocalDateTime expiresAt) {
+            this.permission = permission;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // Dernier état demandé par note puis par utilisateur, dans l'ordre des appels
+    private static final class PendingWrites {
+
+        private final Map<Long, Map<Long, AccessRow>> byNote = new LinkedHashMap<>();
+
+        private void put(Long userId, Long noteId, AccessRow row) {
+            byNote.computeIfAbsent(noteId, id -> new LinkedHashMap<>()).put(userId, row);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.notes.service;
+
+import com.notes.dto.note.NoteBatchOperationDto;
+import com.notes.dto.note.NoteBatchResultDto;
+import com.notes.dto.note.NoteDto;
+import com.notes.exception.NoteNotFoundException;
+import com.notes.exception.NoteVersionConflictException;
+import com.notes.exception.UnauthorizedAccessException;
+import com.notes.mapper.NoteMapper;
+import com.notes.model.Note;
+import com.notes.model.User;
+import com.notes.repository.NoteRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Application d'un lot d'opérations sur les notes (rejeu de la file hors ligne du client mobile)
+// Les opérations sont appliquées dans l'ordre, par tranches d'une transaction chacune ; les tags
+// de la tranche sont résolus en une fois puis réutilisés par chaque opération (TagResolver).
+// Les notes déjà associées aux clientId de la tranche sont lues en une requête au début de la
+// transaction : aucune requête par opération, donc aucun flush forcé entre deux créations
+// (les insertions de la tranche partent en lots JDBC au commit).
+// Les échecs attendus lors d'un rejeu (note supprimée, version dépassée, accès refusé, données
+// invalides) sont détectés avant l'appel à NoteService et enregistrés sans annuler la tranche.
+// Sur une erreur inattendue, la tranche est annulée puis rejouée opération par opération afin
+// que seules les opérations en erreur soient rejetées.
+@Service
+public class NoteBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteBatchService.class);
+
+    // Contrainte d'unicité (propriétaire, clientId) : V16, Note
+    private static final String CLIENT_ID_CONSTRAINT = "uk_note_owner_client_id";
+
+    private final NoteService noteService;
+    private final NoteRepository noteRepository;
+    private final NoteMapper noteMapper;
+    private final TagResolver tagResolver;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+
+    // Aligné sur hibernate.jdbc.batch_size
+    @Value("${notes.batch.chunk-size:20}")
+    private int chunkSize;
+
+    @Value("${notes.batch.max-operations:500}")
+    private int maxOperations;
+
+    public NoteBatchService(NoteService noteService, NoteRepository noteRepository, NoteMapper noteMapper,
+                            TagResolver tagResolver, TransactionTemplate transactionTemplate, Validator validator) {
+        this.noteService = noteService;
+        this.noteRepository = noteRepository;
+        this.noteMapper = noteMapper;
+        this.tagResolver = tagResolver;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+    }
+
+    public List<NoteBatchResultDto> apply(List<NoteBatchOperationDto> operations, User currentUser) {
+        if (operations.size() > maxOperations) {
+            throw new IllegalArgumentException("Le lot ne peut pas dépasser " + maxOperations + " opérations");
+        }
+        logger.info("Applying batch of {} note operations for user: {}", operations.size(), currentUser.getEmail());
+
+        List<NoteBatchResultDto> results = new ArrayList<>(operations.size());
+        for (int from = 0; from < operations.size(); from += chunkSize) {
+            List<NoteBatchOperationDto> chunk = operations.subList(from, Math.min(from + chunkSize, operations.size()));
+            results.addAll(applyChunk(chunk, currentUser));
+        }
+        return results;
+    }
+
+    private List<NoteBatchResultDto> applyChunk(List<NoteBatchOperationDto> chunk, User currentUser) {
+        try {
+            return transactionTemplate.execute(status -> {
+                // Une seule résolution (et insertion groupée) pour tous les libellés de la tranche
+                tagResolver.resolve(chunk.stream()
+                        .filter(operation -> operation.getType() != NoteBatchOperationDto.Type.DELETE
+                                && operation.getTags() != null)
+                        .flatMap(operation -> operation.getTags().stream())
+                        .collect(Collectors.toList()));
+
+                Map<String, Long> noteIds = noteIdsByClientId(chunk, currentUser);
+                List<NoteBatchResultDto> chunkResults = new ArrayList<>(chunk.size());
+                for (NoteBatchOperationDto operation : chunk) {
+                    chunkResults.add(checkAndExecute(operation, currentUser, noteIds));
+                }
+                return chunkResults;
+            });
+        } catch (RuntimeException e) {
+            logger.info("Batch chunk of {} operations failed ({}), replaying one by one", chunk.size(), e.getMessage());
+        }
+
+        List<NoteBatchResultDto> chunkResults = new ArrayList<>(chunk.size());
+        for (NoteBatchOperationDto operation : chunk) {
+            chunkResults.add(executeAlone(operation, currentUser));
+        }
+        return chunkResults;
+    }
+
+    private NoteBatchResultDto executeAlone(NoteBatchOperationDto operation, User currentUser) {
+        try {
+            return transactionTemplate.execute(status ->
+                    checkAndExecute(operation, currentUser, noteIdsByClientId(List.of(operation), currentUser)));
+        } catch (RuntimeException e) {
+            NoteBatchResultDto expected = expectedFailure(operation, e);
+            if (expected != null) {
+                return expected;
+            }
+            // Même création rejouée en parallèle (deux envois de la file hors ligne) : l'autre envoi
+            // l'a validée entre la lecture des clientId et l'insertion, sa note est renvoyée
+            if (operation.getType() == NoteBatchOperationDto.Type.CREATE && isClientIdConflict(e)) {
+                Optional<NoteBatchResultDto> replayed = transactionTemplate.execute(status ->
+                        existingNote(operation, noteIdsByClientId(List.of(operation), currentUser))
+                                .map(note -> success(operation, 200, noteMapper.toDto(note))));
+                if (replayed != null && replayed.isPresent()) {
+                    return replayed.get();
+                }
+            }
+            logger.error("Batch operation {} ({}) failed for user {}: {}",
+                    operation.getClientId(), operation.getType(), currentUser.getEmail(), e.getMessage());
+            return failure(operation, 500, "Erreur lors de l'application de l'opération");
+        }
+    }
+
+    // Vérifications faites ici, hors des méthodes transactionnelles de NoteService : une exception levée par
+    // celles-ci marquerait la transaction de la tranche pour annulation, pas une exception levée ici
+    private NoteBatchResultDto checkAndExecute(NoteBatchOperationDto operation, User currentUser,
+                                               Map<String, Long> noteIds) {
+        try {
+            check(operation, currentUser, noteIds);
+        } catch (RuntimeException e) {
+            NoteBatchResultDto expected = expectedFailure(operation, e);
+            if (expected == null) {
+                throw e;
+            }
+            return expected;
+        }
+        return execute(operation, currentUser, noteIds);
+    }
+
+    private void check(NoteBatchOperationDto operation, User currentUser, Map<String, Long> noteIds) {
+        switch (operation.getType()) {
+            case CREATE:
+                if (existingNote(operation, noteIds).isEmpty()) {
+                    validate(operation.toCreateDto());
+                }
+                break;
+            case UPDATE:
+                validate(operation.toUpdateDto());
+                checkTarget(targetId(operation, noteIds), currentUser, operation.getVersion(),
+                        "Vous ne pouvez modifier que vos propres notes");
+                break;
+            case DELETE:
+                checkTarget(targetId(operation, noteIds), currentUser, null,
+                        "Vous ne pouvez supprimer que vos propres notes");
+                break;
+            default:
+                throw new IllegalArgumentException("Type d'opération inconnu : " + operation.getType());
+        }
+    }
+
+    // Mêmes règles que NoteService.updateNote / deleteNote ; la note reste dans le contexte de persistance
+    private void checkTarget(Long id, User currentUser, Long expectedVersion, String forbiddenMessage) {
+        Note note = noteRepository.findById(id)
+                .orElseThrow(() -> new NoteNotFoundException(id));
+        if (!note.getOwner().equals(currentUser)) {
+            throw new UnauthorizedAccessException(id, "note", forbiddenMessage);
+        }
+        if (expectedVersion != null && !expectedVersion.equals(note.getVersion())) {
+            throw new NoteVersionConflictException(id, note.getVersion());
+        }
+    }
+
+    // Échec attendu d'une opération, avec son statut ; null pour une erreur inattendue
+    private NoteBatchResultDto expectedFailure(NoteBatchOperationDto operation, RuntimeException e) {
+        if (e instanceof NoteNotFoundException) {
+            return failure(operation, 404, e.getMessage());
+        }
+        if (e instanceof UnauthorizedAccessException) {
+            return failure(operation, 403, e.getMessage());
+        }
+        if (e instanceof NoteVersionConflictException || e instanceof ObjectOptimisticLockingFailureException) {
+            return failure(operation, 412, e.getMessage());
+        }
+        if (e instanceof IllegalArgumentException) {
+            return failure(operation, 400, e.getMessage());
+        }
+        return null;
+    }
+
+    private static boolean isClientIdConflict(RuntimeException e) {
+        if (!(e instanceof DataIntegrityViolationException violation)) {
+            return false;
+        }
+        String message = violation.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase().contains(CLIENT_ID_CONSTRAINT);
+    }
+
+    // Exécution dans la transaction courante, après check ; toute erreur annule la transaction
+    // noteIds : notes du propriétaire par clientId, tenu à jour au fil des opérations de la tranche
+    private NoteBatchResultDto execute(NoteBatchOperationDto operation, User currentUser, Map<String, Long> noteIds) {
+        switch (operation.getType()) {
+            case CREATE: {
+                // Création déjà appliquée lors d'un envoi précédent : rejeu sans doublon
+                Optional<Note> existing = existingNote(operation, noteIds);
+                if (existing.isPresent()) {
+                    return success(operation, 200, noteMapper.toDto(existing.get()));
+                }
+                NoteDto created = noteService.createNote(operation.toCreateDto(), currentUser, operation.getClientId());
+                noteIds.put(operation.getClientId(), created.getId());
+                return success(operation, 201, created);
+            }
+            case UPDATE: {
+                NoteDto updated = noteService.updateNote(targetId(operation, noteIds), operation.toUpdateDto(),
+                        currentUser, operation.getVersion());
+                return success(operation, 200, updated);
+            }
+            case DELETE: {
+                Long id = targetId(operation, noteIds);
+                noteService.deleteNote(id, currentUser);
+                noteIds.values().remove(id);
+                return new NoteBatchResultDto(operation.getClientId(), operation.getType(), 204, id, null, null);
+            }
+            default:
+                throw new IllegalArgumentException("Type d'opération inconnu : " + operation.getType());
+        }
+    }
+
+    // Note déjà créée pour ce clientId (déjà chargée dans le contexte de persistance : pas de requête)
+    private Optional<Note> existingNote(NoteBatchOperationDto operation, Map<String, Long> noteIds) {
+        Long existingId = noteIds.get(operation.getClientId());
+        return existingId != null ? noteRepository.findById(existingId) : Optional.empty();
+    }
+
+    // Notes existantes pour les clientId des opérations, en une requête
+    private Map<String, Long> noteIdsByClientId(List<NoteBatchOperationDto> operations, User currentUser) {
+        Set<String> clientIds = operations.stream()
+                .map(NoteBatchOperationDto::getClientId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<String, Long> noteIds = new HashMap<>();
+        if (!clientIds.isEmpty()) {
+            for (Object[] row : noteRepository.findIdsByOwnerIdAndClientIdIn(currentUser.getId(), clientIds)) {
+                noteIds.put((String) row[0], (Long) row[1]);
+            }
+        }
+        return noteIds;
+    }
+
+    // Note visée : id serveur, ou note créée hors ligne avec ce clientId (éventuellement dans le même lot)
+    private Long targetId(NoteBatchOperationDto operation, Map<String, Long> noteIds) {
+        if (operation.getId() != null) {
+            return operation.getId();
+        }
+        Long id = noteIds.get(operation.getClientId());
+        if (id == null) {
+            throw new IllegalArgumentException(
+                    "Aucune note ne correspond à l'identifiant client " + operation.getClientId());
+        }
+        return id;
+    }
+
+    private void validate(Object dto) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private NoteBatchResultDto success(NoteBatchOperationDto operation, int status, NoteDto note) {
+        return new NoteBatchResultDto(operation.getClientId(), operation.getType(), status, note.getId(), note, null);
+    }
+
+    private NoteBatchResultDto failure(NoteBatchOperationDto operation, int status, String error) {
+        return new NoteBatchResultDto(operation.getClientId(), operation.getType(), status, operation.getId(), null, error);
+    }
+}
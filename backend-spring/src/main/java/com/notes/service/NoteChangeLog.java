@@ -0,0 +1,306 @@
+package com.notes.service;
+
+import com.notes.dto.note.NoteChangesDto;
+import com.notes.dto.note.NoteDto;
+import com.notes.dto.pagination.ChangeCursor;
+import com.notes.mapper.NoteMapper;
+import com.notes.model.Note;
+import com.notes.model.NoteAccess;
+import com.notes.model.NoteChangeType;
+import com.notes.model.User;
+import com.notes.repository.NoteAccessRepository;
+import com.notes.repository.NoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Journal des modifications de notes (note_changes) et flux de synchronisation incrémentale
+// Les entrées sont écrites dans la transaction de la modification, juste avant son commit et en un
+// seul lot, une par utilisateur ayant accès (l'utilisateur 0 pour les notes publiques). La lecture regroupe les entrées par note et
+// renvoie l'état courant : note accessible -> upserted, sinon -> removed (tombstone).
+// Les identifiants sont attribués avant le commit : les entrées plus récentes que la fenêtre de
+// stabilisation ne sont pas lues, pour qu'une transaction lente ne soit pas dépassée par le curseur.
+// Les entrées sont insérées juste avant le commit et datées comme la fenêtre est calculée, avec
+// l'horloge de la base (DatabaseClock) : la fenêtre ne couvre que la durée du commit, sans dépendre
+// de la durée de la transaction ni de l'horloge de chaque instance.
+@Service
+public class NoteChangeLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteChangeLog.class);
+
+    // changed_at : horloge de la base au moment de l'insertion, juste avant le commit
+    private static final String INSERT_SQL =
+            "INSERT INTO note_changes (note_id, user_id, change_type, changed_at) VALUES (?, ?, ?, %s)";
+
+    private static final String CHANGES_SQL =
+            "SELECT id, note_id, changed_at FROM note_changes " +
+            "WHERE user_id IN (?, 0) AND id > ? AND changed_at <= ? ORDER BY id LIMIT ?";
+
+    private static final String HEAD_SQL =
+            "SELECT COALESCE(MAX(id), 0) FROM note_changes WHERE changed_at <= ?";
+
+    private static final String PURGE_SQL = "DELETE FROM note_changes WHERE changed_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NoteAccessRepository noteAccessRepository;
+    private final NoteRepository noteRepository;
+    private final NoteMapper noteMapper;
+    private final EventStreamService eventStreamService;
+    private final DatabaseClock databaseClock;
+
+    // Clé des entrées différées de la transaction courante
+    private final Object pendingChangesKey = new Object();
+
+    // Délai maximal attendu entre l'insertion d'une entrée (juste avant le commit) et le commit
+    @Value("${notes.sync.settle-ms:5000}")
+    private long settleMs;
+
+    @Value("${notes.sync.retention-days:30}")
+    private int retentionDays;
+
+    public NoteChangeLog(JdbcTemplate jdbcTemplate, NoteAccessRepository noteAccessRepository,
+                         NoteRepository noteRepository, NoteMapper noteMapper,
+                         EventStreamService eventStreamService, DatabaseClock databaseClock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.noteAccessRepository = noteAccessRepository;
+        this.noteRepository = noteRepository;
+        this.noteMapper = noteMapper;
+        this.eventStreamService = eventStreamService;
+        this.databaseClock = databaseClock;
+    }
+
+    // Note créée ou modifiée : une entrée pour chaque utilisateur y ayant accès
+    // Les destinataires sont lus au moment de l'écriture, après les accès de la transaction
+    public void recordNoteUpdated(Long noteId) {
+        stage(new PendingChange(noteId, null, NoteChangeType.UPSERT));
+    }
+
+    // Accès retiré (suppression, partage révoqué, note devenue privée)
+    public void recordRemoved(Long noteId, Collection<Long> userIds) {
+        if (!userIds.isEmpty()) {
+            stage(new PendingChange(noteId, List.copyOf(userIds), NoteChangeType.REMOVE));
+        }
+    }
+
+    // Écriture immédiate des entrées en attente dans la transaction courante (appelé par NoteAccessService)
+    void flushPending() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            @SuppressWarnings("unchecked")
+            List<PendingChange> pending = (List<PendingChange>) TransactionSynchronizationManager.getResource(pendingChangesKey);
+            if (pending != null) {
+                write(pending);
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public NoteChangesDto getChanges(User currentUser, String since, int limit) {
+        ChangeCursor cursor = ChangeCursor.decode(since);
+        LocalDateTime now = databaseClock.now();
+        LocalDateTime settledBefore = now.minusNanos(settleMs * 1_000_000L);
+
+        // Première synchronisation ou entrées suivantes déjà purgées : rechargement complet
+        if (cursor == null || cursor.getWatermark().isBefore(retentionStart(now).plusNanos(settleMs * 1_000_000L))) {
+            Long head = jdbcTemplate.queryForObject(HEAD_SQL, Long.class, Timestamp.valueOf(settledBefore));
+            ChangeCursor restart = new ChangeCursor(head != null ? head : 0L, settledBefore);
+            return new NoteChangesDto(new ArrayList<>(), new ArrayList<>(), restart.encode(), false, true);
+        }
+
+        List<Object[]> rows = jdbcTemplate.query(CHANGES_SQL,
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getTimestamp(3).toLocalDateTime()},
+                currentUser.getId(), cursor.getLastId(), Timestamp.valueOf(settledBefore), limit + 1);
+
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+
+        Long lastId = cursor.getLastId();
+        // Sans suite, toute entrée non lue a été écrite après la fenêtre de stabilisation
+        LocalDateTime watermark = settledBefore;
+        Set<Long> noteIds = new LinkedHashSet<>();
+        for (Object[] row : rows) {
+            lastId = (Long) row[0];
+            noteIds.add((Long) row[1]);
+            if (hasMore) {
+                watermark = (LocalDateTime) row[2];
+            }
+        }
+
+        List<NoteDto> upserted = new ArrayList<>();
+        if (!noteIds.isEmpty()) {
+            for (Note note : noteRepository.findAccessibleByIds(noteIds, currentUser.getId())) {
+                upserted.add(noteMapper.toDto(note));
+                noteIds.remove(note.getId());
+            }
+        }
+
+        String nextCursor = new ChangeCursor(lastId, watermark).encode();
+        return new NoteChangesDto(upserted, new ArrayList<>(noteIds), nextCursor, hasMore, false);
+    }
+
+    // Purge des entrées plus anciennes que la rétention (les curseurs concernés reçoivent resetRequired)
+    @Scheduled(cron = "${notes.sync.purge-cron:0 30 3 * * *}")
+    public void purge() {
+        int deleted = jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(retentionStart(databaseClock.now())));
+        logger.info("Purged {} note change entries older than {} days", deleted, retentionDays);
+    }
+
+    private LocalDateTime retentionStart(LocalDateTime now) {
+        return now.minusDays(retentionDays);
+    }
+
+    // Entrée différée à la fin de la transaction ; immédiate hors transaction
+    private void stage(PendingChange change) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(new ArrayList<>(List.of(change)));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<PendingChange> pending = (List<PendingChange>) TransactionSynchronizationManager.getResource(pendingChangesKey);
+        if (pending == null) {
+            List<PendingChange> created = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(pendingChangesKey, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return NoteAccessService.WRITE_ORDER + 1;
+                }
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    write(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendingChangesKey);
+                }
+            });
+            pending = created;
+        }
+        pending.add(change);
+    }
+
+    // Une requête pour les destinataires, un lot d'insertions pour toutes les entrées de la transaction
+    private void write(List<PendingChange> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<PendingChange> changes = new ArrayList<>(pending);
+        pending.clear();
+
+        Set<Long> updatedNoteIds = new LinkedHashSet<>();
+        for (PendingChange change : changes) {
+            if (change.userIds == null) {
+                updatedNoteIds.add(change.noteId);
+            }
+        }
+        Map<Long, List<Long>> accessByNote = new LinkedHashMap<>();
+        if (!updatedNoteIds.isEmpty()) {
+            for (Object[] row : noteAccessRepository.findNoteAndUserIdsByNoteIdIn(updatedNoteIds)) {
+                accessByNote.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((Long) row[1]);
+            }
+        }
+
+        // Une entrée par (note, type, utilisateur), même si la note a été modifiée plusieurs fois
+        Map<Long, Map<NoteChangeType, Set<Long>>> recipients = new LinkedHashMap<>();
+        for (PendingChange change : changes) {
+            Collection<Long> userIds = change.userIds != null
+                    ? change.userIds : accessByNote.getOrDefault(change.noteId, List.of());
+            if (!userIds.isEmpty()) {
+                recipients.computeIfAbsent(change.noteId, id -> new LinkedHashMap<>())
+                        .computeIfAbsent(change.changeType, type -> new LinkedHashSet<>())
+                        .addAll(userIds);
+            }
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        recipients.forEach((noteId, byType) -> byType.forEach((changeType, userIds) ->
+                userIds.forEach(userId -> rows.add(new Object[]{noteId, userId, changeType}))));
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        String insertSql = String.format(INSERT_SQL, databaseClock.nowSql());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(insertSql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Object[] row = rows.get(i);
+                        ps.setLong(1, (Long) row[0]);
+                        ps.setLong(2, (Long) row[1]);
+                        ps.setString(3, ((NoteChangeType) row[2]).name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keyHolder);
+
+        // Notification SSE des utilisateurs concernés ; pas de diffusion à tous pour les notes publiques
+        // L'identifiant de l'entrée sert d'identifiant d'événement (reprise depuis n'importe quelle instance)
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        Map<Long, Map<NoteChangeType, Map<Long, Long>>> events = new LinkedHashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            Long userId = (Long) row[1];
+            if (!userId.equals(NoteAccess.PUBLIC_USER_ID)) {
+                events.computeIfAbsent((Long) row[0], id -> new LinkedHashMap<>())
+                        .computeIfAbsent((NoteChangeType) row[2], type -> new LinkedHashMap<>())
+                        .put(userId, i < keys.size() ? changeId(keys.get(i)) : null);
+            }
+        }
+        events.forEach((noteId, byType) -> byType.forEach((changeType, changeIds) ->
+                eventStreamService.publish(changeIds, changeType == NoteChangeType.REMOVE
+                        ? EventStreamService.NOTE_REMOVED : EventStreamService.NOTE_CHANGED, noteId)));
+    }
+
+    // Clé générée : "id" sur PostgreSQL, "ID" sur H2
+    private static Long changeId(Map<String, Object> key) {
+        return key.values().stream()
+                .filter(Number.class::isInstance)
+                .map(value -> ((Number) value).longValue())
+                .findFirst()
+                .orElse(null);
+    }
+
+    // Entrée en attente ; userIds null : utilisateurs ayant accès à la note au moment de l'écriture
+    private static final class PendingChange {
+
+        private final Long noteId;
+        private final List<Long> userIds;
+        private final NoteChangeType changeType;
+
+        private PendingChange(Long noteId, List<Long> userIds, NoteChangeType changeType) {
+            this.noteId = noteId;
+            this.userIds = userIds;
+            this.changeType = changeType;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.notes.service;
+
+import com.notes.dto.revision.NoteRevisionDto;
+import com.notes.dto.revision.RevisionDiffDto;
+import com.notes.exception.NoteNotFoundException;
+import com.notes.exception.UnauthorizedAccessException;
+import com.notes.model.Note;
+import com.notes.model.NoteRevision;
+import com.notes.model.NoteRevisionKind;
+import com.notes.model.User;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.NoteRevisionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Historique des révisions de notes (note_revisions)
+// Chaque modification du titre ou du contenu crée une révision : un SNAPSHOT (contenu complet
+// compressé) toutes les snapshot-interval révisions, ou dès que le delta dépasse max-delta-ratio
+// du contenu compressé ; sinon un DELTA par rapport au dernier SNAPSHOT. Reconstruire une révision
+// demande donc au plus une décompression du SNAPSHOT et une application de delta.
+@Service
+public class NoteRevisionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteRevisionService.class);
+
+    private final NoteRevisionRepository noteRevisionRepository;
+    private final NoteRepository noteRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${notes.revisions.snapshot-interval:20}")
+    private int snapshotInterval;
+
+    @Value("${notes.revisions.max-delta-ratio:0.5}")
+    private double maxDeltaRatio;
+
+    @Value("${notes.revisions.coalesce-ms:60000}")
+    private long coalesceMs;
+
+    @Value("${notes.revisions.compact-after-days:7}")
+    private int compactAfterDays;
+
+    @Value("${notes.revisions.retention-days:180}")
+    private int retentionDays;
+
+    @Value("${notes.revisions.maintenance-batch-size:500}")
+    private int maintenanceBatchSize;
+
+    public NoteRevisionService(NoteRevisionRepository noteRevisionRepository, NoteRepository noteRepository,
+                               TransactionTemplate transactionTemplate) {
+        this.noteRevisionRepository = noteRevisionRepository;
+        this.noteRepository = noteRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Première révision d'une note créée dans la transaction : SNAPSHOT n°1, sans lecture de
+    // l'historique (une requête sur note_revisions forcerait le flush des insertions en attente)
+    public void recordInitial(Note note, User author) {
+        String content = contentOf(note.getContentMd());
+
+        NoteRevision revision = new NoteRevision(note.getId(), 1, author.getId());
+        revision.setKind(NoteRevisionKind.SNAPSHOT);
+        revision.setPayload(TextDelta.compress(content));
+        revision.setTitle(note.getTitle());
+        revision.setContentLength(content.length());
+        revision.setCreatedAt(LocalDateTime.now());
+
+        noteRevisionRepository.save(revision);
+    }
+
+    // Enregistrement de l'état courant de la note, dans la transaction de la modification
+    public void record(Note note, User author) {
+        String content = contentOf(note.getContentMd());
+        LocalDateTime now = LocalDateTime.now();
+
+        NoteRevision latest = noteRevisionRepository.findFirstByNoteIdOrderByRevisionDesc(note.getId()).orElse(null);
+        NoteRevision snapshot = null;
+        if (latest != null) {
+            snapshot = latest.isSnapshot()
+                    ? latest
+                    : noteRevisionRepository.findById(latest.getBaseRevisionId()).orElse(null);
+        }
+
+        // Sauvegardes automatiques rapprochées du même auteur : la dernière révision est réécrite
+        // (seul un DELTA peut l'être, aucune autre révision n'en dépend). La fenêtre part de la
+        // création de la révision, qui n'est pas déplacée : une session d'édition continue produit
+        // une révision par coalesce-ms, pas une seule
+        boolean coalesce = latest != null && !latest.isSnapshot() && snapshot != null
+                && Objects.equals(latest.getAuthorId(), author.getId())
+                && latest.getCreatedAt().isAfter(now.minusNanos(coalesceMs * 1_000_000L));
+
+        NoteRevision revision = coalesce
+                ? latest
+                : new NoteRevision(note.getId(), latest != null ? latest.getRevision() + 1 : 1, author.getId());
+
+        byte[] full = TextDelta.compress(content);
+        byte[] delta = null;
+        if (snapshot != null && (coalesce || noteRevisionRepository.countByBaseRevisionId(snapshot.getId()) + 1 < snapshotInterval)) {
+            delta = TextDelta.encode(TextDelta.decompress(snapshot.getPayload()), content);
+        }
+
+        if (delta != null && delta.length < full.length * maxDeltaRatio) {
+            revision.setKind(NoteRevisionKind.DELTA);
+            revision.setBaseRevisionId(snapshot.getId());
+            revision.setPayload(delta);
+        } else {
+            revision.setKind(NoteRevisionKind.SNAPSHOT);
+            revision.setBaseRevisionId(null);
+            revision.setPayload(full);
+        }
+        revision.setTitle(note.getTitle());
+        revision.setContentLength(content.length());
+        if (!coalesce) {
+            revision.setCreatedAt(now);
+        }
+
+        noteRevisionRepository.save(revision);
+    }
+
+    // Suppression de l'historique avec la note (la clé étrangère s'en charge sous PostgreSQL)
+    public void removeNote(Long noteId) {
+        noteRevisionRepository.deleteByNoteId(noteId);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<NoteRevisionDto> getRevisions(Long noteId, User currentUser, Pageable pageable) {
+        checkAccess(noteId, currentUser);
+        return noteRevisionRepository.findSummariesByNoteId(noteId, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public NoteRevisionDto getRevision(Long noteId, Integer revisionNumber, User currentUser) {
+        checkAccess(noteId, currentUser);
+        NoteRevision revision = findRevision(noteId, revisionNumber);
+
+        NoteRevisionDto revisionDto = new NoteRevisionDto(revision.getRevision(), revision.getTitle(),
+                revision.getContentLength(), revision.getAuthorId(), revision.getCreatedAt());
+        revisionDto.setContentMd(reconstruct(revision));
+        return revisionDto;
+    }
+
+    @Transactional(readOnly = true)
+    public RevisionDiffDto diff(Long noteId, Integer from, Integer to, User currentUser) {
+        checkAccess(noteId, currentUser);
+        NoteRevision fromRevision = findRevision(noteId, from);
+        NoteRevision toRevision = findRevision(noteId, to);
+
+        return new RevisionDiffDto(from, to,
+                !Objects.equals(fromRevision.getTitle(), toRevision.getTitle()),
+                TextDelta.diff(reconstruct(fromRevision), reconstruct(toRevision)));
+    }
+
+    // Rétention et compaction : au-delà de compact-after-days, une révision conservée par heure ;
+    // au-delà de retention-days, suppression. Les DELTA dont le SNAPSHOT disparaît sont rebasés.
+    // Seules les notes ayant encore des DELTA non compactés ou des révisions à supprimer sont visitées,
+    // par pages d'identifiants ; le contenu n'est lu que pour les révisions à rebaser.
+    @Scheduled(cron = "${notes.revisions.maintenance-cron:0 0 4 * * *}")
+    public void maintain() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime compactBefore = now.minusDays(compactAfterDays);
+        LocalDateTime retainAfter = now.minusDays(retentionDays);
+
+        int notes = 0;
+        int deleted = 0;
+        int rebased = 0;
+        long afterNoteId = 0;
+        List<Long> noteIds;
+        do {
+            noteIds = noteRevisionRepository.findNoteIdsToMaintain(afterNoteId, compactBefore, retainAfter,
+                    PageRequest.of(0, maintenanceBatchSize));
+            for (Long noteId : noteIds) {
+                try {
+                    int[] counts = transactionTemplate.execute(status -> maintain(noteId, compactBefore, retainAfter));
+                    if (counts != null) {
+                        deleted += counts[0];
+                        rebased += counts[1];
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Revision maintenance failed for note {}: {}", noteId, e.getMessage());
+                }
+            }
+            notes += noteIds.size();
+            if (!noteIds.isEmpty()) {
+                afterNoteId = noteIds.get(noteIds.size() - 1);
+            }
+        } while (noteIds.size() == maintenanceBatchSize);
+        logger.info("Revision maintenance: {} notes visited, {} revisions deleted, {} rebased", notes, deleted, rebased);
+    }
+
+    private int[] maintain(Long noteId, LocalDateTime compactBefore, LocalDateTime retainAfter) {
+        // La dernière révision reflète l'état courant de la note : toujours conservée
+        Integer latest = noteRevisionRepository.findLatestRevision(noteId).orElse(null);
+        if (latest == null) {
+            return new int[]{0, 0};
+        }
+
+        // Candidates sans contenu : id, revision, kind, baseRevisionId, createdAt
+        Set<Long> deletedIds = new HashSet<>();
+        Set<Long> deletedSnapshotIds = new HashSet<>();
+        Map<LocalDateTime, Long> lastOfHour = new HashMap<>();
+        for (Object[] candidate : noteRevisionRepository.findMaintenanceCandidates(noteId, compactBefore, latest)) {
+            Long id = (Long) candidate[0];
+            boolean snapshot = candidate[2] == NoteRevisionKind.SNAPSHOT;
+            LocalDateTime createdAt = (LocalDateTime) candidate[4];
+            if (createdAt.isBefore(retainAfter)) {
+                deletedIds.add(id);
+                if (snapshot) {
+                    deletedSnapshotIds.add(id);
+                }
+            } else if (!snapshot) {
+                Long previous = lastOfHour.put(createdAt.truncatedTo(ChronoUnit.HOURS), id);
+                if (previous != null) {
+                    deletedIds.add(previous);
+                }
+            }
+        }
+
+        int rebased = 0;
+        if (!deletedSnapshotIds.isEmpty()) {
+            rebased = rebase(deletedSnapshotIds, deletedIds);
+        }
+        if (!deletedIds.isEmpty()) {
+            noteRevisionRepository.deleteAllByIdInBatch(deletedIds);
+        }
+        noteRevisionRepository.markCompacted(noteId, compactBefore, latest);
+        return new int[]{deletedIds.size(), rebased};
+    }
+
+    // Le premier DELTA conservé d'un SNAPSHOT supprimé devient SNAPSHOT, les suivants y sont rebasés
+    private int rebase(Set<Long> deletedSnapshotIds, Set<Long> deletedIds) {
+        List<NoteRevision> dependents = new ArrayList<>();
+        for (NoteRevision revision : noteRevisionRepository.findByBaseRevisionIdInOrderByRevisionAsc(deletedSnapshotIds)) {
+            if (!deletedIds.contains(revision.getId())) {
+                dependents.add(revision);
+            }
+        }
+        if (dependents.isEmpty()) {
+            return 0;
+        }
+
+        // Reconstruction avant modification : les anciens SNAPSHOT sont lus une fois chacun
+        Map<Long, NoteRevision> bases = new HashMap<>();
+        Set<Long> baseIds = new HashSet<>();
+        dependents.forEach(revision -> baseIds.add(revision.getBaseRevisionId()));
+        noteRevisionRepository.findAllById(baseIds).forEach(base -> bases.put(base.getId(), base));
+        Map<Long, String> contents = new HashMap<>();
+        for (NoteRevision revision : dependents) {
+            contents.put(revision.getId(), reconstruct(revision, bases.get(revision.getBaseRevisionId())));
+        }
+
+        Map<Long, NoteRevision> newBases = new HashMap<>();
+        for (NoteRevision revision : dependents) {
+            String content = contents.get(revision.getId());
+            NoteRevision newBase = newBases.get(revision.getBaseRevisionId());
+            if (newBase == null) {
+                newBases.put(revision.getBaseRevisionId(), revision);
+                revision.setKind(NoteRevisionKind.SNAPSHOT);
+                revision.setBaseRevisionId(null);
+                revision.setPayload(TextDelta.compress(content));
+            } else {
+                revision.setBaseRevisionId(newBase.getId());
+                revision.setPayload(TextDelta.encode(contents.get(newBase.getId()), content));
+            }
+        }
+        noteRevisionRepository.saveAll(dependents);
+        return dependents.size();
+    }
+
+    private String reconstruct(NoteRevision revision) {
+        if (revision.isSnapshot()) {
+            return TextDelta.decompress(revision.getPayload());
+        }
+        NoteRevision base = noteRevisionRepository.findById(revision.getBaseRevisionId())
+                .orElseThrow(() -> new IllegalStateException(
+                        "Révision de base introuvable pour la révision " + revision.getRevision()));
+        return reconstruct(revision, base);
+    }
+
+    private String reconstruct(NoteRevision revision, NoteRevision base) {
+        if (revision.isSnapshot()) {
+            return TextDelta.decompress(revision.getPayload());
+        }
+        return TextDelta.apply(TextDelta.decompress(base.getPayload()), revision.getPayload());
+    }
+
+    private NoteRevision findRevision(Long noteId, Integer revisionNumber) {
+        return noteRevisionRepository.findByNoteIdAndRevision(noteId, revisionNumber)
+                .orElseThrow(() -> new NoteNotFoundException(noteId,
+                        "Révision " + revisionNumber + " non trouvée pour la note: " + noteId));
+    }
+
+    // Historique lisible par toute personne ayant accès à la note
+    private void checkAccess(Long noteId, User currentUser) {
+        if (noteRepository.findAccessibleVersion(noteId, currentUser.getId()).isPresent()) {
+            return;
+        }
+        if (!noteRepository.existsById(noteId)) {
+            throw new NoteNotFoundException(noteId);
+        }
+        logger.warn("Unauthorized revision access attempt to note {} by user {}", noteId, currentUser.getEmail());
+        throw new UnauthorizedAccessException(noteId, "note", "Vous n'avez pas l'autorisation d'accéder à cette note");
+    }
+
+    private static String contentOf(String contentMd) {
+        return contentMd != null ? contentMd : "";
+    }
+}
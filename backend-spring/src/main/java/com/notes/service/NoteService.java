@@ -1,9 +1,18 @@
 package com.notes.service;
 
+import com.notes.config.BroadcastingCaffeineCache;
+import com.notes.config.CacheConfig;
+import com.notes.dto.note.NoteContentPatchDto;
 import com.notes.dto.note.NoteCreateDto;
 import com.notes.dto.note.NoteDto;
+import com.notes.dto.note.NoteSummaryDto;
+import com.notes.dto.note.NoteTagsPatchDto;
 import com.notes.dto.note.NoteUpdateDto;
+import com.notes.dto.pagination.CursorPageDto;
+import com.notes.dto.pagination.KeysetCursor;
+import com.notes.dto.tag.TagDto;
 import com.notes.exception.NoteNotFoundException;
+import com.notes.exception.NoteVersionConflictException;
 import com.notes.exception.UnauthorizedAccessException;
 import com.notes.mapper.NoteMapper;
 import com.notes.model.Note;
@@ -11,17 +20,30 @@ import com.notes.model.NoteVisibility;
 import com.notes.model.Tag;
 import com.notes.model.User;
 import com.notes.repository.NoteRepository;
-import com.notes.repository.TagRepository;
+import com.notes.repository.NoteTagRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,64 +51,138 @@ public class NoteService {
 
     private static final Logger logger = LoggerFactory.getLogger(NoteService.class);
 
+    private static final String SEARCH_MODE_FULLTEXT = "fulltext";
+
     private final NoteRepository noteRepository;
-    private final TagRepository tagRepository;
+    private final TagResolver tagResolver;
+    private final NoteTagRepository noteTagRepository;
     private final NoteMapper noteMapper;
-
-    public NoteService(NoteRepository noteRepository, TagRepository tagRepository, NoteMapper noteMapper) {
+    private final ViewCountAggregator viewCountAggregator;
+    private final ListingCountEstimator listingCountEstimator;
+    private final NoteAccessService noteAccessService;
+    private final TagUsageAccumulator tagUsageAccumulator;
+    private final NoteChangeLog noteChangeLog;
+    private final NoteRevisionService noteRevisionService;
+    private final Cache notesCache;
+    // Même cache sans report au commit : remplissage par les lectures (getNoteById)
+    private final BroadcastingCaffeineCache notesReadModel;
+    private final Cache publicLinksCache;
+
+    // Mode de recherche : "fulltext" (PostgreSQL) ou "like" (repli compatible H2)
+    @Value("${notes.search.mode:fulltext}")
+    private String searchMode;
+
+    public NoteService(NoteRepository noteRepository, TagResolver tagResolver,
+                       NoteTagRepository noteTagRepository, NoteMapper noteMapper,
+                       ViewCountAggregator viewCountAggregator, ListingCountEstimator listingCountEstimator,
+                       NoteAccessService noteAccessService, TagUsageAccumulator tagUsageAccumulator,
+                       NoteChangeLog noteChangeLog, NoteRevisionService noteRevisionService,
+                       CacheManager cacheManager) {
         this.noteRepository = noteRepository;
-        this.tagRepository = tagRepository;
+        this.tagResolver = tagResolver;
+        this.noteTagRepository = noteTagRepository;
         this.noteMapper = noteMapper;
+        this.viewCountAggregator = viewCountAggregator;
+        this.listingCountEstimator = listingCountEstimator;
+        this.noteAccessService = noteAccessService;
+        this.tagUsageAccumulator = tagUsageAccumulator;
+        this.noteChangeLog = noteChangeLog;
+        this.noteRevisionService = noteRevisionService;
+        this.notesCache = cacheManager.getCache(CacheConfig.NOTES);
+        this.notesReadModel = BroadcastingCaffeineCache.unwrap(notesCache);
+        this.publicLinksCache = cacheManager.getCache(CacheConfig.PUBLIC_LINKS);
     }
 
     // Création d'une nouvelle note
     @Transactional
     public NoteDto createNote(NoteCreateDto noteCreateDto, User currentUser) {
+        return createNote(noteCreateDto, currentUser, null);
+    }
+
+    // Création avec l'identifiant attribué hors ligne par le client (unique par propriétaire)
+    @Transactional
+    public NoteDto createNote(NoteCreateDto noteCreateDto, User currentUser, String clientId) {
         logger.info("Creating note: {} for user: {}", noteCreateDto.getTitle(), currentUser.getEmail());
 
         Note note = noteMapper.toEntity(noteCreateDto);
         note.setOwner(currentUser);
+        note.setClientId(clientId);
         note.setViewCount(0L);
         note.setIsFavorite(false);
 
         // Gestion des tags
         if (noteCreateDto.getTags() != null && !noteCreateDto.getTags().isEmpty()) {
-            List<Tag> tags = noteCreateDto.getTags().stream()
-                    .map(this::getOrCreateTag)
-                    .collect(Collectors.toList());
+            // Résolution groupée : nombre de requêtes indépendant du nombre de tags
+            List<Tag> tags = tagResolver.resolve(noteCreateDto.getTags());
             
             tags.forEach(tag -> note.addTag(tag));
+            tagUsageAccumulator.recordAttached(tags.stream().map(Tag::getId).collect(Collectors.toList()));
         }
 
         Note savedNote = noteRepository.save(note);
+        noteAccessService.syncCreatedNote(savedNote);
+        noteRevisionService.recordInitial(savedNote, currentUser);
         logger.info("Note created successfully with ID: {}", savedNote.getId());
 
         return noteMapper.toDto(savedNote);
     }
 
+    // Version courante d'une note accessible, sans chargement du contenu (If-None-Match)
+    // Vide si la note n'existe pas ou n'est pas accessible : l'appelant passe par getNoteById
+    @Transactional(readOnly = true)
+    public Optional<Long> findAccessibleNoteVersion(Long id, User currentUser) {
+        NoteDto cached = notesCache.get(id, NoteDto.class);
+        if (cached != null) {
+            return isAccessibleBy(cached, currentUser) ? Optional.ofNullable(cached.getVersion()) : Optional.empty();
+        }
+        return noteRepository.findAccessibleVersion(id, currentUser.getId());
+    }
+
     // Récupération d'une note par ID avec vérification d'accès
+    @Transactional(readOnly = true)
     public NoteDto getNoteById(Long id, User currentUser) {
         logger.info("Getting note with ID: {} for user: {}", id, currentUser.getEmail());
 
-        Note note = noteRepository.findById(id)
-                .orElseThrow(() -> new NoteNotFoundException(id));
+        // Modèle de lecture mis en cache, évincé à chaque écriture sur la note, ses partages ou ses liens
+        NoteDto cached = notesCache.get(id, NoteDto.class);
+        if (cached == null) {
+            // Remplissage immédiat, écarté si la note a été évincée depuis le relevé de la génération
+            // (reporté au commit de cette lecture, il pourrait suivre l'éviction d'un écrivain et lui survivre)
+            long generation = notesReadModel.generation(id);
+            Note note = noteRepository.findById(id)
+                    .orElseThrow(() -> new NoteNotFoundException(id));
+            cached = noteMapper.toDto(note);
+            // Compteur de vues relu à chaque consultation : les vidages n'ont pas à évincer la note
+            cached.setViewCount(null);
+            notesReadModel.putUnlessInvalidated(id, cached, generation);
+        }
 
         // Vérification des permissions d'accès
-        if (!note.isAccessibleBy(currentUser)) {
+        if (!isAccessibleBy(cached, currentUser)) {
             logger.warn("Unauthorized access attempt to note {} by user {}", id, currentUser.getEmail());
             throw new UnauthorizedAccessException(id, "note", "Vous n'avez pas l'autorisation d'accéder à cette note");
         }
 
-        // Incrémentation du compteur de vues
-        note.incrementViewCount();
-        noteRepository.save(note);
+        // Incrémentation du compteur de vues (écrit en différé par lots)
+        viewCountAggregator.recordView(id);
 
-        return noteMapper.toDto(note);
+        // Vues en attente relevées avant le compteur écrit : un vidage concurrent peut compter
+        // des vues deux fois le temps d'une requête, jamais les omettre
+        long pendingViews = viewCountAggregator.getPendingViews(id);
+        NoteDto noteDto = noteMapper.copy(cached);
+        noteDto.setViewCount(noteRepository.findViewCountById(id).orElse(0L) + pendingViews);
+        return noteDto;
     }
 
     // Mise à jour d'une note
     @Transactional
     public NoteDto updateNote(Long id, NoteUpdateDto noteUpdateDto, User currentUser) {
+        return updateNote(id, noteUpdateDto, currentUser, null);
+    }
+
+    // Mise à jour conditionnelle (If-Match) : refusée si la note a changé depuis la version lue
+    @Transactional
+    public NoteDto updateNote(Long id, NoteUpdateDto noteUpdateDto, User currentUser, Long expectedVersion) {
         logger.info("Updating note with ID: {} by user: {}", id, currentUser.getEmail());
 
         Note existingNote = noteRepository.findById(id)
@@ -98,29 +194,135 @@ public class NoteService {
             throw new UnauthorizedAccessException(id, "note", "Vous ne pouvez modifier que vos propres notes");
         }
 
+        // Écriture concurrente entre cette vérification et le commit : rejetée par Hibernate (version en WHERE)
+        if (expectedVersion != null && !expectedVersion.equals(existingNote.getVersion())) {
+            throw new NoteVersionConflictException(id, existingNote.getVersion());
+        }
+
+        String previousTitle = existingNote.getTitle();
+        String previousContent = existingNote.getContentMd();
+
         // Mise à jour des champs
         noteMapper.updateEntity(noteUpdateDto, existingNote);
         existingNote.setUpdatedAt(LocalDateTime.now());
 
         // Gestion des tags
         if (noteUpdateDto.getTags() != null) {
-            // Suppression des anciens tags
-            existingNote.getNoteTags().clear();
-            
-            // Ajout des nouveaux tags
-            List<Tag> tags = noteUpdateDto.getTags().stream()
-                    .map(this::getOrCreateTag)
-                    .collect(Collectors.toList());
-            
-            tags.forEach(tag -> existingNote.addTag(tag));
+            // Seules les associations ajoutées ou retirées sont écrites
+            applyTagDiff(existingNote, tagResolver.resolve(noteUpdateDto.getTags()));
         }
 
-        Note updatedNote = noteRepository.save(existingNote);
+        // Flush immédiat : la version renvoyée (ETag) est celle écrite
+        Note updatedNote = noteRepository.saveAndFlush(existingNote);
+        noteAccessService.syncNote(updatedNote);
+        if (!Objects.equals(previousTitle, updatedNote.getTitle())
+                || !Objects.equals(previousContent, updatedNote.getContentMd())) {
+            noteRevisionService.record(updatedNote, currentUser);
+        }
+        notesCache.evict(id);
         logger.info("Note updated successfully with ID: {}", updatedNote.getId());
 
         return noteMapper.toDto(updatedNote);
     }
 
+    // Modification partielle du contenu par remplacements de plages, contre la version baseVersion
+    // Seul le delta transite ; content_md, updated_at et version sont les seules colonnes écrites
+    @Transactional
+    public Long patchNoteContent(Long id, NoteContentPatchDto patchDto, User currentUser) {
+        logger.info("Patching content of note {} ({} edits) by user {}", id, patchDto.getEdits().size(),
+                currentUser.getEmail());
+
+        Note note = noteRepository.findById(id)
+                .orElseThrow(() -> new NoteNotFoundException(id));
+
+        // Vérification que l'utilisateur est le propriétaire
+        if (!note.getOwner().equals(currentUser)) {
+            logger.warn("Unauthorized content patch attempt to note {} by user {}", id, currentUser.getEmail());
+            throw new UnauthorizedAccessException(id, "note", "Vous ne pouvez modifier que vos propres notes");
+        }
+
+        // Les plages désignent des positions du contenu de baseVersion : toute autre version est rejetée
+        if (!patchDto.getBaseVersion().equals(note.getVersion())) {
+            throw new NoteVersionConflictException(id, note.getVersion());
+        }
+
+        String content = note.getContentMd() != null ? note.getContentMd() : "";
+        String patched = applyEdits(content, patchDto.getEdits());
+        if (patched.equals(content)) {
+            return note.getVersion();
+        }
+
+        note.setContentMd(patched);
+        note.setUpdatedAt(LocalDateTime.now());
+
+        // Flush immédiat : la version renvoyée (ETag) est celle écrite
+        Note updatedNote = noteRepository.saveAndFlush(note);
+        noteChangeLog.recordNoteUpdated(id);
+        noteRevisionService.record(updatedNote, currentUser);
+        notesCache.evict(id);
+        logger.info("Content of note {} patched, version {}", id, updatedNote.getVersion());
+
+        return updatedNote.getVersion();
+    }
+
+    // Ajout et retrait de tags sans renvoyer la liste complète
+    @Transactional
+    public List<TagDto> patchNoteTags(Long id, NoteTagsPatchDto noteTagsPatchDto, User currentUser) {
+        logger.info("Patching tags of note {} by user {}", id, currentUser.getEmail());
+
+        Note note = noteRepository.findById(id)
+                .orElseThrow(() -> new NoteNotFoundException(id));
+
+        // Vérification que l'utilisateur est le propriétaire
+        if (!note.getOwner().equals(currentUser)) {
+            logger.warn("Unauthorized tag update attempt to note {} by user {}", id, currentUser.getEmail());
+            throw new UnauthorizedAccessException(id, "note", "Vous ne pouvez modifier que vos propres notes");
+        }
+
+        Set<Long> removedIds = tagResolver.resolveExisting(noteTagsPatchDto.getRemove()).stream()
+                .map(Tag::getId)
+                .collect(Collectors.toSet());
+        List<Tag> added = tagResolver.resolve(noteTagsPatchDto.getAdd());
+
+        // Un libellé présent dans les deux listes reste associé
+        added.forEach(tag -> removedIds.remove(tag.getId()));
+
+        Set<Long> currentIds = new HashSet<>();
+        List<Long> detachedIds = new ArrayList<>();
+        note.getNoteTags().removeIf(noteTag -> {
+            Long tagId = noteTag.getTag().getId();
+            if (removedIds.contains(tagId)) {
+                detachedIds.add(tagId);
+                return true;
+            }
+            currentIds.add(tagId);
+            return false;
+        });
+        List<Long> attachedIds = new ArrayList<>();
+        for (Tag tag : added) {
+            if (currentIds.add(tag.getId())) {
+                note.addTag(tag);
+                attachedIds.add(tag.getId());
+            }
+        }
+
+        if (!detachedIds.isEmpty() || !attachedIds.isEmpty()) {
+            tagUsageAccumulator.recordDetached(detachedIds);
+            tagUsageAccumulator.recordAttached(attachedIds);
+            note.setUpdatedAt(LocalDateTime.now());
+            noteRepository.save(note);
+            noteChangeLog.recordNoteUpdated(id);
+            notesCache.evict(id);
+            logger.info("Tags updated for note {}", id);
+        }
+
+        List<TagDto> tags = new ArrayList<>();
+        for (Object[] row : noteTagRepository.findTagLabelsByNoteIds(List.of(id))) {
+            tags.add(new TagDto((Long) row[1], (String) row[2], null));
+        }
+        return tags;
+    }
+
     // Suppression d'une note
     @Transactional
     public void deleteNote(Long id, User currentUser) {
@@ -135,7 +337,17 @@ public class NoteService {
             throw new UnauthorizedAccessException(id, "note", "Vous ne pouvez supprimer que vos propres notes");
         }
 
+        List<Long> tagIds = note.getNoteTags().stream()
+                .map(noteTag -> noteTag.getTag().getId())
+                .collect(Collectors.toList());
+
+        noteAccessService.removeNote(id);
+        noteRevisionService.removeNote(id);
+        // Liens publics supprimés en cascade (collection chargée de toute façon par la cascade)
+        note.getPublicLinks().forEach(publicLink -> publicLinksCache.evict(publicLink.getUrlToken()));
         noteRepository.delete(note);
+        notesCache.evict(id);
+        tagUsageAccumulator.recordDetached(tagIds);
         logger.info("Note deleted successfully with ID: {}", id);
     }
 
@@ -149,7 +361,15 @@ public class NoteService {
 
         if (query != null && !query.trim().isEmpty()) {
             // Recherche par texte
-            if (visibility == NoteVisibility.PUBLIC) {
+            if (isFullTextSearchEnabled()) {
+                // Résultats triés par pertinence, le tri demandé est ignoré
+                Pageable rankedPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+                if (visibility == NoteVisibility.PUBLIC) {
+                    notes = noteRepository.fullTextSearchPublicNotes(query.trim(), rankedPageable);
+                } else {
+                    notes = noteRepository.fullTextSearchByOwner(currentUser.getId(), query.trim(), rankedPageable);
+                }
+            } else if (visibility == NoteVisibility.PUBLIC) {
                 notes = noteRepository.findPublicNotesBySearchTerm(query, pageable);
             } else {
                 notes = noteRepository.findByOwnerAndSearchTerm(currentUser, query, pageable);
@@ -172,6 +392,120 @@ public class NoteService {
         return notes.map(noteMapper::toDto);
     }
 
+    // Recherche et filtrage des notes (vue allégée pour les listes)
+    @Transactional(readOnly = true)
+    public Page<NoteSummaryDto> searchNoteSummaries(String query, String tag, NoteVisibility visibility,
+                                                    User currentUser, Pageable pageable) {
+        logger.info("Searching note summaries with query: {}, tag: {}, visibility: {} for user: {}", 
+                   query, tag, visibility, currentUser.getEmail());
+
+        Page<NoteSummaryDto> summaries;
+
+        if (query != null && !query.trim().isEmpty()) {
+            // Recherche par texte
+            if (isFullTextSearchEnabled()) {
+                Pageable rankedPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+                Page<Long> ids = visibility == NoteVisibility.PUBLIC
+                        ? noteRepository.fullTextSearchPublicIds(query.trim(), rankedPageable)
+                        : noteRepository.fullTextSearchIdsByOwner(currentUser.getId(), query.trim(), rankedPageable);
+                summaries = loadSummariesInOrder(ids);
+            } else if (visibility == NoteVisibility.PUBLIC) {
+                summaries = noteRepository.findPublicSummariesBySearchTerm(query, pageable);
+            } else {
+                summaries = noteRepository.findSummariesByOwnerAndSearchTerm(currentUser.getId(), query, pageable);
+            }
+        } else if (tag != null && !tag.trim().isEmpty()) {
+            // Recherche par tag
+            summaries = noteRepository.findSummariesByOwnerIdAndTagLabel(currentUser.getId(), tag, pageable);
+        } else if (visibility != null) {
+            // Filtrage par visibilité
+            if (visibility == NoteVisibility.PUBLIC) {
+                summaries = noteRepository.findSummariesByVisibility(visibility, pageable);
+            } else {
+                summaries = noteRepository.findSummariesByOwnerAndVisibility(currentUser.getId(), visibility, pageable);
+            }
+        } else {
+            // Récupération de toutes les notes accessibles
+            summaries = noteRepository.findSummariesAccessibleByUser(currentUser.getId(), pageable);
+        }
+
+        return withTags(summaries);
+    }
+
+    // Liste allégée paginée par curseur sur (updatedAt, id) : ni OFFSET ni COUNT
+    // Le total n'est fourni qu'à la demande, à partir d'un comptage fait en arrière-plan
+    @Transactional(readOnly = true)
+    public CursorPageDto<NoteSummaryDto> getNoteSummariesAfter(NoteVisibility visibility, User currentUser,
+                                                              String cursor, int size, boolean includeTotal) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        Pageable window = PageRequest.of(0, size);
+
+        Slice<NoteSummaryDto> summaries;
+        Long total = null;
+
+        if (visibility == NoteVisibility.PUBLIC) {
+            summaries = noteRepository.findSummariesByVisibilityAfter(
+                    visibility, position.getTimestamp(), position.getId(), window);
+            if (includeTotal) {
+                total = listingCountEstimator.estimate("notes:public",
+                        () -> noteRepository.countByVisibility(NoteVisibility.PUBLIC));
+            }
+        } else if (visibility != null) {
+            Long ownerId = currentUser.getId();
+            summaries = noteRepository.findSummariesByOwnerAndVisibilityAfter(
+                    ownerId, visibility, position.getTimestamp(), position.getId(), window);
+            if (includeTotal) {
+                total = listingCountEstimator.estimate("notes:" + ownerId + ":" + visibility,
+                        () -> noteRepository.countByOwnerIdAndVisibility(ownerId, visibility));
+            }
+        } else {
+            Long userId = currentUser.getId();
+            summaries = noteRepository.findSummariesAccessibleByUserAfter(
+                    userId, position.getTimestamp(), position.getId(), window);
+            if (includeTotal) {
+                total = listingCountEstimator.estimate("notes:" + userId + ":accessible",
+                        () -> noteRepository.countAccessibleByUser(userId));
+            }
+        }
+
+        withTags(summaries);
+
+        List<NoteSummaryDto> content = summaries.getContent();
+        String nextCursor = null;
+        if (summaries.hasNext() && !content.isEmpty()) {
+            NoteSummaryDto last = content.get(content.size() - 1);
+            nextCursor = new KeysetCursor(last.getUpdatedAt(), last.getId()).encode();
+        }
+
+        CursorPageDto<NoteSummaryDto> result = new CursorPageDto<>(content, nextCursor, summaries.hasNext(), size);
+        result.setTotalElements(total);
+        return result;
+    }
+
+    // Récupération des notes favorites (vue allégée)
+    @Transactional(readOnly = true)
+    public Page<NoteSummaryDto> getFavoriteNoteSummaries(User currentUser, Pageable pageable) {
+        logger.info("Getting favorite note summaries for user: {}", currentUser.getEmail());
+
+        return withTags(noteRepository.findFavoriteSummariesByOwner(currentUser.getId(), pageable));
+    }
+
+    // Récupération des notes partagées avec l'utilisateur (vue allégée)
+    @Transactional(readOnly = true)
+    public Page<NoteSummaryDto> getSharedNoteSummaries(User currentUser, Pageable pageable) {
+        logger.info("Getting shared note summaries for user: {}", currentUser.getEmail());
+
+        return withTags(noteRepository.findSummariesSharedWithUser(currentUser.getId(), pageable));
+    }
+
+    // Récupération des notes publiques (vue allégée)
+    @Transactional(readOnly = true)
+    public Page<NoteSummaryDto> getPublicNoteSummaries(Pageable pageable) {
+        logger.info("Getting public note summaries");
+
+        return withTags(noteRepository.findSummariesByVisibility(NoteVisibility.PUBLIC, pageable));
+    }
+
     // Récupération des notes favorites
     public Page<NoteDto> getFavoriteNotes(User currentUser, Pageable pageable) {
         logger.info("Getting favorite notes for user: {}", currentUser.getEmail());
@@ -211,6 +545,8 @@ public class NoteService {
 
         note.toggleFavorite();
         Note updatedNote = noteRepository.save(note);
+        noteChangeLog.recordNoteUpdated(id);
+        notesCache.evict(id);
 
         logger.info("Favorite status toggled for note {}", id);
         return noteMapper.toDto(updatedNote);
@@ -225,12 +561,96 @@ public class NoteService {
     }
 
     // Méthodes utilitaires
-    private Tag getOrCreateTag(String tagLabel) {
-        return tagRepository.findByLabel(tagLabel)
-                .orElseGet(() -> {
-                    Tag newTag = new Tag(tagLabel);
-                    return tagRepository.save(newTag);
-                });
+    // Même règle que Note.isAccessibleBy, appliquée au modèle de lecture (comparaison par identifiant)
+    private boolean isAccessibleBy(NoteDto note, User user) {
+        if (note.getOwnerId() != null && note.getOwnerId().equals(user.getId())) {
+            return true;
+        }
+        if (note.getVisibility() == NoteVisibility.PUBLIC) {
+            return true;
+        }
+        if (note.getVisibility() == NoteVisibility.SHARED && note.getShares() != null) {
+            // Partages révoqués ou expirés conservés dans le modèle en cache : ignorés
+            LocalDateTime now = LocalDateTime.now();
+            return note.getShares().stream()
+                    .anyMatch(share -> user.getId().equals(share.getSharedWithUserId())
+                            && Boolean.TRUE.equals(share.getIsActive())
+                            && (share.getExpiresAt() == null || !share.getExpiresAt().isBefore(now)));
+        }
+        return false;
+    }
+
+    // Différence entre les tags actuels et demandés : orphanRemoval ne supprime que les associations
+    // retirées, et seules les nouvelles sont insérées (les deux regroupées en lots au flush)
+    private void applyTagDiff(Note note, List<Tag> requested) {
+        Set<Long> requestedIds = requested.stream()
+                .map(Tag::getId)
+                .collect(Collectors.toSet());
+
+        Set<Long> currentIds = new HashSet<>();
+        List<Long> detachedIds = new ArrayList<>();
+        note.getNoteTags().removeIf(noteTag -> {
+            Long tagId = noteTag.getTag().getId();
+            if (!requestedIds.contains(tagId)) {
+                detachedIds.add(tagId);
+                return true;
+            }
+            currentIds.add(tagId);
+            return false;
+        });
+
+        List<Long> attachedIds = new ArrayList<>();
+        for (Tag tag : requested) {
+            if (currentIds.add(tag.getId())) {
+                note.addTag(tag);
+                attachedIds.add(tag.getId());
+            }
+        }
+
+        // Compteurs d'utilisation mis à jour après commit, par lots
+        tagUsageAccumulator.recordDetached(detachedIds);
+        tagUsageAccumulator.recordAttached(attachedIds);
+    }
+
+    // Chargement des tags de toute la page en une requête (au lieu d'une par note)
+    private <S extends Slice<NoteSummaryDto>> S withTags(S summaries) {
+        if (summaries.isEmpty()) {
+            return summaries;
+        }
+
+        Map<Long, NoteSummaryDto> byId = new HashMap<>();
+        summaries.forEach(summary -> byId.put(summary.getId(), summary));
+
+        for (Object[] row : noteTagRepository.findTagLabelsByNoteIds(byId.keySet())) {
+            NoteSummaryDto summary = byId.get((Long) row[0]);
+            summary.getTags().add(new TagDto((Long) row[1], (String) row[2], null));
+        }
+
+        return summaries;
+    }
+
+    // Projection des notes d'une page d'identifiants, en conservant l'ordre (rang plein texte)
+    private Page<NoteSummaryDto> loadSummariesInOrder(Page<Long> ids) {
+        if (ids.isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), ids.getPageable(), ids.getTotalElements());
+        }
+
+        Map<Long, NoteSummaryDto> byId = noteRepository.findSummariesByIds(ids.getContent()).stream()
+                .collect(Collectors.toMap(NoteSummaryDto::getId, Function.identity()));
+
+        List<NoteSummaryDto> ordered = new ArrayList<>();
+        for (Long id : ids.getContent()) {
+            NoteSummaryDto summary = byId.get(id);
+            if (summary != null) {
+                ordered.add(summary);
+            }
+        }
+
+        return new PageImpl<>(ordered, ids.getPageable(), ids.getTotalElements());
+    }
+
+    private boolean isFullTextSearchEnabled() {
+        return SEARCH_MODE_FULLTEXT.equalsIgnoreCase(searchMode);
     }
 
     // Vérification de l'existence d'une note
@@ -247,8 +667,34 @@ public class NoteService {
         return noteOpt.get().isAccessibleBy(user);
     }
 
-    // Récupération d'une note sans vérification d'accès (pour usage interne)
-    public Optional<Note> findNoteById(Long id) {
-        return noteRepository.findById(id);
+    // Récupération d'une note sans vérification d'accès (pour usage interne), mappée dans la transaction :
+    // propriétaire et tags sont chargés à la demande (open-in-view désactivé)
+    @Transactional(readOnly = true)
+    public Optional<NoteDto> findNoteDtoById(Long id) {
+        return noteRepository.findById(id).map(noteMapper::toDto);
+    }
+
+    // Remplacements appliqués en une passe ; plages triées, disjointes et dans les bornes du contenu
+    private static String applyEdits(String content, List<NoteContentPatchDto.Edit> edits) {
+        int added = 0;
+        for (NoteContentPatchDto.Edit edit : edits) {
+            added += edit.getText() != null ? edit.getText().length() : 0;
+        }
+
+        StringBuilder patched = new StringBuilder(content.length() + added);
+        int position = 0;
+        for (NoteContentPatchDto.Edit edit : edits) {
+            if (edit.getStart() < position || edit.getEnd() < edit.getStart() || edit.getEnd() > content.length()) {
+                throw new IllegalArgumentException("Plage de modification invalide [" + edit.getStart() + ", "
+                        + edit.getEnd() + ") pour un contenu de " + content.length() + " caractères");
+            }
+            patched.append(content, position, edit.getStart());
+            if (edit.getText() != null) {
+                patched.append(edit.getText());
+            }
+            position = edit.getEnd();
+        }
+        patched.append(content, position, content.length());
+        return patched.toString();
     }
-}
\ No newline at end of file
+}
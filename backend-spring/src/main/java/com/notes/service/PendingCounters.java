@@ -0,0 +1,85 @@
+package com.notes.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+// Deltas en attente d'écriture par identifiant (vues de notes, utilisation des tags)
+// L'incrément ne prend aucun verrou : lecture de la génération courante puis LongAdder (striping).
+// Le vidage remplace la génération courante par une vide au lieu de retirer des entrées, attend
+// la fin des incréments commencés sur l'ancienne, puis la lit en entier : aucun incrément perdu
+final class PendingCounters {
+
+    private volatile Generation current = new Generation();
+    // Génération en cours de vidage, encore comptée par get()
+    private volatile Generation draining;
+
+    void add(Long key, long delta) {
+        while (true) {
+            Generation generation = current;
+            generation.writers.increment();
+            try {
+                // Génération remplacée entre-temps : le vidage peut déjà l'avoir lue
+                if (generation != current) {
+                    continue;
+                }
+                LongAdder adder = generation.counters.get(key);
+                if (adder == null) {
+                    adder = generation.counters.computeIfAbsent(key, id -> new LongAdder());
+                }
+                adder.add(delta);
+                return;
+            } finally {
+                generation.writers.decrement();
+            }
+        }
+    }
+
+    // Delta en attente pour un identifiant (valeur approchée pendant un vidage)
+    long get(Long key) {
+        Generation old = draining;
+        return current.get(key) + (old != null ? old.get(key) : 0L);
+    }
+
+    Map<Long, Long> drain() {
+        return drain((key, delta) -> { });
+    }
+
+    // Retrait des deltas accumulés, non nuls ; à appeler sous le verrou de vidage de l'appelant
+    // beforeRemoval est appelé avec chaque delta avant qu'il ne quitte le compteur
+    Map<Long, Long> drain(BiConsumer<Long, Long> beforeRemoval) {
+        Generation old = current;
+        draining = old;
+        current = new Generation();
+
+        // Incréments commencés avant le remplacement : quelques instructions au plus
+        while (old.writers.sum() != 0) {
+            Thread.onSpinWait();
+        }
+
+        Map<Long, Long> deltas = new HashMap<>();
+        old.counters.forEach((key, adder) -> {
+            long delta = adder.sum();
+            if (delta != 0) {
+                beforeRemoval.accept(key, delta);
+                adder.add(-delta);
+                deltas.put(key, delta);
+            }
+        });
+        draining = null;
+        return deltas;
+    }
+
+    private static final class Generation {
+
+        private final Map<Long, LongAdder> counters = new ConcurrentHashMap<>();
+        private final LongAdder writers = new LongAdder();
+
+        private long get(Long key) {
+            LongAdder adder = counters.get(key);
+            return adder != null ? adder.sum() : 0L;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.notes.service;
 
+import com.notes.config.CacheConfig;
 import com.notes.dto.publiclink.PublicLinkCreateDto;
 import com.notes.dto.publiclink.PublicLinkDto;
+import com.notes.dto.publiclink.ResolvedPublicLink;
 import com.notes.exception.NoteNotFoundException;
 import com.notes.exception.PublicLinkNotFoundException;
 import com.notes.exception.UnauthorizedAccessException;
@@ -11,8 +13,12 @@ import com.notes.model.PublicLink;
 import com.notes.model.User;
 import com.notes.repository.NoteRepository;
 import com.notes.repository.PublicLinkRepository;
+import com.notes.security.JwtUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,13 +38,29 @@ public class PublicLinkService {
     private final NoteRepository noteRepository;
     private final PublicLinkMapper publicLinkMapper;
     private final PasswordEncoder passwordEncoder;
+    private final ViewCountAggregator viewCountAggregator;
+    private final JwtUtils jwtUtils;
+    private final PublicLinkTokenFilter tokenFilter;
+    private final Cache notesCache;
+    private final Cache publicLinksCache;
+
+    // Durée de validité de l'autorisation délivrée après saisie du mot de passe
+    @Value("${notes.public-links.grant-ttl-ms:900000}")
+    private long grantTtlMs;
 
     public PublicLinkService(PublicLinkRepository publicLinkRepository, NoteRepository noteRepository,
-                            PublicLinkMapper publicLinkMapper, PasswordEncoder passwordEncoder) {
+                            PublicLinkMapper publicLinkMapper, PasswordEncoder passwordEncoder,
+                            ViewCountAggregator viewCountAggregator, JwtUtils jwtUtils,
+                            PublicLinkTokenFilter tokenFilter, CacheManager cacheManager) {
         this.publicLinkRepository = publicLinkRepository;
         this.noteRepository = noteRepository;
         this.publicLinkMapper = publicLinkMapper;
         this.passwordEncoder = passwordEncoder;
+        this.viewCountAggregator = viewCountAggregator;
+        this.jwtUtils = jwtUtils;
+        this.tokenFilter = tokenFilter;
+        this.notesCache = cacheManager.getCache(CacheConfig.NOTES);
+        this.publicLinksCache = cacheManager.getCache(CacheConfig.PUBLIC_LINKS);
     }
 
     // Création d'un lien public
@@ -74,6 +96,9 @@ public class PublicLinkService {
         }
 
         PublicLink savedPublicLink = publicLinkRepository.save(publicLink);
+        tokenFilter.add(urlToken);
+        noteRepository.incrementVersion(noteId);
+        notesCache.evict(noteId);
         logger.info("Public link created successfully with token: {}", urlToken);
 
         return publicLinkMapper.toDto(savedPublicLink);
@@ -82,43 +107,60 @@ public class PublicLinkService {
     // Accès à une note via un lien public
     @Transactional
     public PublicLinkDto accessNoteByToken(String urlToken, String password) {
+        return accessNoteByToken(urlToken, password, null);
+    }
+
+    // accessGrant : autorisation délivrée lors d'un accès précédent avec le mot de passe (accessGrant du DTO)
+    @Transactional
+    public PublicLinkDto accessNoteByToken(String urlToken, String password, String accessGrant) {
         logger.info("Accessing note with public token: {}", urlToken);
 
-        PublicLink publicLink = publicLinkRepository.findByUrlToken(urlToken)
+        ResolvedPublicLink publicLink = resolvePublicLink(urlToken)
                 .orElseThrow(() -> new PublicLinkNotFoundException(urlToken));
 
-        // Vérification que le lien est valide
-        if (!publicLink.isValid()) {
-            if (publicLink.isExpired()) {
-                throw new PublicLinkNotFoundException(urlToken, "Ce lien public a expiré");
-            }
-            if (publicLink.getMaxAccessCount() != null && publicLink.getAccessCount() >= publicLink.getMaxAccessCount()) {
-                throw new PublicLinkNotFoundException(urlToken, "Ce lien public a atteint le nombre maximum d'accès");
-            }
+        // Vérification que le lien est valide (la limite d'accès est vérifiée par l'incrément ci-dessous)
+        if (publicLink.isExpired()) {
+            throw new PublicLinkNotFoundException(urlToken, "Ce lien public a expiré");
+        }
+        if (!Boolean.TRUE.equals(publicLink.getIsActive())) {
             throw new PublicLinkNotFoundException(urlToken, "Ce lien public n'est plus actif");
         }
 
-        // Vérification du mot de passe si nécessaire
-        if (publicLink.isPasswordProtected()) {
+        // Vérification du mot de passe si nécessaire, sauf autorisation encore valide (pas de nouveau BCrypt)
+        String issuedGrant = null;
+        if (publicLink.isPasswordProtected()
+                && !jwtUtils.isPublicLinkGrantValid(accessGrant, urlToken, publicLink.getPasswordHash())) {
             if (password == null || password.trim().isEmpty()) {
                 throw new RuntimeException("Ce lien public est protégé par un mot de passe");
             }
             if (!passwordEncoder.matches(password, publicLink.getPasswordHash())) {
                 throw new RuntimeException("Mot de passe incorrect");
             }
+            issuedGrant = jwtUtils.generatePublicLinkGrant(urlToken, publicLink.getPasswordHash(), grantTtlMs);
         }
 
-        // Incrémentation du compteur d'accès
-        publicLink.incrementAccessCount();
-        publicLinkRepository.save(publicLink);
+        // Incrémentation atomique du compteur d'accès : la limite est vérifiée par la base
+        // dans le même ordre UPDATE, les accès concurrents ne peuvent donc pas la dépasser
+        int granted = publicLinkRepository.incrementAccessCountIfAllowed(urlToken, LocalDateTime.now());
+        if (granted == 0) {
+            // Entrée du cache éventuellement périmée (lien supprimé avec sa note, par exemple)
+            publicLinksCache.evict(urlToken);
+            if (!publicLinkRepository.existsByUrlToken(urlToken)) {
+                throw new PublicLinkNotFoundException(urlToken);
+            }
+            throw new PublicLinkNotFoundException(urlToken, "Ce lien public a atteint le nombre maximum d'accès");
+        }
+
+        // Incrémentation du compteur de vues de la note (écrit en différé par lots)
+        viewCountAggregator.recordView(publicLink.getNoteId());
 
-        // Incrémentation du compteur de vues de la note
-        Note note = publicLink.getNote();
-        note.incrementViewCount();
-        noteRepository.save(note);
+        PublicLinkDto publicLinkDto = publicLinkMapper.toDto(publicLink);
+        noteRepository.findTitleById(publicLink.getNoteId()).ifPresent(publicLinkDto::setNoteTitle);
+        publicLinkRepository.findAccessCountByUrlToken(urlToken).ifPresent(publicLinkDto::setAccessCount);
+        publicLinkDto.setAccessGrant(issuedGrant);
 
         logger.info("Note accessed successfully via public link: {}", urlToken);
-        return publicLinkMapper.toDto(publicLink);
+        return publicLinkDto;
     }
 
     // Récupération des liens publics d'une note
@@ -155,6 +197,9 @@ public class PublicLinkService {
         }
 
         publicLinkRepository.delete(publicLink);
+        noteRepository.incrementVersion(publicLink.getNote().getId());
+        notesCache.evict(publicLink.getNote().getId());
+        publicLinksCache.evict(publicLink.getUrlToken());
         logger.info("Public link deleted successfully with ID: {}", publicLinkId);
     }
 
@@ -172,6 +217,9 @@ public class PublicLinkService {
         }
 
         publicLinkRepository.delete(publicLink);
+        noteRepository.incrementVersion(publicLink.getNote().getId());
+        notesCache.evict(publicLink.getNote().getId());
+        publicLinksCache.evict(urlToken);
         logger.info("Public link deleted successfully with token: {}", urlToken);
     }
 
@@ -190,6 +238,9 @@ public class PublicLinkService {
 
         publicLink.setIsActive(false);
         PublicLink updatedPublicLink = publicLinkRepository.save(publicLink);
+        noteRepository.incrementVersion(publicLink.getNote().getId());
+        notesCache.evict(publicLink.getNote().getId());
+        publicLinksCache.evict(publicLink.getUrlToken());
 
         logger.info("Public link deactivated successfully with ID: {}", publicLinkId);
         return publicLinkMapper.toDto(updatedPublicLink);
@@ -222,6 +273,9 @@ public class PublicLinkService {
         }
 
         PublicLink updatedPublicLink = publicLinkRepository.save(publicLink);
+        noteRepository.incrementVersion(publicLink.getNote().getId());
+        notesCache.evict(publicLink.getNote().getId());
+        publicLinksCache.evict(publicLink.getUrlToken());
         logger.info("Public link updated successfully with ID: {}", publicLinkId);
 
         return publicLinkMapper.toDto(updatedPublicLink);
@@ -234,6 +288,9 @@ public class PublicLinkService {
         
         int deletedCount = publicLinkRepository.deleteExpiredLinks(LocalDateTime.now());
         if (deletedCount > 0) {
+            // Suppression en masse : notes et tokens concernés inconnus
+            notesCache.clear();
+            publicLinksCache.clear();
             logger.info("Deleted {} expired public links", deletedCount);
         }
         
@@ -258,13 +315,33 @@ public class PublicLinkService {
         String token;
         do {
             token = UUID.randomUUID().toString().replace("-", "");
-        } while (publicLinkRepository.existsByUrlToken(token));
+        } while (tokenFilter.mightContain(token) && publicLinkRepository.existsByUrlToken(token));
         return token;
     }
 
     // Vérification de l'existence d'un lien public
     public boolean publicLinkExists(String urlToken) {
-        return publicLinkRepository.findByUrlToken(urlToken).isPresent();
+        return resolvePublicLink(urlToken).isPresent();
+    }
+
+    // Résolution d'un token pour l'accès public : filtre des tokens existants, puis cache, puis base
+    // Les tokens inconnus (absents du filtre) sont rejetés sans requête
+    public Optional<ResolvedPublicLink> resolvePublicLink(String urlToken) {
+        if (!tokenFilter.mightContain(urlToken)) {
+            return Optional.empty();
+        }
+        ResolvedPublicLink cached = publicLinksCache.get(urlToken, ResolvedPublicLink.class);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<ResolvedPublicLink> resolved = publicLinkRepository.findByUrlToken(urlToken).map(ResolvedPublicLink::new);
+        resolved.ifPresent(link -> publicLinksCache.put(urlToken, link));
+        return resolved;
+    }
+
+    // Compteur d'accès actuel (non mis en cache)
+    public long getAccessCount(String urlToken) {
+        return publicLinkRepository.findAccessCountByUrlToken(urlToken).orElse(0L);
     }
 
     // Récupération d'un lien public par token (pour usage interne)
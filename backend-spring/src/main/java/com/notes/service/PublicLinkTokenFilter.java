@@ -0,0 +1,218 @@
+package com.notes.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Filtre de Bloom des tokens de liens publics existants
+// Un token absent du filtre n'existe pas : la requête est rejetée sans lecture en base (tokens aléatoires
+// des scanners). Un token présent peut être un faux positif (taux visé : false-positive-rate) et
+// passe par le cache puis la base.
+// Reconstruit au démarrage puis périodiquement depuis public_links (retire les tokens supprimés) ;
+// les tokens créés sont ajoutés immédiatement ici et sur les autres instances (CacheInvalidationBus).
+// Un token ajouté avant le commit de sa création peut manquer à la lecture de public_links : les tokens
+// ajoutés depuis moins de recent-window-ms sont reportés dans chaque nouveau filtre.
+// Tant que la première construction n'est pas terminée, tous les tokens sont acceptés.
+@Component
+public class PublicLinkTokenFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublicLinkTokenFilter.class);
+
+    private static final String TOPIC = "public-link-tokens";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM public_links";
+    private static final String LOAD_SQL = "SELECT url_token FROM public_links";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final Counter rejected;
+
+    @Value("${notes.public-links.token-filter.expected-tokens:100000}")
+    private long expectedTokens;
+
+    @Value("${notes.public-links.token-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // Au-delà de la durée d'une transaction de création de lien (ajout avant le commit)
+    @Value("${notes.public-links.token-filter.recent-window-ms:60000}")
+    private long recentWindowMs;
+
+    // Tokens ajoutés récemment (ici ou sur une autre instance), avec l'instant de l'ajout
+    private final Map<String, Long> recentTokens = new ConcurrentHashMap<>();
+
+    private volatile Bloom current;
+    // Filtre en cours de construction : reçoit aussi les ajouts concurrents
+    private volatile Bloom building;
+    // Ajouts et remplacement du filtre : un ajout voit soit l'ancien filtre et celui en construction,
+    // soit le nouveau filtre, jamais l'ancien seul après le remplacement
+    private final Object swapLock = new Object();
+
+    public PublicLinkTokenFilter(JdbcTemplate jdbcTemplate, CacheInvalidationBus invalidationBus,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.invalidationBus = invalidationBus;
+
+        this.rejected = Counter.builder("notes.public-links.token-filter.rejected")
+                .description("Public link lookups rejected by the token filter without a database query")
+                .register(meterRegistry);
+        Gauge.builder("notes.public-links.token-filter.bits", this, filter -> filter.current == null ? 0 : filter.current.bitCount)
+                .description("Size of the public link token filter")
+                .baseUnit("bits")
+                .register(meterRegistry);
+
+        invalidationBus.subscribe(TOPIC, new CacheInvalidationBus.Listener() {
+            @Override
+            public void invalidate(String key) {
+                addLocally(key);
+            }
+
+            @Override
+            public void flush() {
+                // Ajouts d'autres instances possiblement perdus : reconstruction au prochain passage
+                current = null;
+            }
+        });
+    }
+
+    public boolean mightContain(String urlToken) {
+        Bloom filter = current;
+        if (filter == null || urlToken == null || filter.mightContain(urlToken)) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    // Token créé : ajouté avant le commit (un faux positif temporaire est sans conséquence)
+    public void add(String urlToken) {
+        addLocally(urlToken);
+        invalidationBus.publish(TOPIC, urlToken);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${notes.public-links.token-filter.rebuild-interval-ms:3600000}",
+               initialDelayString = "${notes.public-links.token-filter.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        long startedAt = System.nanoTime();
+
+        Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+        // Marge pour les créations jusqu'à la prochaine reconstruction
+        long capacity = Math.max(expectedTokens, (count == null ? 0 : count) * 2);
+        Bloom filter = new Bloom(capacity, falsePositiveRate);
+
+        building = filter;
+        try {
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                filter.add(rs.getString(1));
+            });
+            // Tokens ajoutés avant la lecture mais validés après : absents du résultat
+            pruneRecentTokens();
+            recentTokens.keySet().forEach(filter::add);
+            synchronized (swapLock) {
+                current = filter;
+                building = null;
+            }
+        } finally {
+            building = null;
+        }
+
+        logger.info("Public link token filter rebuilt: {} tokens, {} KB in {} ms",
+                count, filter.bitCount / 8 / 1024, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    // Reconstruction si le filtre a été invalidé (reconnexion au bus)
+    @Scheduled(fixedDelayString = "${notes.public-links.token-filter.check-interval-ms:10000}")
+    public void rebuildIfInvalidated() {
+        if (current == null) {
+            rebuild();
+        } else {
+            pruneRecentTokens();
+        }
+    }
+
+    private void pruneRecentTokens() {
+        long expiredBefore = System.nanoTime() - recentWindowMs * 1_000_000L;
+        recentTokens.values().removeIf(addedAt -> addedAt - expiredBefore < 0);
+    }
+
+    private void addLocally(String urlToken) {
+        recentTokens.put(urlToken, System.nanoTime());
+        synchronized (swapLock) {
+            Bloom filter = current;
+            if (filter != null) {
+                filter.add(urlToken);
+            }
+            Bloom next = building;
+            if (next != null) {
+                next.add(urlToken);
+            }
+        }
+    }
+
+    // Filtre de Bloom à double hachage (Kirsch-Mitzenmacher), bits mis à jour sans verrou
+    private static final class Bloom {
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        private Bloom(long expectedInsertions, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            bits = Math.max(64, (bits + 63) / 64 * 64);
+            this.words = new AtomicLongArray((int) (bits / 64));
+            this.bitCount = bits;
+            this.hashCount = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+        }
+
+        private void add(String value) {
+            long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+            long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long previous;
+                do {
+                    previous = words.get(word);
+                } while ((previous & mask) == 0 && !words.compareAndSet(word, previous, previous | mask));
+            }
+        }
+
+        private boolean mightContain(String value) {
+            long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+            long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Hachage 64 bits des caractères, finalisé par le mélange de MurmurHash3
+        private static long hash(String value, long seed) {
+            long h = seed;
+            for (int i = 0; i < value.length(); i++) {
+                h = (h ^ value.charAt(i)) * 0x100000001B3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
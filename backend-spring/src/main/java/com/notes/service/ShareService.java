@@ -1,5 +1,8 @@
 package com.notes.service;
 
+import com.notes.config.CacheConfig;
+import com.notes.dto.pagination.CursorPageDto;
+import com.notes.dto.pagination.KeysetCursor;
 import com.notes.dto.share.ShareCreateDto;
 import com.notes.dto.share.ShareDto;
 import com.notes.exception.NoteNotFoundException;
@@ -15,8 +18,12 @@ import com.notes.repository.ShareRepository;
 import com.notes.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -34,13 +41,21 @@ public class ShareService {
     private final NoteRepository noteRepository;
     private final UserRepository userRepository;
     private final ShareMapper shareMapper;
+    private final ListingCountEstimator listingCountEstimator;
+    private final NoteAccessService noteAccessService;
+    private final Cache notesCache;
 
     public ShareService(ShareRepository shareRepository, NoteRepository noteRepository, 
-                       UserRepository userRepository, ShareMapper shareMapper) {
+                       UserRepository userRepository, ShareMapper shareMapper,
+                       ListingCountEstimator listingCountEstimator, NoteAccessService noteAccessService,
+                       CacheManager cacheManager) {
         this.shareRepository = shareRepository;
         this.noteRepository = noteRepository;
         this.userRepository = userRepository;
         this.shareMapper = shareMapper;
+        this.listingCountEstimator = listingCountEstimator;
+        this.noteAccessService = noteAccessService;
+        this.notesCache = cacheManager.getCache(CacheConfig.NOTES);
     }
 
     // Création d'un partage avec un utilisateur
@@ -82,6 +97,9 @@ public class ShareService {
         share.setIsActive(true);
 
         Share savedShare = shareRepository.save(share);
+        noteAccessService.syncShare(savedShare);
+        noteRepository.incrementVersion(noteId);
+        notesCache.evict(noteId);
         logger.info("Note shared successfully with ID: {}", savedShare.getId());
 
         return shareMapper.toDto(savedShare);
@@ -114,6 +132,34 @@ public class ShareService {
         return shares.map(shareMapper::toDto);
     }
 
+    // Partages reçus paginés par curseur sur (createdAt, id)
+    @Transactional(readOnly = true)
+    public CursorPageDto<ShareDto> getReceivedSharesAfter(User currentUser, String cursor, int size, boolean includeTotal) {
+        logger.info("Getting received shares after cursor for user: {}", currentUser.getEmail());
+
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        Long userId = currentUser.getId();
+
+        Slice<Share> shares = shareRepository.findBySharedWithUserIdAfter(
+                userId, position.getTimestamp(), position.getId(), PageRequest.of(0, size));
+
+        List<Share> content = shares.getContent();
+        String nextCursor = null;
+        if (shares.hasNext() && !content.isEmpty()) {
+            Share last = content.get(content.size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        CursorPageDto<ShareDto> result = new CursorPageDto<>(
+                content.stream().map(shareMapper::toDto).collect(Collectors.toList()),
+                nextCursor, shares.hasNext(), size);
+        if (includeTotal) {
+            result.setTotalElements(listingCountEstimator.estimate("shares:" + userId + ":received",
+                    () -> shareRepository.countBySharedWithUserId(userId)));
+        }
+        return result;
+    }
+
     // Suppression d'un partage
     @Transactional
     public void deleteShare(Long shareId, User currentUser) {
@@ -128,7 +174,10 @@ public class ShareService {
             throw new UnauthorizedAccessException(shareId, "share", "Vous ne pouvez supprimer que les partages de vos propres notes");
         }
 
+        noteAccessService.removeShare(share);
         shareRepository.delete(share);
+        noteRepository.incrementVersion(share.getNote().getId());
+        notesCache.evict(share.getNote().getId());
         logger.info("Share deleted successfully with ID: {}", shareId);
     }
 
@@ -150,6 +199,9 @@ public class ShareService {
         share.setExpiresAt(shareUpdateDto.getExpiresAt());
 
         Share updatedShare = shareRepository.save(share);
+        noteAccessService.syncShare(updatedShare);
+        noteRepository.incrementVersion(updatedShare.getNote().getId());
+        notesCache.evict(updatedShare.getNote().getId());
         logger.info("Share updated successfully with ID: {}", updatedShare.getId());
 
         return shareMapper.toDto(updatedShare);
@@ -170,6 +222,9 @@ public class ShareService {
 
         share.setIsActive(false);
         shareRepository.save(share);
+        noteAccessService.syncShare(share);
+        noteRepository.incrementVersion(share.getNote().getId());
+        notesCache.evict(share.getNote().getId());
         logger.info("Share revoked successfully with ID: {}", shareId);
     }
 
@@ -191,7 +246,10 @@ public class ShareService {
         shares.forEach(share -> {
             share.setIsActive(false);
             shareRepository.save(share);
+            noteAccessService.syncShare(share);
         });
+        noteRepository.incrementVersion(noteId);
+        notesCache.evict(noteId);
 
         logger.info("All shares revoked for note {}", noteId);
     }
@@ -221,17 +279,17 @@ public class ShareService {
             return SharePermission.ADMIN;
         }
 
-        // Si c'est une note publique
-        if (note.getVisibility() == com.notes.model.NoteVisibility.PUBLIC) {
-            return SharePermission.READ;
-        }
-
-        // Recherche d'un partage actif
+        // Recherche d'un partage actif (prioritaire : un partage WRITE sur une note publique permet d'écrire)
         Optional<Share> shareOpt = shareRepository.findByNoteIdAndSharedWithUserId(noteId, user.getId());
         if (shareOpt.isPresent() && shareOpt.get().isValid()) {
             return shareOpt.get().getPermission();
         }
 
+        // Si c'est une note publique
+        if (note.getVisibility() == com.notes.model.NoteVisibility.PUBLIC) {
+            return SharePermission.READ;
+        }
+
         return null;
     }
 
@@ -242,6 +300,8 @@ public class ShareService {
         
         int deletedCount = shareRepository.deleteExpiredShares(LocalDateTime.now());
         if (deletedCount > 0) {
+            // Suppression en masse : notes concernées inconnues
+            notesCache.clear();
             logger.info("Deleted {} expired shares", deletedCount);
         }
         
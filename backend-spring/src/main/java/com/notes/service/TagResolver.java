@@ -0,0 +1,250 @@
+package com.notes.service;
+
+import com.notes.config.CacheConfig;
+import com.notes.model.Tag;
+import com.notes.repository.TagRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Résolution groupée des libellés de tags en entités, avec création des tags manquants
+// Coût constant quel que soit le nombre de tags : une lecture par clé primaire des libellés en cache,
+// une lecture WHERE label IN (...), une insertion groupée qui ignore les conflits sur le libellé,
+// puis une relecture des tags créés
+@Component
+public class TagResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagResolver.class);
+
+    // PostgreSQL : insertion multi-lignes, les libellés déjà présents (ou créés en concurrence) sont ignorés
+    // Identifiants tirés de la séquence de l'entité Tag (un bloc par ligne, sans chevauchement)
+    private static final String POSTGRES_INSERT_SQL =
+            "INSERT INTO tags (id, label, usage_count, created_at, updated_at) " +
+            "SELECT nextval('tags_seq'), label, 0, now(), now() FROM unnest(?) AS label " +
+            "ON CONFLICT (label) DO NOTHING RETURNING id, label";
+
+    // Autres bases (H2 en test) : MERGE standard exécuté par lot
+    private static final String MERGE_SQL =
+            "MERGE INTO tags t USING (VALUES (CAST(? AS VARCHAR(50)))) AS s(label) ON t.label = s.label " +
+            "WHEN NOT MATCHED THEN INSERT (id, label, usage_count, created_at, updated_at) " +
+            "VALUES (NEXT VALUE FOR tags_seq, s.label, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)";
+
+    private final TagRepository tagRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TagSuggestionIndex tagSuggestionIndex;
+
+    // Cache libellé -> id ; les tags ne sont jamais renommés
+    private final Cache tagIdsByLabel;
+
+    // Clé des tags déjà résolus dans la transaction courante
+    private final Object transactionMemoKey = new Object();
+
+    private volatile Boolean postgres;
+
+    public TagResolver(TagRepository tagRepository, JdbcTemplate jdbcTemplate,
+                       TagSuggestionIndex tagSuggestionIndex, CacheManager cacheManager) {
+        this.tagRepository = tagRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.tagSuggestionIndex = tagSuggestionIndex;
+        this.tagIdsByLabel = cacheManager.getCache(CacheConfig.TAGS);
+    }
+
+    // Tags correspondant aux libellés, dans l'ordre des libellés (doublons et libellés vides ignorés)
+    public List<Tag> resolve(Collection<String> labels) {
+        return resolve(labels, true);
+    }
+
+    // Tags existants correspondant aux libellés, sans création des libellés inconnus
+    public List<Tag> resolveExisting(Collection<String> labels) {
+        return resolve(labels, false);
+    }
+
+    private List<Tag> resolve(Collection<String> labels, boolean createMissing) {
+        Set<String> normalized = normalize(labels);
+        if (normalized.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, Tag> resolved = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        Map<String, Tag> memo = transactionMemo();
+
+        // Libellés connus : chargement par clé primaire
+        Map<Long, String> cachedIds = new HashMap<>();
+        for (String label : normalized) {
+            Tag memoized = memo != null ? memo.get(label) : null;
+            if (memoized != null) {
+                resolved.put(label, memoized);
+                continue;
+            }
+            Long id = tagIdsByLabel.get(label, Long.class);
+            if (id != null) {
+                cachedIds.put(id, label);
+            } else {
+                missing.add(label);
+            }
+        }
+        if (!cachedIds.isEmpty()) {
+            tagRepository.findAllById(cachedIds.keySet()).forEach(tag -> resolved.put(tag.getLabel(), tag));
+            for (String label : cachedIds.values()) {
+                if (!resolved.containsKey(label)) {
+                    // Tag supprimé depuis la mise en cache
+                    evict(label);
+                    missing.add(label);
+                }
+            }
+        }
+
+        // Tags existants (déjà validés en base : mis en cache immédiatement)
+        if (!missing.isEmpty()) {
+            for (Tag tag : tagRepository.findByLabelIn(missing)) {
+                resolved.put(tag.getLabel(), tag);
+                cache(tag.getLabel(), tag.getId());
+            }
+            missing.removeIf(resolved::containsKey);
+        }
+
+        // Tags à créer (mis en cache seulement après commit de la transaction appelante)
+        if (createMissing && !missing.isEmpty()) {
+            Map<String, Long> created = insertMissing(missing);
+            tagRepository.findAllById(created.values()).forEach(tag -> resolved.put(tag.getLabel(), tag));
+            cacheAfterCommit(created);
+        }
+
+        if (memo != null) {
+            memo.putAll(resolved);
+        }
+
+        List<Tag> tags = new ArrayList<>();
+        for (String label : normalized) {
+            Tag tag = resolved.get(label);
+            if (tag != null) {
+                tags.add(tag);
+            }
+        }
+        return tags;
+    }
+
+    // Libellé à oublier (tag supprimé)
+    public void evict(String label) {
+        tagIdsByLabel.evict(label);
+    }
+
+    private Map<String, Long> insertMissing(List<String> labels) {
+        Map<String, Long> created = new HashMap<>();
+
+        if (isPostgres()) {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(POSTGRES_INSERT_SQL);
+                Array array = connection.createArrayOf("varchar", labels.toArray());
+                statement.setArray(1, array);
+                return statement;
+            }, rs -> {
+                created.put(rs.getString("label"), rs.getLong("id"));
+            });
+        } else {
+            jdbcTemplate.batchUpdate(MERGE_SQL, labels, labels.size(),
+                    (statement, label) -> statement.setString(1, label));
+        }
+
+        // Libellés créés par une transaction concurrente (ou par MERGE) : relecture
+        List<String> unresolved = new ArrayList<>();
+        for (String label : labels) {
+            if (!created.containsKey(label)) {
+                unresolved.add(label);
+            }
+        }
+        if (!unresolved.isEmpty()) {
+            tagRepository.findByLabelIn(unresolved).forEach(tag -> created.put(tag.getLabel(), tag.getId()));
+        }
+
+        logger.debug("Created or resolved {} new tags", created.size());
+        return created;
+    }
+
+    private Set<String> normalize(Collection<String> labels) {
+        Set<String> normalized = new LinkedHashSet<>();
+        if (labels == null) {
+            return normalized;
+        }
+        for (String label : labels) {
+            if (label != null && !label.trim().isEmpty()) {
+                normalized.add(label.trim());
+            }
+        }
+        return normalized;
+    }
+
+    // Tags déjà résolus dans la transaction (entités attachées à la session) : les opérations
+    // d'un même lot (POST /notes/batch) ne relisent pas les libellés communs
+    @SuppressWarnings("unchecked")
+    private Map<String, Tag> transactionMemo() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        Map<String, Tag> memo = (Map<String, Tag>) TransactionSynchronizationManager.getResource(transactionMemoKey);
+        if (memo == null) {
+            memo = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(transactionMemoKey, memo);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(transactionMemoKey);
+                }
+            });
+        }
+        return memo;
+    }
+
+    private void cacheAfterCommit(Map<String, Long> created) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishCreated(created);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publishCreated(created);
+            }
+        });
+    }
+
+    // Nouveaux tags visibles : cache libellé -> id et index d'autocomplétion
+    private void publishCreated(Map<String, Long> created) {
+        created.forEach((label, id) -> {
+            cache(label, id);
+            tagSuggestionIndex.onTagCreated(id, label);
+        });
+    }
+
+    private void cache(String label, Long id) {
+        tagIdsByLabel.put(label, id);
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String productName = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = productName != null && productName.toLowerCase().contains("postgresql");
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,343 @@
+package com.notes.service;
+
+import com.notes.dto.tag.TagSuggestionDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Index en mémoire pour l'autocomplétion des tags, sans accès base à la lecture
+// Trie des libellés en minuscules ; chaque nœud conserve les k tags les plus utilisés de son
+// sous-arbre, une suggestion coûte donc la longueur du préfixe
+// Mises à jour incrémentales à la création d'un tag et à l'écriture des compteurs d'utilisation,
+// reconstruction complète périodique (un tag sorti du top-k d'un nœud y revient à ce moment)
+@Component
+public class TagSuggestionIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagSuggestionIndex.class);
+
+    private static final String LOAD_SQL = "SELECT id, label, usage_count FROM tags";
+
+    // Estimation de l'empreinte mémoire (JVM 64 bits, références compressées)
+    private static final long NODE_BYTES = 48;
+    private static final long ENTRY_BYTES = 32 + 40;
+    private static final long CHILD_SLOT_BYTES = 2 + 4;
+    private static final long TOP_SLOT_BYTES = 4;
+
+    private static final Comparator<Entry> BY_USAGE =
+            Comparator.comparingLong((Entry entry) -> entry.usageCount).reversed()
+                    .thenComparing(entry -> entry.label);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Tenu par TagUsageAccumulator de l'écriture des compteurs en base jusqu'à onUsageChanged, et par la
+    // reconstruction pendant sa lecture de la table : un delta est soit lu, soit appliqué au nouvel index
+    private final ReentrantLock usageLock = new ReentrantLock();
+
+    private Node root = new Node();
+    private Map<Long, Entry> entriesById = new HashMap<>();
+    private volatile Stats stats = new Stats();
+    // Tags créés pendant une reconstruction (absents de sa lecture s'ils sont validés après), rejoués ensuite
+    private List<Entry> createdDuringRebuild;
+
+    @Value("${notes.tags.suggest.top-k:10}")
+    private int topK;
+
+    @Value("${notes.tags.suggest.memory-budget-bytes:33554432}")
+    private long memoryBudgetBytes;
+
+    public TagSuggestionIndex(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+
+        Gauge.builder("notes.tags.suggest.entries", this, index -> index.readStats().entries)
+                .description("Tags present in the autocomplete index")
+                .register(meterRegistry);
+        Gauge.builder("notes.tags.suggest.nodes", this, index -> index.readStats().nodes)
+                .description("Nodes of the autocomplete trie")
+                .register(meterRegistry);
+        Gauge.builder("notes.tags.suggest.memory.estimated", this, TagSuggestionIndex::estimatedBytes)
+                .description("Estimated heap used by the autocomplete index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("notes.tags.suggest.memory.budget", this, index -> index.memoryBudgetBytes)
+                .description("Configured heap budget of the autocomplete index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    // Tags dont le libellé commence par le préfixe (insensible à la casse), les plus utilisés d'abord
+    public List<TagSuggestionDto> suggest(String prefix, int limit) {
+        List<TagSuggestionDto> suggestions = new ArrayList<>();
+        if (prefix == null || prefix.trim().isEmpty() || limit <= 0) {
+            return suggestions;
+        }
+
+        String key = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return suggestions;
+            }
+            for (int i = 0; i < node.top.length && suggestions.size() < limit; i++) {
+                Entry entry = node.top[i];
+                suggestions.add(new TagSuggestionDto(entry.id, entry.label, entry.usageCount));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Tag créé (après commit)
+    public void onTagCreated(Long id, String label) {
+        lock.writeLock().lock();
+        try {
+            if (!entriesById.containsKey(id)) {
+                Entry entry = new Entry(id, label, 0L);
+                entriesById.put(id, entry);
+                insert(root, entry, stats);
+                stats.entries++;
+                stats.labelChars += label.length();
+            }
+            if (createdDuringRebuild != null) {
+                createdDuringRebuild.add(new Entry(id, label, 0L));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Verrou à tenir de l'écriture des compteurs en base jusqu'à l'appel de onUsageChanged
+    public Lock usageWriteLock() {
+        return usageLock;
+    }
+
+    // Variations des compteurs d'utilisation écrites en base
+    public void onUsageChanged(Map<Long, Long> deltas) {
+        lock.writeLock().lock();
+        try {
+            deltas.forEach((id, delta) -> {
+                Entry entry = entriesById.get(id);
+                if (entry != null) {
+                    entry.usageCount = Math.max(0L, entry.usageCount + delta);
+                    reposition(entry);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Reconstruction complète depuis la table tags, hors verrou de lecture, puis remplacement
+    // Les compteurs ne sont pas écrits pendant la lecture (usageLock) ; les tags créés pendant la
+    // reconstruction sont rejoués sur le nouvel index avant le remplacement
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${notes.tags.suggest.rebuild-interval-ms:600000}",
+               initialDelayString = "${notes.tags.suggest.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        long startedAt = System.nanoTime();
+
+        Node newRoot = new Node();
+        Map<Long, Entry> newEntries = new HashMap<>();
+        Stats newStats = new Stats();
+
+        lock.writeLock().lock();
+        try {
+            createdDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        usageLock.lock();
+        try {
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                Entry entry = new Entry(rs.getLong("id"), rs.getString("label"), rs.getLong("usage_count"));
+                newEntries.put(entry.id, entry);
+                insert(newRoot, entry, newStats);
+                newStats.entries++;
+                newStats.labelChars += entry.label.length();
+            });
+
+            lock.writeLock().lock();
+            try {
+                for (Entry created : createdDuringRebuild) {
+                    if (!newEntries.containsKey(created.id)) {
+                        newEntries.put(created.id, created);
+                        insert(newRoot, created, newStats);
+                        newStats.entries++;
+                        newStats.labelChars += created.label.length();
+                    }
+                }
+                root = newRoot;
+                entriesById = newEntries;
+                stats = newStats;
+            } finally {
+                createdDuringRebuild = null;
+                lock.writeLock().unlock();
+            }
+        } finally {
+            usageLock.unlock();
+        }
+
+        long estimated = estimatedBytes();
+        logger.info("Tag suggestion index rebuilt: {} tags, {} nodes, ~{} KB in {} ms",
+                newStats.entries, newStats.nodes, estimated / 1024,
+                (System.nanoTime() - startedAt) / 1_000_000);
+        if (estimated > memoryBudgetBytes) {
+            logger.warn("Tag suggestion index exceeds its memory budget ({} > {} bytes)", estimated, memoryBudgetBytes);
+        }
+    }
+
+    public long estimatedBytes() {
+        Stats current = readStats();
+        return current.nodes * NODE_BYTES
+                + current.childSlots * CHILD_SLOT_BYTES
+                + current.topSlots * TOP_SLOT_BYTES
+                + current.entries * ENTRY_BYTES
+                + current.labelChars;
+    }
+
+    // Lecture sans verrou pour les métriques : valeurs approximatives pendant une mise à jour
+    private Stats readStats() {
+        return stats;
+    }
+
+    // Ajout du tag dans le top-k de chaque nœud du chemin de son libellé
+    private void insert(Node start, Entry entry, Stats target) {
+        String key = normalize(entry.label);
+        Node node = start;
+        offer(node, entry, target);
+        for (int i = 0; i < key.length(); i++) {
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                child = node.addChild(key.charAt(i));
+                target.nodes++;
+                target.childSlots++;
+            }
+            node = child;
+            offer(node, entry, target);
+        }
+    }
+
+    // Reclassement après variation du compteur : le tag est retiré puis reproposé sur son chemin
+    private void reposition(Entry entry) {
+        String key = normalize(entry.label);
+        Node node = root;
+        for (int i = -1; i < key.length() && node != null; i++) {
+            if (i >= 0) {
+                node = node.child(key.charAt(i));
+                if (node == null) {
+                    break;
+                }
+            }
+            node.remove(entry, stats);
+            offer(node, entry, stats);
+        }
+    }
+
+    private void offer(Node node, Entry entry, Stats target) {
+        Entry[] top = node.top;
+        if (top.length >= topK && BY_USAGE.compare(entry, top[top.length - 1]) >= 0) {
+            return;
+        }
+
+        int position = Arrays.binarySearch(top, entry, BY_USAGE);
+        int insertAt = position >= 0 ? position : -position - 1;
+        int newLength = Math.min(top.length + 1, topK);
+
+        Entry[] updated = new Entry[newLength];
+        System.arraycopy(top, 0, updated, 0, insertAt);
+        updated[insertAt] = entry;
+        System.arraycopy(top, insertAt, updated, insertAt + 1, newLength - insertAt - 1);
+
+        target.topSlots += newLength - top.length;
+        node.top = updated;
+    }
+
+    private static String normalize(String label) {
+        return label.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final String label;
+        private long usageCount;
+
+        private Entry(long id, String label, long usageCount) {
+            this.id = id;
+            this.label = label;
+            this.usageCount = usageCount;
+        }
+    }
+
+    // Nœud compact : caractères et enfants dans des tableaux triés, top-k trié par utilisation
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private Entry[] top = new Entry[0];
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node addChild(char c) {
+            int insertAt = -Arrays.binarySearch(keys, c) - 1;
+
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = c;
+            newChildren[insertAt] = new Node();
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[insertAt];
+        }
+
+        private void remove(Entry entry, Stats target) {
+            for (int i = 0; i < top.length; i++) {
+                if (top[i] == entry) {
+                    Entry[] updated = new Entry[top.length - 1];
+                    System.arraycopy(top, 0, updated, 0, i);
+                    System.arraycopy(top, i + 1, updated, i, top.length - i - 1);
+                    top = updated;
+                    target.topSlots--;
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Stats {
+        private long entries;
+        private long nodes = 1;
+        private long childSlots;
+        private long topSlots;
+        private long labelChars;
+    }
+}
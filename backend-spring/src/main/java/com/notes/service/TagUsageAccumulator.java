@@ -0,0 +1,171 @@
+package com.notes.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Compteurs d'utilisation des tags (tags.usage_count) tenus en mémoire et écrits par lots
+// Les associations/dissociations sont prises en compte après commit de la note, puis les
+// deltas cumulés sont appliqués périodiquement ; un job de réconciliation recalcule les
+// compteurs depuis note_tags par tranches d'identifiants pour corriger toute dérive
+@Component
+public class TagUsageAccumulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagUsageAccumulator.class);
+
+    private static final String FLUSH_SQL =
+            "UPDATE tags SET usage_count = GREATEST(usage_count + ?, 0) WHERE id = ?";
+
+    private static final String RECONCILE_SQL =
+            "UPDATE tags SET usage_count = " +
+            "(SELECT COUNT(*) FROM note_tags nt WHERE nt.tag_id = tags.id) " +
+            "WHERE id > ? AND id <= ?";
+
+    // Borne haute de la tranche suivante : identifiants réels (les blocs de séquence laissent des trous)
+    private static final String NEXT_CHUNK_SQL =
+            "SELECT MAX(id) FROM (SELECT id FROM tags WHERE id > ? ORDER BY id LIMIT ?) chunk";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TagSuggestionIndex tagSuggestionIndex;
+
+    private final PendingCounters pendingDeltas = new PendingCounters();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // Nombre d'identifiants de tags recalculés par ordre UPDATE lors de la réconciliation
+    @Value("${notes.tags.usage.reconcile-chunk-size:1000}")
+    private int reconcileChunkSize;
+
+    public TagUsageAccumulator(JdbcTemplate jdbcTemplate, TagSuggestionIndex tagSuggestionIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tagSuggestionIndex = tagSuggestionIndex;
+    }
+
+    // Tags associés à une note
+    public void recordAttached(Collection<Long> tagIds) {
+        record(tagIds, 1);
+    }
+
+    // Tags dissociés d'une note (retrait ou suppression de la note)
+    public void recordDetached(Collection<Long> tagIds) {
+        record(tagIds, -1);
+    }
+
+    private void record(Collection<Long> tagIds, long delta) {
+        if (tagIds == null || tagIds.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Long> deltas = new HashMap<>();
+        tagIds.forEach(tagId -> deltas.merge(tagId, delta, Long::sum));
+
+        // Une transaction annulée ne doit pas modifier les compteurs
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(deltas);
+                }
+            });
+        } else {
+            apply(deltas);
+        }
+    }
+
+    private void apply(Map<Long, Long> deltas) {
+        deltas.forEach(pendingDeltas::add);
+    }
+
+    // Vidage périodique
+    @Scheduled(fixedDelayString = "${notes.tags.usage.flush-interval-ms:10000}")
+    public void scheduledFlush() {
+        flush(false);
+    }
+
+    // Vidage à l'arrêt de l'application
+    @PreDestroy
+    public void flushOnShutdown() {
+        int flushed = flush(true);
+        logger.info("Tag usage counters flushed on shutdown ({} tags)", flushed);
+    }
+
+    // Écriture des deltas accumulés en un seul lot d'UPDATE
+    // Retourne le nombre de tags mis à jour
+    public int flush(boolean waitForLock) {
+        if (waitForLock) {
+            flushLock.lock();
+        } else if (!flushLock.tryLock()) {
+            return 0;
+        }
+
+        try {
+            // Associations et retraits compensés depuis le dernier vidage : tag absent du lot
+            Map<Long, Long> applied = pendingDeltas.drain();
+            if (applied.isEmpty()) {
+                return 0;
+            }
+
+            List<Object[]> batch = new ArrayList<>(applied.size());
+            applied.forEach((tagId, delta) -> batch.add(new Object[]{delta, tagId}));
+
+            // Écriture et reclassement sans reconstruction de l'index entre les deux
+            Lock usageWriteLock = tagSuggestionIndex.usageWriteLock();
+            usageWriteLock.lock();
+            try {
+                try {
+                    jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+                    logger.debug("Flushed usage deltas for {} tags", batch.size());
+                } catch (DataAccessException e) {
+                    // Remise en tampon pour le prochain vidage
+                    logger.error("Failed to flush tag usage counters, will retry: {}", e.getMessage());
+                    applied.forEach(pendingDeltas::add);
+                    return 0;
+                }
+
+                // Reclassement dans l'index d'autocomplétion
+                tagSuggestionIndex.onUsageChanged(applied);
+            } finally {
+                usageWriteLock.unlock();
+            }
+            return batch.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Réconciliation : recalcul exact depuis note_tags, par tranches pour garder des transactions courtes
+    // Les deltas en attente sont écrits avant ; une association concurrente à une tranche peut
+    // être comptée deux fois ou pas du tout, l'écart est corrigé à la réconciliation suivante
+    @Scheduled(cron = "${notes.tags.usage.reconcile-cron:0 45 3 * * *}")
+    public void reconcile() {
+        flush(true);
+
+        int updated = 0;
+        long lowerBound = 0;
+        while (true) {
+            Long upperBound = jdbcTemplate.queryForObject(NEXT_CHUNK_SQL, Long.class, lowerBound, reconcileChunkSize);
+            if (upperBound == null) {
+                break;
+            }
+            updated += jdbcTemplate.update(RECONCILE_SQL, lowerBound, upperBound);
+            lowerBound = upperBound;
+        }
+        logger.info("Reconciled usage counts of {} tags from note_tags", updated);
+
+        tagSuggestionIndex.rebuild();
+    }
+}
@@ -0,0 +1,265 @@
+package com.notes.service;
+
+import com.notes.dto.revision.RevisionDiffDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Encodage des révisions de notes : textes compressés (Deflate) et deltas par lignes
+// Un delta décrit la cible comme une suite de copies de plages de lignes de la base et
+// d'insertions littérales ; il s'applique en une passe sur le texte de base
+final class TextDelta {
+
+    private static final byte OP_COPY = 1;
+    private static final byte OP_INSERT = 2;
+
+    // Positions candidates examinées pour une ligne répétée (lignes vides, séparateurs...)
+    private static final int MAX_CANDIDATES = 16;
+
+    // Au-delà, le diff d'affichage renvoie un seul bloc supprimé/inséré
+    private static final long MAX_DIFF_CELLS = 1_000_000L;
+
+    private TextDelta() {}
+
+    static byte[] compress(String text) {
+        return deflate(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decompress(byte[] data) {
+        return new String(inflate(data), StandardCharsets.UTF_8);
+    }
+
+    // Delta compressé transformant base en target
+    static byte[] encode(String base, String target) {
+        List<String> baseLines = splitLines(base);
+        List<String> targetLines = splitLines(target);
+
+        Map<String, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < baseLines.size(); i++) {
+            positions.computeIfAbsent(baseLines.get(i), line -> new ArrayList<>()).add(i);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            StringBuilder pending = new StringBuilder();
+            int i = 0;
+            while (i < targetLines.size()) {
+                int bestStart = -1;
+                int bestLength = 0;
+
+                List<Integer> candidates = positions.get(targetLines.get(i));
+                if (candidates != null) {
+                    for (int c = 0; c < candidates.size() && c < MAX_CANDIDATES; c++) {
+                        int start = candidates.get(c);
+                        int length = 0;
+                        while (start + length < baseLines.size() && i + length < targetLines.size()
+                                && baseLines.get(start + length).equals(targetLines.get(i + length))) {
+                            length++;
+                        }
+                        if (length > bestLength) {
+                            bestStart = start;
+                            bestLength = length;
+                        }
+                    }
+                }
+
+                if (bestLength > 0) {
+                    writeInsert(out, pending);
+                    out.writeByte(OP_COPY);
+                    out.writeInt(bestStart);
+                    out.writeInt(bestLength);
+                    i += bestLength;
+                } else {
+                    pending.append(targetLines.get(i));
+                    i++;
+                }
+            }
+            writeInsert(out, pending);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return deflate(bytes.toByteArray());
+    }
+
+    static String apply(String base, byte[] delta) {
+        List<String> baseLines = splitLines(base);
+        StringBuilder result = new StringBuilder();
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(inflate(delta)))) {
+            while (in.available() > 0) {
+                byte op = in.readByte();
+                if (op == OP_COPY) {
+                    int start = in.readInt();
+                    int length = in.readInt();
+                    for (int k = 0; k < length; k++) {
+                        result.append(baseLines.get(start + k));
+                    }
+                } else if (op == OP_INSERT) {
+                    byte[] text = new byte[in.readInt()];
+                    in.readFully(text);
+                    result.append(new String(text, StandardCharsets.UTF_8));
+                } else {
+                    throw new IllegalStateException("Delta de révision corrompu");
+                }
+            }
+        } catch (IOException | IndexOutOfBoundsException e) {
+            throw new IllegalStateException("Delta de révision corrompu", e);
+        }
+
+        return result.toString();
+    }
+
+    // Différence ligne à ligne (plus longue sous-séquence commune) pour l'affichage
+    static List<RevisionDiffDto.Segment> diff(String from, String to) {
+        List<String> a = splitLines(from);
+        List<String> b = splitLines(to);
+        List<RevisionDiffDto.Segment> segments = new ArrayList<>();
+
+        int prefix = 0;
+        while (prefix < a.size() && prefix < b.size() && a.get(prefix).equals(b.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.size() - prefix && suffix < b.size() - prefix
+                && a.get(a.size() - 1 - suffix).equals(b.get(b.size() - 1 - suffix))) {
+            suffix++;
+        }
+
+        for (int k = 0; k < prefix; k++) {
+            append(segments, RevisionDiffDto.EQUAL, a.get(k));
+        }
+
+        List<String> am = a.subList(prefix, a.size() - suffix);
+        List<String> bm = b.subList(prefix, b.size() - suffix);
+        if ((long) am.size() * bm.size() > MAX_DIFF_CELLS) {
+            am.forEach(line -> append(segments, RevisionDiffDto.DELETE, line));
+            bm.forEach(line -> append(segments, RevisionDiffDto.INSERT, line));
+        } else {
+            int n = am.size();
+            int m = bm.size();
+            int[][] lcs = new int[n + 1][m + 1];
+            for (int i = n - 1; i >= 0; i--) {
+                for (int j = m - 1; j >= 0; j--) {
+                    lcs[i][j] = am.get(i).equals(bm.get(j))
+                            ? lcs[i + 1][j + 1] + 1
+                            : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+                }
+            }
+
+            int i = 0;
+            int j = 0;
+            while (i < n && j < m) {
+                if (am.get(i).equals(bm.get(j))) {
+                    append(segments, RevisionDiffDto.EQUAL, am.get(i));
+                    i++;
+                    j++;
+                } else if (lcs[i + 1][j] >= lcs[i][j + 1]) {
+                    append(segments, RevisionDiffDto.DELETE, am.get(i++));
+                } else {
+                    append(segments, RevisionDiffDto.INSERT, bm.get(j++));
+                }
+            }
+            while (i < n) {
+                append(segments, RevisionDiffDto.DELETE, am.get(i++));
+            }
+            while (j < m) {
+                append(segments, RevisionDiffDto.INSERT, bm.get(j++));
+            }
+        }
+
+        for (int k = a.size() - suffix; k < a.size(); k++) {
+            append(segments, RevisionDiffDto.EQUAL, a.get(k));
+        }
+        return segments;
+    }
+
+    // Lignes avec leur fin de ligne, pour une reconstruction exacte
+    static List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines.add(text.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < text.length()) {
+            lines.add(text.substring(start));
+        }
+        return lines;
+    }
+
+    private static void append(List<RevisionDiffDto.Segment> segments, String op, String line) {
+        if (!segments.isEmpty()) {
+            RevisionDiffDto.Segment last = segments.get(segments.size() - 1);
+            if (last.getOp().equals(op)) {
+                last.setText(last.getText() + line);
+                return;
+            }
+        }
+        segments.add(new RevisionDiffDto.Segment(op, line));
+    }
+
+    private static void writeInsert(DataOutputStream out, StringBuilder pending) throws IOException {
+        if (pending.length() == 0) {
+            return;
+        }
+        byte[] text = pending.toString().getBytes(StandardCharsets.UTF_8);
+        out.writeByte(OP_INSERT);
+        out.writeInt(text.length);
+        out.write(text);
+        pending.setLength(0);
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length * 3));
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                // Un flux vide se termine sans produire d'octet : seul un flux tronqué est une erreur
+                if (length == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Données de révision corrompues");
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Données de révision corrompues", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.notes.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Opération de transformation opérationnelle sur un texte, au format d'ot.js :
+// suite de composants retain (entier > 0), insert (chaîne) et delete (entier < 0)
+// Les longueurs sont en unités UTF-16, comme String.length() et les chaînes JavaScript.
+public final class TextOperation {
+
+    private final List<Object> ops = new ArrayList<>();
+    private int baseLength;
+    private int targetLength;
+
+    // Lecture du format JSON [5, "abc", -3] ; IllegalArgumentException si un composant est invalide
+    public static TextOperation fromJson(List<?> components) {
+        if (components == null) {
+            throw new IllegalArgumentException("Opération manquante");
+        }
+        TextOperation operation = new TextOperation();
+        for (Object component : components) {
+            if (component instanceof String) {
+                operation.insert((String) component);
+            } else if (component instanceof Integer || component instanceof Long) {
+                long value = ((Number) component).longValue();
+                if (value > 0 && value <= Integer.MAX_VALUE) {
+                    operation.retain((int) value);
+                } else if (value < 0 && value >= -Integer.MAX_VALUE) {
+                    operation.delete((int) -value);
+                } else {
+                    throw new IllegalArgumentException("Composant d'opération invalide : " + value);
+                }
+            } else {
+                throw new IllegalArgumentException("Composant d'opération invalide : " + component);
+            }
+        }
+        return operation;
+    }
+
+    // Remplacement de la partie qui diffère entre deux textes (préfixe et suffixe communs conservés)
+    public static TextOperation replacing(String from, String to) {
+        int prefix = 0;
+        int maxPrefix = Math.min(from.length(), to.length());
+        while (prefix < maxPrefix && from.charAt(prefix) == to.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < from.length() - prefix && suffix < to.length() - prefix
+                && from.charAt(from.length() - 1 - suffix) == to.charAt(to.length() - 1 - suffix)) {
+            suffix++;
+        }
+
+        TextOperation operation = new TextOperation();
+        operation.retain(prefix);
+        operation.delete(from.length() - prefix - suffix);
+        operation.insert(to.substring(prefix, to.length() - suffix));
+        operation.retain(suffix);
+        return operation;
+    }
+
+    public TextOperation retain(int length) {
+        if (length == 0) {
+            return this;
+        }
+        baseLength += length;
+        targetLength += length;
+        Object last = last();
+        if (isRetain(last)) {
+            ops.set(ops.size() - 1, (Integer) last + length);
+        } else {
+            ops.add(length);
+        }
+        return this;
+    }
+
+    public TextOperation insert(String text) {
+        if (text.isEmpty()) {
+            return this;
+        }
+        targetLength += text.length();
+        Object last = last();
+        if (last instanceof String) {
+            ops.set(ops.size() - 1, last + text);
+        } else if (isDelete(last)) {
+            // Forme canonique : insertion avant suppression à la même position
+            Object beforeLast = ops.size() > 1 ? ops.get(ops.size() - 2) : null;
+            if (beforeLast instanceof String) {
+                ops.set(ops.size() - 2, beforeLast + text);
+            } else {
+                ops.add(ops.size() - 1, text);
+            }
+        } else {
+            ops.add(text);
+        }
+        return this;
+    }
+
+    public TextOperation delete(int length) {
+        if (length == 0) {
+            return this;
+        }
+        baseLength += length;
+        Object last = last();
+        if (isDelete(last)) {
+            ops.set(ops.size() - 1, (Integer) last - length);
+        } else {
+            ops.add(-length);
+        }
+        return this;
+    }
+
+    public String apply(String document) {
+        if (document.length() != baseLength) {
+            throw new IllegalArgumentException("L'opération ne correspond pas à la longueur du document ("
+                    + baseLength + " attendu, " + document.length() + " reçu)");
+        }
+        StringBuilder result = new StringBuilder(targetLength);
+        int position = 0;
+        for (Object op : ops) {
+            if (op instanceof String) {
+                result.append((String) op);
+            } else if (isRetain(op)) {
+                result.append(document, position, position + (Integer) op);
+                position += (Integer) op;
+            } else {
+                position -= (Integer) op;
+            }
+        }
+        return result.toString();
+    }
+
+    // transform(a, b) = [a', b'] avec apply(apply(d, a), b') == apply(apply(d, b), a')
+    // À position égale, l'insertion de a précède celle de b (même convention qu'ot.js)
+    public static TextOperation[] transform(TextOperation a, TextOperation b) {
+        if (a.baseLength != b.baseLength) {
+            throw new IllegalArgumentException("Opérations concurrentes sur des documents de longueurs différentes");
+        }
+
+        TextOperation aPrime = new TextOperation();
+        TextOperation bPrime = new TextOperation();
+        List<Object> opsA = a.ops;
+        List<Object> opsB = b.ops;
+        int ia = 0;
+        int ib = 0;
+        Object opA = ia < opsA.size() ? opsA.get(ia++) : null;
+        Object opB = ib < opsB.size() ? opsB.get(ib++) : null;
+
+        while (opA != null || opB != null) {
+            if (opA instanceof String) {
+                aPrime.insert((String) opA);
+                bPrime.retain(((String) opA).length());
+                opA = ia < opsA.size() ? opsA.get(ia++) : null;
+                continue;
+            }
+            if (opB instanceof String) {
+                aPrime.retain(((String) opB).length());
+                bPrime.insert((String) opB);
+                opB = ib < opsB.size() ? opsB.get(ib++) : null;
+                continue;
+            }
+            if (opA == null || opB == null) {
+                throw new IllegalArgumentException("Opérations concurrentes incompatibles");
+            }
+
+            int x = (Integer) opA;
+            int y = (Integer) opB;
+            if (x > 0 && y > 0) {
+                int length = Math.min(x, y);
+                aPrime.retain(length);
+                bPrime.retain(length);
+                if (x > y) {
+                    opA = x - y;
+                    opB = ib < opsB.size() ? opsB.get(ib++) : null;
+                } else if (x == y) {
+                    opA = ia < opsA.size() ? opsA.get(ia++) : null;
+                    opB = ib < opsB.size() ? opsB.get(ib++) : null;
+                } else {
+                    opB = y - x;
+                    opA = ia < opsA.size() ? opsA.get(ia++) : null;
+                }
+            } else if (x < 0 && y < 0) {
+                // Texte supprimé des deux côtés : rien à reporter
+                if (-x > -y) {
+                    opA = x - y;
+                    opB = ib < opsB.size() ? opsB.get(ib++) : null;
+                } else if (x == y) {
+                    opA = ia < opsA.size() ? opsA.get(ia++) : null;
+                    opB = ib < opsB.size() ? opsB.get(ib++) : null;
+                } else {
+                    opB = y - x;
+                    opA = ia < opsA.size() ? opsA.get(ia++) : null;
+                }
+            } else if (x < 0) {
+                int length = Math.min(-x, y);
+                aPrime.delete(length);
+                if (-x > y) {
+                    opA = x + y;
+                    opB = ib < opsB.size() ? opsB.get(ib++) : null;
+                } else if (-x == y) {
+                    opA = ia < opsA.size() ? opsA.get(ia++) : null;
+                    opB = ib < opsB.size() ? opsB.get(ib++) : null;
+                } else {
+                    opB = y + x;
+                    opA = ia < opsA.size() ? opsA.get(ia++) : null;
+                }
+            } else {
+                int length = Math.min(x, -y);
+                bPrime.delete(length);
+                if (x > -y) {
+                    opA = x + y;
+                    opB = ib < opsB.size() ? opsB.get(ib++) : null;
+                } else if (x == -y) {
+                    opA = ia < opsA.size() ? opsA.get(ia++) : null;
+                    opB = ib < opsB.size() ? opsB.get(ib++) : null;
+                } else {
+                    opB = y + x;
+                    opA = ia < opsA.size() ? opsA.get(ia++) : null;
+                }
+            }
+        }
+        return new TextOperation[]{aPrime, bPrime};
+    }
+
+    public boolean isNoop() {
+        return ops.isEmpty() || (ops.size() == 1 && isRetain(ops.get(0)));
+    }
+
+    // Format JSON d'ot.js
+    public List<Object> toJson() {
+        return Collections.unmodifiableList(new ArrayList<>(ops));
+    }
+
+    public int getBaseLength() {
+        return baseLength;
+    }
+
+    public int getTargetLength() {
+        return targetLength;
+    }
+
+    private Object last() {
+        return ops.isEmpty() ? null : ops.get(ops.size() - 1);
+    }
+
+    private static boolean isRetain(Object op) {
+        return op instanceof Integer && (Integer) op > 0;
+    }
+
+    private static boolean isDelete(Object op) {
+        return op instanceof Integer && (Integer) op < 0;
+    }
+}
@@ -1,8 +1,11 @@
 package com.notes.service;
 
+import com.notes.config.CacheConfig;
 import com.notes.model.User;
 import com.notes.repository.UserRepository;
+import com.notes.security.AuthenticatedPrincipalResolver;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -18,6 +21,12 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private AuthenticatedPrincipalResolver principalResolver;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -41,11 +50,16 @@ public class UserService {
         
         user.setEmail(userDetails.getEmail());
         
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        principalResolver.evictUser(id);
+        return savedUser;
     }
     
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        principalResolver.evictUser(id);
+        // Notes et partages supprimés en cascade : notes concernées inconnues
+        cacheManager.getCache(CacheConfig.NOTES).clear();
     }
     
     public boolean existsByEmail(String email) {
@@ -0,0 +1,142 @@
+package com.notes.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Tampon en mémoire des vues de notes, écrit en base par lots (write-behind)
+@Component
+public class ViewCountAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViewCountAggregator.class);
+
+    private static final String FLUSH_SQL = "UPDATE notes SET view_count = view_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final PendingCounters pendingViews = new PendingCounters();
+    private final LongAdder pendingTotal = new LongAdder();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Vues retirées du tampon mais pas encore visibles en base : comptées jusqu'à l'écriture,
+    // pour que le total affiché ne recule pas pendant un vidage
+    private final Map<Long, Long> inFlightViews = new ConcurrentHashMap<>();
+
+    // Vidage anticipé hors du thread de la requête (souvent dans une transaction en lecture seule)
+    private final ExecutorService earlyFlushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "view-count-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean earlyFlushRequested = new AtomicBoolean();
+
+    // Nombre maximum de vues non écrites (borne la perte en cas d'arrêt brutal)
+    @Value("${notes.view-count.max-pending:10000}")
+    private long maxPendingViews;
+
+    public ViewCountAggregator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Enregistrement d'une vue, sans écriture en base
+    public void recordView(Long noteId) {
+        // Sans verrou ni CAS partagé : une note très consultée ne sérialise pas les requêtes
+        pendingViews.add(noteId, 1);
+        pendingTotal.increment();
+
+        // Vidage anticipé si la perte tolérée est atteinte, sur le thread dédié
+        if (!earlyFlushRequested.get() && pendingTotal.sum() >= maxPendingViews
+                && earlyFlushRequested.compareAndSet(false, true)) {
+            earlyFlushExecutor.execute(() -> {
+                try {
+                    flush(false);
+                } finally {
+                    earlyFlushRequested.set(false);
+                }
+            });
+        }
+    }
+
+    // Vues enregistrées mais pas encore visibles dans le compteur en base (valeur approchée)
+    public long getPendingViews(Long noteId) {
+        return pendingViews.get(noteId) + inFlightViews.getOrDefault(noteId, 0L);
+    }
+
+    // Vidage périodique
+    @Scheduled(fixedDelayString = "${notes.view-count.flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        flush(false);
+    }
+
+    // Vidage à l'arrêt de l'application
+    @PreDestroy
+    public void flushOnShutdown() {
+        earlyFlushExecutor.shutdownNow();
+        int flushed = flush(true);
+        logger.info("View counters flushed on shutdown ({} notes)", flushed);
+    }
+
+    // Écriture des compteurs accumulés en un seul lot d'UPDATE
+    // Retourne le nombre de notes mises à jour
+    public int flush(boolean waitForLock) {
+        if (waitForLock) {
+            flushLock.lock();
+        } else if (!flushLock.tryLock()) {
+            return 0;
+        }
+
+        try {
+            // Compté en transit avant d'être retiré du tampon : pas de creux pour les lecteurs
+            Map<Long, Long> deltas = pendingViews.drain(
+                    (noteId, delta) -> inFlightViews.merge(noteId, delta, Long::sum));
+            if (deltas.isEmpty()) {
+                return 0;
+            }
+
+            List<Object[]> batch = new ArrayList<>(deltas.size());
+            long drained = 0;
+            for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+                batch.add(new Object[]{entry.getValue(), entry.getKey()});
+                drained += entry.getValue();
+            }
+            pendingTotal.add(-drained);
+
+            try {
+                jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+                logger.debug("Flushed {} views for {} notes", drained, batch.size());
+
+                // Vues écrites et visibles en base : elles ne sont plus en transit
+                // (pas d'éviction du cache des notes : le compteur n'y figure pas)
+                for (Object[] row : batch) {
+                    inFlightViews.remove(row[1]);
+                }
+                return batch.size();
+            } catch (DataAccessException e) {
+                // Remise en tampon pour le prochain vidage
+                logger.error("Failed to flush view counters, will retry: {}", e.getMessage());
+                for (Object[] row : batch) {
+                    pendingViews.add((Long) row[1], (Long) row[0]);
+                    inFlightViews.remove(row[1]);
+                }
+                pendingTotal.add(drained);
+                return 0;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+-- Migration V11: Recherche plein texte sur les notes
+-- Créé le: 2024-02-01
+-- Description: Ajout d'une colonne tsvector maintenue par trigger et d'un index GIN
+--              pour remplacer les recherches LIKE '%terme%' sur le contenu des notes
+
+-- Colonne contenant le document indexé (titre pondéré plus fort que le contenu)
+ALTER TABLE notes ADD COLUMN IF NOT EXISTS search_vector tsvector;
+
+-- Fonction de mise à jour du document indexé
+CREATE OR REPLACE FUNCTION notes_search_vector_update() RETURNS trigger AS $$
+BEGIN
+    NEW.search_vector :=
+        setweight(to_tsvector('french', coalesce(NEW.title, '')), 'A') ||
+        setweight(to_tsvector('french', coalesce(NEW.content_md, '')), 'B');
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Trigger déclenché uniquement lorsque le titre ou le contenu change
+DROP TRIGGER IF EXISTS trg_notes_search_vector ON notes;
+CREATE TRIGGER trg_notes_search_vector
+    BEFORE INSERT OR UPDATE OF title, content_md ON notes
+    FOR EACH ROW EXECUTE FUNCTION notes_search_vector_update();
+
+-- Initialisation des notes existantes
+UPDATE notes SET search_vector =
+    setweight(to_tsvector('french', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('french', coalesce(content_md, '')), 'B');
+
+-- Index inversé utilisé par l'opérateur @@
+CREATE INDEX IF NOT EXISTS idx_note_search_vector ON notes USING GIN (search_vector);
@@ -0,0 +1,13 @@
+-- Migration V12: Index pour la pagination par curseur
+-- Créé le: 2024-02-01
+-- Description: Index composites couvrant les tris (updated_at, id) des notes et
+--              (created_at, id) des partages reçus, utilisés par les requêtes par curseur
+
+-- Liste des notes accessibles et filtrage par propriétaire
+CREATE INDEX IF NOT EXISTS idx_note_updated_at_id ON notes (updated_at DESC, id DESC);
+
+-- Flux des notes publiques
+CREATE INDEX IF NOT EXISTS idx_note_visibility_updated_at_id ON notes (visibility, updated_at DESC, id DESC);
+
+-- Partages reçus par un utilisateur
+CREATE INDEX IF NOT EXISTS idx_share_user_created_at_id ON shares (shared_with_user_id, created_at DESC, id DESC);
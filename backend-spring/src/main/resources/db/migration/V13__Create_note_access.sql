@@ -0,0 +1,33 @@
+-- Migration V13: Table dénormalisée des droits d'accès aux notes
+-- Créé le: 2024-02-01
+-- Description: Remplace le filtre "propriétaire OU partagée OU publique" de la liste des notes
+--              accessibles par une lecture indexée de note_access (user_id, note_id).
+--              L'utilisateur 0 porte l'accès en lecture des notes publiques.
+
+CREATE TABLE IF NOT EXISTS note_access (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    note_id BIGINT NOT NULL,
+    permission VARCHAR(20) NOT NULL,
+    expires_at TIMESTAMP,
+    CONSTRAINT fk_note_access_note FOREIGN KEY (note_id) REFERENCES notes(id) ON DELETE CASCADE,
+    CONSTRAINT uk_note_access_user_note UNIQUE (user_id, note_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_note_access_note ON note_access (note_id);
+
+-- Remplissage initial : propriétaires, notes publiques, puis partages actifs
+INSERT INTO note_access (user_id, note_id, permission, expires_at)
+SELECT n.owner_id, n.id, 'ADMIN', NULL FROM notes n
+ON CONFLICT (user_id, note_id) DO NOTHING;
+
+INSERT INTO note_access (user_id, note_id, permission, expires_at)
+SELECT 0, n.id, 'READ', NULL FROM notes n WHERE n.visibility = 'PUBLIC'
+ON CONFLICT (user_id, note_id) DO NOTHING;
+
+INSERT INTO note_access (user_id, note_id, permission, expires_at)
+SELECT s.shared_with_user_id, s.note_id, s.permission, s.expires_at
+FROM shares s
+JOIN notes n ON n.id = s.note_id
+WHERE s.is_active = true AND s.shared_with_user_id <> n.owner_id
+ON CONFLICT (user_id, note_id) DO NOTHING;
@@ -0,0 +1,8 @@
+-- Migration V14: Compteurs d'utilisation des tags
+-- Créé le: 2024-02-01
+-- Description: Index sur tags.usage_count pour les requêtes de popularité, et recalcul
+--              initial des compteurs depuis note_tags (jusqu'ici jamais maintenus)
+
+CREATE INDEX IF NOT EXISTS idx_tag_usage_count ON tags (usage_count DESC);
+
+UPDATE tags SET usage_count = (SELECT COUNT(*) FROM note_tags nt WHERE nt.tag_id = tags.id);
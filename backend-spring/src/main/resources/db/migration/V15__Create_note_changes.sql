@@ -0,0 +1,16 @@
+-- Migration V15: Journal des modifications pour la synchronisation incrémentale
+-- Créé le: 2024-02-01
+-- Description: Une ligne par (note, utilisateur ayant accès) à chaque création, modification,
+--              suppression ou retrait d'accès. GET /notes/changes?since= lit les lignes de
+--              l'utilisateur (et de l'utilisateur 0 pour les notes publiques) après le curseur.
+
+CREATE TABLE IF NOT EXISTS note_changes (
+    id BIGSERIAL PRIMARY KEY,
+    note_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    change_type VARCHAR(10) NOT NULL,
+    changed_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_note_change_user_id ON note_changes (user_id, id);
+CREATE INDEX IF NOT EXISTS idx_note_change_changed_at ON note_changes (changed_at);
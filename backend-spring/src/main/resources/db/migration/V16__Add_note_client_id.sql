@@ -0,0 +1,8 @@
+-- Migration V16: Identifiant client des notes
+-- Créé le: 2024-02-01
+-- Description: Identifiant généré hors ligne par l'application mobile, unique par propriétaire.
+--              POST /notes/batch s'en sert pour qu'une création rejouée ne crée pas de doublon.
+
+ALTER TABLE notes ADD COLUMN IF NOT EXISTS client_id VARCHAR(64);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_note_owner_client_id ON notes (owner_id, client_id);
@@ -0,0 +1,37 @@
+-- Migration V17: Identifiants générés par séquences
+-- Créé le: 2024-02-01
+-- Description: Remplace les colonnes IDENTITY/SERIAL par des séquences incrémentées de 50.
+--              Hibernate réserve un bloc de 50 identifiants par appel (optimiseur pooled-lo), ce qui
+--              permet de regrouper les INSERT en lots JDBC (hibernate.jdbc.batch_size).
+--              Chaque séquence reprend après le plus grand identifiant existant ; la valeur par
+--              défaut des colonnes pointe sur la nouvelle séquence pour les insertions SQL directes.
+
+CREATE SEQUENCE IF NOT EXISTS notes_seq INCREMENT BY 50;
+SELECT setval('notes_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM notes), false);
+ALTER TABLE notes ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE notes ALTER COLUMN id SET DEFAULT nextval('notes_seq');
+
+CREATE SEQUENCE IF NOT EXISTS shares_seq INCREMENT BY 50;
+SELECT setval('shares_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM shares), false);
+ALTER TABLE shares ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE shares ALTER COLUMN id SET DEFAULT nextval('shares_seq');
+
+CREATE SEQUENCE IF NOT EXISTS public_links_seq INCREMENT BY 50;
+SELECT setval('public_links_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM public_links), false);
+ALTER TABLE public_links ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE public_links ALTER COLUMN id SET DEFAULT nextval('public_links_seq');
+
+CREATE SEQUENCE IF NOT EXISTS tags_seq INCREMENT BY 50;
+SELECT setval('tags_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM tags), false);
+ALTER TABLE tags ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE tags ALTER COLUMN id SET DEFAULT nextval('tags_seq');
+
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+SELECT setval('users_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM users), false);
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+
+CREATE SEQUENCE IF NOT EXISTS refresh_tokens_seq INCREMENT BY 50;
+SELECT setval('refresh_tokens_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM refresh_tokens), false);
+ALTER TABLE refresh_tokens ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE refresh_tokens ALTER COLUMN id SET DEFAULT nextval('refresh_tokens_seq');
@@ -0,0 +1,6 @@
+-- Migration V18: Version des notes (verrouillage optimiste)
+-- Créé le: 2024-02-01
+-- Description: Incrémentée à chaque écriture de la note (contenu, tags, partages, liens publics).
+--              Exposée en ETag : If-None-Match sur GET (304), If-Match sur PUT (412 si périmée).
+
+ALTER TABLE notes ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,26 @@
+-- Migration V19: Historique des révisions de notes
+-- Créé le: 2024-02-01
+-- Description: Un SNAPSHOT (contenu complet compressé) toutes les N révisions, ou plus tôt si le
+--              delta devient trop gros ; sinon un DELTA compressé par rapport au dernier SNAPSHOT.
+--              Rétention et compaction par tâche planifiée (NoteRevisionService.maintain).
+--              Identifiants tirés d'une séquence incrémentée de 50, comme les tables de V17.
+
+CREATE SEQUENCE IF NOT EXISTS note_revisions_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS note_revisions (
+    id BIGINT PRIMARY KEY DEFAULT nextval('note_revisions_seq'),
+    note_id BIGINT NOT NULL,
+    revision INTEGER NOT NULL,
+    kind VARCHAR(10) NOT NULL,
+    base_revision_id BIGINT,
+    title VARCHAR(255) NOT NULL,
+    payload BYTEA NOT NULL,
+    content_length INTEGER NOT NULL,
+    author_id BIGINT,
+    created_at TIMESTAMP NOT NULL,
+    CONSTRAINT fk_note_revision_note FOREIGN KEY (note_id) REFERENCES notes(id) ON DELETE CASCADE,
+    CONSTRAINT uk_note_revision_note_revision UNIQUE (note_id, revision)
+);
+
+CREATE INDEX IF NOT EXISTS idx_note_revision_base ON note_revisions (base_revision_id);
+CREATE INDEX IF NOT EXISTS idx_note_revision_created_at ON note_revisions (created_at);
@@ -0,0 +1,9 @@
+-- Migration V20: Révisions déjà compactées
+-- Créé le: 2024-02-01
+-- Description: La maintenance nocturne (NoteRevisionService.maintain) ne revisite que les notes ayant
+--              encore des DELTA non compactés au-delà de compact-after-days, ou des révisions à supprimer.
+
+ALTER TABLE note_revisions ADD COLUMN IF NOT EXISTS compacted BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE INDEX IF NOT EXISTS idx_note_revision_uncompacted ON note_revisions (created_at)
+    WHERE kind = 'DELTA' AND NOT compacted;
@@ -0,0 +1,119 @@
+package com.notes.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Débit et latence (p50, p99) sur une instance lancée, pour comparer les modes de threads :
+//   VIRTUAL_THREADS=false mvn spring-boot:run               (threads Tomcat classiques)
+//   VIRTUAL_THREADS=true  mvn -Pjava21 spring-boot:run      (threads virtuels + file équitable du pool)
+// puis, pour chaque mode :
+//   mvn test-compile exec:java -Dexec.mainClass=com.notes.benchmark.HttpLoadBenchmark -Dexec.classpathScope=test \
+//       -Dload.token=<access token> -Dload.publicLink=<urlToken> [-Dload.concurrency=200 -Dload.seconds=30]
+// Endpoints mesurés : GET /v1/notes (liste paginée, authentifiée) et GET /v1/p/{urlToken} (lien public)
+public class HttpLoadBenchmark {
+
+    private static final String BASE_URL = System.getProperty("load.baseUrl", "http://localhost:8080/api/api");
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 200);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmupSeconds", 10);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 30);
+
+    public static void main(String[] args) throws Exception {
+        String token = System.getProperty("load.token");
+        String publicLink = System.getProperty("load.publicLink");
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        if (token != null) {
+            run(client, "notes listing", HttpRequest.newBuilder(URI.create(BASE_URL + "/v1/notes?page=0&size=20"))
+                    .header("Authorization", "Bearer " + token)
+                    .build());
+        }
+        if (publicLink != null) {
+            // Compte d'accès incrémenté à chaque lecture : prévoir un lien sans max-access-count
+            run(client, "public link", HttpRequest.newBuilder(URI.create(BASE_URL + "/v1/p/" + publicLink))
+                    .build());
+        }
+        if (token == null && publicLink == null) {
+            System.err.println("Renseigner -Dload.token et/ou -Dload.publicLink");
+        }
+    }
+
+    private static void run(HttpClient client, String name, HttpRequest request) throws Exception {
+        drive(client, request, WARMUP_SECONDS);
+        Result result = drive(client, request, SECONDS);
+
+        long[] latencies = result.latencies;
+        Arrays.sort(latencies);
+        System.out.printf("%-14s concurrency=%d requests=%d errors=%d throughput=%.1f req/s p50=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                name, CONCURRENCY, latencies.length, result.errors, latencies.length / (double) SECONDS,
+                percentile(latencies, 0.50), percentile(latencies, 0.99),
+                latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+    }
+
+    // Boucle fermée : chaque client envoie sa requête suivante dès réception de la réponse
+    private static Result drive(HttpClient client, HttpRequest request, int seconds) throws Exception {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int i = 0; i < CONCURRENCY; i++) {
+                futures.add(clients.submit(() -> {
+                    Result result = new Result();
+                    List<Long> latencies = new ArrayList<>();
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                result.errors++;
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            result.errors++;
+                            continue;
+                        }
+                        latencies.add(System.nanoTime() - start);
+                    }
+                    result.latencies = latencies.stream().mapToLong(Long::longValue).toArray();
+                    return result;
+                }));
+            }
+
+            Result total = new Result();
+            total.latencies = new long[0];
+            for (Future<Result> future : futures) {
+                Result result = future.get();
+                long[] merged = Arrays.copyOf(total.latencies, total.latencies.length + result.latencies.length);
+                System.arraycopy(result.latencies, 0, merged, total.latencies.length, result.latencies.length);
+                total.latencies = merged;
+                total.errors += result.errors;
+            }
+            return total;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private static final class Result {
+        private long[] latencies;
+        private long errors;
+    }
+}
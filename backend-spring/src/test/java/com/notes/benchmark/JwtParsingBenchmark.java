@@ -0,0 +1,93 @@
+package com.notes.benchmark;
+
+import com.notes.security.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// Coût CPU de l'authentification JWT par requête
+// Lancement : mvn test-compile exec:java -Dexec.mainClass=com.notes.benchmark.JwtParsingBenchmark -Dexec.classpathScope=test
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtParsingBenchmark {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890";
+
+    private JwtUtils cachedJwtUtils;
+    private JwtUtils uncachedJwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachedJwtUtils = createJwtUtils(10000);
+        uncachedJwtUtils = createJwtUtils(0);
+        token = cachedJwtUtils.generateAccessTokenFromEmail("benchmark@notessuite.com");
+    }
+
+    // Ancien chemin du filtre : trois parsers construits et trois vérifications HMAC
+    @Benchmark
+    public String legacyTripleParse() {
+        for (int i = 0; i < 2; i++) {
+            Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                    .build()
+                    .parseClaimsJws(token);
+        }
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody()
+                .getSubject();
+    }
+
+    // Parser unique construit au démarrage, sans cache
+    @Benchmark
+    public String singleParse() {
+        Claims claims = uncachedJwtUtils.parseVerifiedClaims(token);
+        return uncachedJwtUtils.isAccessToken(claims) ? claims.getSubject() : null;
+    }
+
+    // Token déjà vérifié : empreinte SHA-256 et lecture du cache
+    @Benchmark
+    public String cachedParse() {
+        Claims claims = cachedJwtUtils.parseVerifiedClaims(token);
+        return cachedJwtUtils.isAccessToken(claims) ? claims.getSubject() : null;
+    }
+
+    private static JwtUtils createJwtUtils(int cacheSize) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3600000);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheMaxSize", cacheSize);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtParsingBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,40 @@
+package com.notes.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// File équitable devant le pool de connexions : par défaut seulement si les threads virtuels sont
+// réellement utilisés (spring.threads.virtual.enabled est ignoré avant Java 21)
+class ThreadingConfigTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withUserConfiguration(ThreadingConfig.class)
+            .withBean(DataSource.class, () -> new DriverManagerDataSource("jdbc:h2:mem:threading"));
+
+    @Test
+    void autoFollowsTheThreadsActuallyInUse() {
+        boolean virtualThreadsAvailable = JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE);
+
+        runner.withPropertyValues("spring.threads.virtual.enabled=true")
+                .run(context -> assertEquals(virtualThreadsAvailable,
+                        context.getBean(DataSource.class) instanceof ConcurrencyLimitingDataSource));
+        runner.withPropertyValues("spring.threads.virtual.enabled=false")
+                .run(context -> assertFalse(context.getBean(DataSource.class) instanceof ConcurrencyLimitingDataSource));
+    }
+
+    @Test
+    void explicitSettingOverridesTheThreadingMode() {
+        runner.withPropertyValues("notes.datasource.concurrency-limit.enabled=true")
+                .run(context -> assertTrue(context.getBean(DataSource.class) instanceof ConcurrencyLimitingDataSource));
+        runner.withPropertyValues("notes.datasource.concurrency-limit.enabled=false", "spring.threads.virtual.enabled=true")
+                .run(context -> assertFalse(context.getBean(DataSource.class) instanceof ConcurrencyLimitingDataSource));
+    }
+}
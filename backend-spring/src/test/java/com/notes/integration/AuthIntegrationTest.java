@@ -59,8 +59,9 @@ class AuthIntegrationTest {
                         "password": "password123"
                     }
                     """))
-                .andExpect(status().isOk())
-                .andExpect(content().string("Utilisateur enregistré avec succès"));
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.email").value("test@example.com"))
+                .andExpect(jsonPath("$.accessToken").isNotEmpty());
     }
 
     @Test
@@ -0,0 +1,214 @@
+package com.notes.integration;
+
+import com.notes.dto.note.NoteCreateDto;
+import com.notes.dto.note.NoteUpdateDto;
+import com.notes.model.NoteVisibility;
+import com.notes.model.User;
+import com.notes.repository.NoteAccessRepository;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.NoteRevisionRepository;
+import com.notes.repository.UserRepository;
+import com.notes.service.EventStreamService;
+import com.notes.service.NoteService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+// Flux SSE /api/v1/events : événements remis après commit, reprise par Last-Event-ID depuis note_changes,
+// resynchronisation si la reprise est impossible, fermeture d'une connexion dont la file déborde
+// Un seul thread d'envoi et une file de quatre événements ; sans fenêtre de stabilisation (rejeu exact)
+@SpringBootTest(properties = {
+        "notes.events.send-threads=1",
+        "notes.events.send-buffer=4",
+        "notes.sync.settle-ms=0"
+})
+@ActiveProfiles("test")
+class EventStreamIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteAccessRepository noteAccessRepository;
+
+    @Autowired
+    private NoteRevisionRepository noteRevisionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private MockMvc mockMvc;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private User owner;
+    private Long noteId;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity()).build();
+        owner = userRepository.save(new User("events-owner@example.com", "password-hash"));
+        noteId = noteService.createNote(new NoteCreateDto("Suivie", "contenu", NoteVisibility.PRIVATE), owner).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jdbcTemplate.update("DELETE FROM note_changes");
+        noteRevisionRepository.deleteAll();
+        noteAccessRepository.deleteAll();
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void noteChangedIsDeliveredAfterCommitOnly() throws Exception {
+        MvcResult stream = subscribe(null);
+
+        // Transaction annulée : ni entrée note_changes ni événement, même publié explicitement
+        transactionTemplate.executeWithoutResult(status -> {
+            noteService.updateNote(noteId, new NoteUpdateDto("Annulée", "contenu", NoteVisibility.PRIVATE), owner);
+            eventStreamService.publish(List.of(owner.getId()), EventStreamService.SHARE_GRANTED, noteId);
+            status.setRollbackOnly();
+        });
+
+        noteService.updateNote(noteId, new NoteUpdateDto("Validée", "contenu", NoteVisibility.PRIVATE), owner);
+        List<Long> changeIds = changeIds();
+
+        String content = awaitContent(stream, "id:" + last(changeIds));
+        assertTrue(content.contains("event:note.changed"), content);
+        assertTrue(content.contains("data:{\"noteId\":" + noteId + "}"), content);
+        assertEquals(1, occurrences(content, "event:"), content);
+    }
+
+    @Test
+    void lastEventIdReplaysMissedChanges() throws Exception {
+        noteService.updateNote(noteId, new NoteUpdateDto("Deux", "contenu", NoteVisibility.PRIVATE), owner);
+        noteService.updateNote(noteId, new NoteUpdateDto("Trois", "contenu", NoteVisibility.PRIVATE), owner);
+        List<Long> changeIds = changeIds();
+        assertEquals(3, changeIds.size());
+
+        // Événement de la création déjà reçu : seules les deux mises à jour sont rejouées, dans l'ordre
+        String content = awaitContent(subscribe(changeIds.get(0).toString()), "id:" + changeIds.get(2));
+        assertFalse(content.contains("id:" + changeIds.get(0) + "\n"), content);
+        assertTrue(content.indexOf("id:" + changeIds.get(1)) < content.indexOf("id:" + changeIds.get(2)), content);
+        assertEquals(2, occurrences(content, "event:note.changed"), content);
+    }
+
+    @Test
+    void unrecoverableLastEventIdAsksForResync() throws Exception {
+        noteService.updateNote(noteId, new NoteUpdateDto("Deux", "contenu", NoteVisibility.PRIVATE), owner);
+        noteService.updateNote(noteId, new NoteUpdateDto("Trois", "contenu", NoteVisibility.PRIVATE), owner);
+        List<Long> changeIds = changeIds();
+
+        // Entrées suivant le dernier événement reçu purgées : reprise incomplète
+        jdbcTemplate.update("DELETE FROM note_changes WHERE id <= ?", changeIds.get(1));
+        String purged = awaitContent(subscribe(changeIds.get(0).toString()), "event:resync");
+        assertFalse(purged.contains("event:note.changed"), purged);
+
+        // Identifiant illisible (ancien format)
+        awaitContent(subscribe("2024-01-01T00:00:00"), "event:resync");
+    }
+
+    @Test
+    void overflowingSubscriberQueueClosesTheStream() throws Exception {
+        // Connexions des autres tests encore ouvertes (jamais terminées par MockMvc)
+        int others = eventStreamService.getSubscriberCount();
+        MvcResult stream = subscribe(null);
+        assertEquals(others + 1, eventStreamService.getSubscriberCount());
+
+        // Unique thread d'envoi bloqué : les événements restent en file
+        ExecutorService senders = (ExecutorService) ReflectionTestUtils.getField(eventStreamService, "senders");
+        CountDownLatch blocked = new CountDownLatch(1);
+        senders.execute(() -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        blocked.await();
+
+        for (int i = 0; i < 5; i++) {
+            eventStreamService.publish(Map.of(owner.getId(), (long) i), EventStreamService.NOTE_CHANGED, noteId);
+        }
+
+        // Cinquième événement refusé par la file de quatre : connexion fermée, file vidée
+        assertEquals(others, eventStreamService.getSubscriberCount());
+        release.countDown();
+        Thread.sleep(200);
+        assertFalse(stream.getResponse().getContentAsString().contains("event:"));
+    }
+
+    private MvcResult subscribe(String lastEventId) throws Exception {
+        var request = get("/api/v1/events").with(user(owner));
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    // Envois asynchrones (pool d'envoi) : attente bornée du texte attendu dans la réponse
+    private static String awaitContent(MvcResult stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = stream.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = stream.getResponse().getContentAsString();
+        }
+        assertTrue(content.contains(expected), "missing " + expected + " in " + content);
+        return content;
+    }
+
+    private List<Long> changeIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM note_changes WHERE user_id = ? ORDER BY id", Long.class,
+                owner.getId());
+    }
+
+    private static Long last(List<Long> values) {
+        return values.get(values.size() - 1);
+    }
+
+    private static int occurrences(String content, String token) {
+        return content.split(token, -1).length - 1;
+    }
+}
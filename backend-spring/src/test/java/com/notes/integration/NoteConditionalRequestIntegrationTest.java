@@ -0,0 +1,210 @@
+package com.notes.integration;
+
+import com.notes.dto.note.NoteCreateDto;
+import com.notes.dto.note.NoteUpdateDto;
+import com.notes.mapper.NoteMapper;
+import com.notes.model.NoteVisibility;
+import com.notes.model.User;
+import com.notes.repository.NoteAccessRepository;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.NoteRevisionRepository;
+import com.notes.repository.UserRepository;
+import com.notes.service.NoteService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Requêtes conditionnelles sur GET/PUT /api/v1/notes/{id} et PATCH .../content : ETag dérivé de la version
+// Sans @Transactional : chaque requête valide sa transaction (éviction du cache comprise)
+@SpringBootTest
+@ActiveProfiles("test")
+class NoteConditionalRequestIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteAccessRepository noteAccessRepository;
+
+    @Autowired
+    private NoteRevisionRepository noteRevisionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private NoteMapper noteMapper;
+
+    private MockMvc mockMvc;
+
+    private User owner;
+    private Long noteId;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity()).build();
+        owner = userRepository.save(new User("etag-owner@example.com", "password-hash"));
+        noteId = noteService.createNote(new NoteCreateDto("Version", "contenu", NoteVisibility.PRIVATE), owner).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        noteRevisionRepository.deleteAll();
+        noteAccessRepository.deleteAll();
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void matchingIfNoneMatchReturnsNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/notes/" + noteId).with(user(owner)))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(eTag(currentVersion()), eTag);
+
+        for (String ifNoneMatch : new String[]{eTag, "W/" + eTag, "*", "\"999\", " + eTag}) {
+            mockMvc.perform(get("/api/v1/notes/" + noteId).with(user(owner))
+                            .header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, eTag));
+        }
+
+        // ETag d'une version antérieure ou illisible : note renvoyée
+        mockMvc.perform(get("/api/v1/notes/" + noteId).with(user(owner))
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag(currentVersion() + 1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Version"));
+        mockMvc.perform(get("/api/v1/notes/" + noteId).with(user(owner))
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"abc\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void ifNoneMatchOnInaccessibleNoteIsNotAnsweredWithNotModified() throws Exception {
+        User stranger = userRepository.save(new User("etag-stranger@example.com", "password-hash"));
+
+        mockMvc.perform(get("/api/v1/notes/" + noteId).with(user(stranger))
+                        .header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void staleIfMatchIsRejectedWithCurrentETag() throws Exception {
+        Long version = currentVersion();
+        mockMvc.perform(update("Première").header(HttpHeaders.IF_MATCH, eTag(version)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag(currentVersion())));
+
+        // ETag lu avant la mise à jour précédente (forme faible comprise)
+        for (String ifMatch : new String[]{eTag(version), "W/" + eTag(version), "\"abc\""}) {
+            mockMvc.perform(update("Trop tard").header(HttpHeaders.IF_MATCH, ifMatch))
+                    .andExpect(status().isPreconditionFailed())
+                    .andExpect(header().string(HttpHeaders.ETAG, eTag(currentVersion())));
+        }
+        assertEquals("Première", noteRepository.findById(noteId).orElseThrow().getTitle());
+    }
+
+    @Test
+    void weakAndWildcardIfMatchAreAccepted() throws Exception {
+        mockMvc.perform(update("Faible").header(HttpHeaders.IF_MATCH, "W/" + eTag(currentVersion())))
+                .andExpect(status().isOk());
+        mockMvc.perform(update("Joker").header(HttpHeaders.IF_MATCH, "*"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag(currentVersion())));
+        assertEquals("Joker", noteRepository.findById(noteId).orElseThrow().getTitle());
+    }
+
+    @Test
+    void lostUpdateIsAConflictWithoutIfMatchAndAFailedPreconditionWithIt() throws Exception {
+        // Écriture concurrente validée entre la lecture de la note et son flush : l'UPDATE versionné
+        // ne touche aucune ligne
+        doAnswer(invocation -> {
+            jdbcTemplate.update("UPDATE notes SET version = version + 1 WHERE id = ?", noteId);
+            return invocation.callRealMethod();
+        }).when(noteMapper).updateEntity(any(NoteUpdateDto.class), any());
+
+        mockMvc.perform(update("Perdue"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(update("Perdue").header(HttpHeaders.IF_MATCH, eTag(currentVersion())))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals("Version", noteRepository.findById(noteId).orElseThrow().getTitle());
+    }
+
+    @Test
+    void contentPatchAnswersInvalidRangesAndStaleBaseVersion() throws Exception {
+        Long version = currentVersion();
+
+        mockMvc.perform(patchContent(version, "[{\"start\": 0, \"end\": 5, \"text\": \"a\"}, {\"start\": 3, \"end\": 6, \"text\": \"b\"}]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patchContent(version, "[{\"start\": 0, \"end\": 99, \"text\": \"a\"}]"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(patchContent(version, "[{\"start\": 0, \"end\": 0, \"text\": \"» \"}]"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag(currentVersion())))
+                .andExpect(jsonPath("$.version").value(currentVersion()));
+        mockMvc.perform(patchContent(version, "[{\"start\": 0, \"end\": 0, \"text\": \"» \"}]"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag(currentVersion())));
+        assertEquals("» contenu", noteRepository.findById(noteId).orElseThrow().getContentMd());
+    }
+
+    private MockHttpServletRequestBuilder patchContent(Long baseVersion, String edits) {
+        return patch("/api/v1/notes/" + noteId + "/content").with(user(owner))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"baseVersion\": " + baseVersion + ", \"edits\": " + edits + "}");
+    }
+
+    private MockHttpServletRequestBuilder update(String title) {
+        return put("/api/v1/notes/" + noteId).with(user(owner))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {
+                        "title": "%s",
+                        "contentMd": "contenu",
+                        "visibility": "PRIVATE"
+                    }
+                    """.formatted(title));
+    }
+
+    private Long currentVersion() {
+        return noteRepository.findById(noteId).orElseThrow().getVersion();
+    }
+
+    private static String eTag(Long version) {
+        return "\"" + version + "\"";
+    }
+}
@@ -0,0 +1,203 @@
+package com.notes.integration;
+
+import com.notes.config.CacheConfig;
+import com.notes.dto.publiclink.PublicLinkCreateDto;
+import com.notes.model.Note;
+import com.notes.model.NoteVisibility;
+import com.notes.model.PublicLink;
+import com.notes.model.User;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.PublicLinkRepository;
+import com.notes.repository.UserRepository;
+import com.notes.service.PublicLinkService;
+import com.notes.service.PublicLinkTokenFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Pool BCrypt saturé (un thread occupé, une tâche en file) : les requêtes qui doivent hacher sont refusées
+// en 429 avec Retry-After, sans attendre ; une autorisation de lien public valide évite le hachage
+@SpringBootTest(properties = {
+        "notes.password-hashing.threads=1",
+        "notes.password-hashing.queue-capacity=1",
+        "notes.password-hashing.timeout-ms=10000"
+})
+@ActiveProfiles("test")
+class PasswordHashingSaturationIntegrationTest {
+
+    private static final String TOKEN = "saturated-link-token";
+    private static final String GRANT_HEADER = "X-Public-Link-Grant";
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private PublicLinkRepository publicLinkRepository;
+
+    @Autowired
+    private PublicLinkService publicLinkService;
+
+    @Autowired
+    private PublicLinkTokenFilter tokenFilter;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private MockMvc mockMvc;
+
+    private CountDownLatch release;
+
+    private User owner;
+    private PublicLink publicLink;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+
+        owner = userRepository.save(new User("saturated-owner@example.com", passwordEncoder.encode("password123")));
+        Note note = noteRepository.save(new Note("Note protégée", "contenu", owner, NoteVisibility.PUBLIC));
+        publicLink = new PublicLink(note, TOKEN);
+        publicLink.setPasswordHash(passwordEncoder.encode("secret"));
+        publicLink = publicLinkRepository.save(publicLink);
+        // Lien inséré sans passer par PublicLinkService : token déclaré au filtre des tokens existants
+        tokenFilter.add(TOKEN);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (release != null) {
+            release.countDown();
+        }
+        publicLinkRepository.deleteAll();
+        // Lien supprimé sans passer par PublicLinkService : résolution en cache retirée (même token au test suivant)
+        cacheManager.getCache(CacheConfig.PUBLIC_LINKS).clear();
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void saturatedPoolAnswersTooManyRequestsWithRetryAfter() throws Exception {
+        saturate();
+
+        mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {
+                                "email": "saturated-owner@example.com",
+                                "password": "password123"
+                            }
+                            """))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        mockMvc.perform(verifyPassword("secret"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        mockMvc.perform(get("/api/v1/p/" + TOKEN).param("password", "secret"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        // Pool libéré : la vérification aboutit de nouveau
+        release();
+        mockMvc.perform(verifyPassword("secret"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valid").value(true));
+    }
+
+    @Test
+    void accessGrantSkipsHashingUntilTheLinkPasswordChanges() throws Exception {
+        String grant = mockMvc.perform(verifyPassword("secret"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookie("public_link_grant").getValue();
+
+        // Autorisation valide : accès sans BCrypt, même pool saturé
+        saturate();
+        mockMvc.perform(get("/api/v1/p/" + TOKEN).header(GRANT_HEADER, grant))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.note.title").value("Note protégée"));
+        release();
+
+        publicLinkService.updatePublicLink(publicLink.getId(),
+                new PublicLinkCreateDto(null, null, null, "nouveau-secret"), owner);
+
+        // Autorisation liée à l'ancien mot de passe : refusée, le mot de passe est de nouveau haché
+        saturate();
+        mockMvc.perform(get("/api/v1/p/" + TOKEN).header(GRANT_HEADER, grant))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/p/" + TOKEN).header(GRANT_HEADER, grant).param("password", "nouveau-secret"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    // Occupe l'unique thread de hachage et l'unique place de la file jusqu'à release
+    private void saturate() {
+        release = new CountDownLatch(1);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordEncoder, "executor");
+        CountDownLatch running = new CountDownLatch(1);
+        executor.execute(() -> {
+            running.countDown();
+            awaitRelease();
+        });
+        // Tâche prise par le thread avant d'occuper la file (sinon les deux se disputent l'unique place)
+        try {
+            running.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        executor.execute(this::awaitRelease);
+    }
+
+    // Libère les tâches bloquantes et attend qu'elles aient quitté le pool
+    private void release() throws InterruptedException {
+        release.countDown();
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordEncoder, "executor");
+        while (executor.getActiveCount() > 0 || !executor.getQueue().isEmpty()) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private MockHttpServletRequestBuilder verifyPassword(String password) {
+        return post("/api/v1/p/" + TOKEN + "/verify-password")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"password\": \"" + password + "\"}");
+    }
+}
@@ -0,0 +1,90 @@
+package com.notes.integration;
+
+import com.notes.model.Note;
+import com.notes.model.NoteVisibility;
+import com.notes.model.PublicLink;
+import com.notes.model.User;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.PublicLinkRepository;
+import com.notes.repository.UserRepository;
+import com.notes.service.PublicLinkTokenFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureWebMvc
+@ActiveProfiles("test")
+@Transactional
+class PublicAccessIntegrationTest {
+
+    private static final String TOKEN = "protected-link-token";
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private PublicLinkRepository publicLinkRepository;
+
+    @Autowired
+    private PublicLinkTokenFilter tokenFilter;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+
+        User owner = userRepository.save(new User("public-owner@example.com", passwordEncoder.encode("password123")));
+        Note note = noteRepository.save(new Note("Note partagée", "contenu", owner, NoteVisibility.PUBLIC));
+        PublicLink publicLink = new PublicLink(note, TOKEN);
+        publicLink.setPasswordHash(passwordEncoder.encode("secret"));
+        publicLinkRepository.save(publicLink);
+        // Lien inséré sans passer par PublicLinkService : token déclaré au filtre des tokens existants
+        tokenFilter.add(TOKEN);
+    }
+
+    @Test
+    void testVerifyPasswordReturnsNoteTitle() throws Exception {
+        mockMvc.perform(post("/api/v1/p/" + TOKEN + "/verify-password")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {
+                        "password": "secret"
+                    }
+                    """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valid").value(true))
+                .andExpect(jsonPath("$.publicLink.noteTitle").value("Note partagée"));
+    }
+
+    @Test
+    void testAccessByTokenReturnsNoteTitle() throws Exception {
+        mockMvc.perform(get("/api/v1/p/" + TOKEN).param("password", "secret"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.note.title").value("Note partagée"))
+                .andExpect(jsonPath("$.publicLink.noteTitle").value("Note partagée"));
+    }
+}
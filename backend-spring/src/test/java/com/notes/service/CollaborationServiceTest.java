@@ -0,0 +1,242 @@
+package com.notes.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notes.dto.note.NoteUpdateDto;
+import com.notes.model.Note;
+import com.notes.model.NoteVisibility;
+import com.notes.model.Share;
+import com.notes.model.SharePermission;
+import com.notes.model.User;
+import com.notes.repository.NoteAccessRepository;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.NoteRevisionRepository;
+import com.notes.repository.ShareRepository;
+import com.notes.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Session d'édition collaborative, sans serveur WebSocket : les connexions sont simulées et
+// les messages envoyés par le serveur relevés par connexion
+// Vidage planifié neutralisé (appelé explicitement) ; droits revérifiés à chaque passage
+@SpringBootTest(properties = {
+        "notes.collaboration.flush-interval-ms=3600000",
+        "notes.collaboration.permission-ttl-ms=0"
+})
+@ActiveProfiles("test")
+class CollaborationServiceTest {
+
+    @Autowired
+    private CollaborationService collaborationService;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private ShareService shareService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ShareRepository shareRepository;
+
+    @Autowired
+    private NoteAccessRepository noteAccessRepository;
+
+    @Autowired
+    private NoteRevisionRepository noteRevisionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<WebSocketSession> sockets = new ArrayList<>();
+
+    private User owner;
+    private User recipient;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User("live-owner@example.com", "password-hash"));
+        recipient = userRepository.save(new User("live-recipient@example.com", "password-hash"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sockets.forEach(collaborationService::leave);
+        noteRevisionRepository.deleteAll();
+        noteAccessRepository.deleteAll();
+        shareRepository.deleteAll();
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void joinSendsInitWithPermissionOfEachParticipant() {
+        Note note = noteRepository.save(new Note("Publique", "abc", owner, NoteVisibility.PUBLIC));
+        User reader = userRepository.save(new User("live-reader@example.com", "password-hash"));
+        shareRepository.save(new Share(note, recipient, SharePermission.WRITE));
+
+        Connection ownerConnection = join(note, owner);
+        Connection writer = join(note, recipient);
+        Connection publicReader = join(note, reader);
+
+        Map<String, Object> init = ownerConnection.first("init");
+        assertEquals(0, init.get("revision"));
+        assertEquals("abc", init.get("content"));
+        assertEquals(false, init.get("readOnly"));
+
+        // Partage WRITE sur une note publique : le partage l'emporte sur l'accès public en lecture
+        assertEquals(false, writer.first("init").get("readOnly"));
+        assertEquals(true, publicReader.first("init").get("readOnly"));
+        assertEquals(List.of(owner.getId().intValue(), recipient.getId().intValue(), reader.getId().intValue()),
+                publicReader.first("init").get("participants"));
+        assertEquals(recipient.getId().intValue(), ownerConnection.first("join").get("userId"));
+
+        // Participant en lecture seule : opération refusée, document inchangé
+        publicReader.send(0, List.of("X", 3), "ro");
+        assertEquals("Vous n'avez pas le droit de modifier cette note", publicReader.first("error").get("message"));
+        assertNull(ownerConnection.first("op"));
+    }
+
+    @Test
+    void operationIsAcknowledgedBroadcastAndStaleOperationsTransformed() {
+        Note note = noteRepository.save(new Note("Partagée", "abc", owner, NoteVisibility.SHARED));
+        shareRepository.save(new Share(note, recipient, SharePermission.WRITE));
+        Connection first = join(note, owner);
+        Connection second = join(note, recipient);
+
+        first.send(0, List.of("X", 3), "c1");
+        assertEquals(1, first.first("ack").get("revision"));
+        assertEquals("c1", first.first("ack").get("clientOpId"));
+        Map<String, Object> broadcast = second.first("op");
+        assertEquals(1, broadcast.get("revision"));
+        assertEquals(List.of("X", 3), broadcast.get("ops"));
+        assertEquals(owner.getId().intValue(), broadcast.get("userId"));
+
+        // Opération écrite contre la révision 0 : transformée contre l'insertion de "X"
+        // (l'émetteur ne reçoit que l'acquittement de la sienne)
+        second.send(0, List.of(3, "Y"), "c2");
+        assertEquals(2, second.first("ack").get("revision"));
+        assertEquals(List.of(4, "Y"), first.first("op").get("ops"));
+        assertNull(first.first("op", 1));
+
+        // Le document transformé est celui écrit en base au départ des participants
+        first.leave();
+        second.leave();
+        assertEquals("XabcY", noteRepository.findById(note.getId()).orElseThrow().getContentMd());
+    }
+
+    @Test
+    void externalWriteIsMergedIntoTheSession() {
+        Note note = noteRepository.save(new Note("Privée", "abc", owner, NoteVisibility.PRIVATE));
+        Connection connection = join(note, owner);
+        connection.send(0, List.of("X", 3), "c1");
+
+        // PUT hors session contre le contenu écrit avant la session
+        noteService.updateNote(note.getId(), new NoteUpdateDto("Privée", "abc!", NoteVisibility.PRIVATE), owner);
+        collaborationService.flush();
+
+        Map<String, Object> merged = connection.first("op");
+        assertEquals(2, merged.get("revision"));
+        assertNull(merged.get("userId"));
+        assertEquals(List.of(4, "!"), merged.get("ops"));
+        assertEquals("Xabc!", noteRepository.findById(note.getId()).orElseThrow().getContentMd());
+    }
+
+    @Test
+    void revokedParticipantIsDisconnected() throws Exception {
+        Note note = noteRepository.save(new Note("Partagée", "abc", owner, NoteVisibility.SHARED));
+        Share share = shareRepository.save(new Share(note, recipient, SharePermission.READ));
+        Connection ownerConnection = join(note, owner);
+        Connection reader = join(note, recipient);
+
+        collaborationService.flush();
+        verify(reader.socket, never()).close(any());
+
+        shareService.revokeShare(share.getId(), owner);
+        collaborationService.flush();
+
+        verify(reader.socket).close(argThat(status -> status.getCode() == CloseStatus.POLICY_VIOLATION.getCode()));
+        verify(ownerConnection.socket, never()).close(any());
+        assertEquals(recipient.getId().intValue(), ownerConnection.first("leave").get("userId"));
+    }
+
+    private Connection join(Note note, User user) {
+        Connection connection = new Connection("socket-" + sockets.size());
+        sockets.add(connection.socket);
+        collaborationService.join(note.getId(), user, connection.socket);
+        return connection;
+    }
+
+    // Connexion simulée : messages reçus du serveur, dans l'ordre
+    private final class Connection {
+
+        private final WebSocketSession socket = mock(WebSocketSession.class);
+        private final List<Map<String, Object>> received = new ArrayList<>();
+
+        private Connection(String id) {
+            when(socket.getId()).thenReturn(id);
+            when(socket.isOpen()).thenReturn(true);
+            try {
+                doAnswer(invocation -> {
+                    TextMessage message = invocation.getArgument(0);
+                    received.add(objectMapper.readValue(message.getPayload(), new TypeReference<Map<String, Object>>() {}));
+                    return null;
+                }).when(socket).sendMessage(any());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void send(int revision, List<Object> ops, String clientOpId) {
+            try {
+                collaborationService.handleMessage(socket, objectMapper.writeValueAsString(
+                        Map.of("type", "op", "revision", revision, "ops", ops, "clientOpId", clientOpId)));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void leave() {
+            collaborationService.leave(socket);
+        }
+
+        private Map<String, Object> first(String type) {
+            return first(type, 0);
+        }
+
+        // index-ième message du type donné, null s'il n'a pas été reçu
+        private Map<String, Object> first(String type, int index) {
+            return received.stream()
+                    .filter(message -> type.equals(message.get("type")))
+                    .skip(index)
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.notes.service;
+
+import com.notes.model.Note;
+import com.notes.model.NoteAccess;
+import com.notes.model.NoteVisibility;
+import com.notes.model.Share;
+import com.notes.model.SharePermission;
+import com.notes.model.User;
+import com.notes.repository.NoteAccessRepository;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.ShareRepository;
+import com.notes.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Upsert idempotent de note_access et réparation par différence (lignes correctes conservées)
+@SpringBootTest
+@ActiveProfiles("test")
+class NoteAccessRepairTest {
+
+    @Autowired
+    private NoteAccessService noteAccessService;
+
+    @Autowired
+    private NoteAccessRepository noteAccessRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ShareRepository shareRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        noteAccessRepository.deleteAll();
+        shareRepository.deleteAll();
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void repairFixesOnlyDivergentRows() {
+        User owner = userRepository.save(new User("owner@example.com", "password-hash"));
+        User reader = userRepository.save(new User("reader@example.com", "password-hash"));
+
+        Long noteId = transactionTemplate.execute(status -> {
+            Note note = noteRepository.save(new Note("Note partagée", "contenu", owner, NoteVisibility.PUBLIC));
+            Share share = shareRepository.save(new Share(note, reader, SharePermission.READ));
+            noteAccessService.syncNote(note);
+            noteAccessService.syncShare(share);
+            // Second passage : mise à jour sur place, sans violation d'unicité
+            noteAccessService.syncNote(note);
+            return note.getId();
+        });
+
+        assertEquals(0, noteAccessService.countDrift());
+        Long publicAccessId = accessId(NoteAccess.PUBLIC_USER_ID, noteId);
+
+        // Divergences : accès propriétaire perdu, permission altérée, ligne orpheline
+        jdbcTemplate.update("DELETE FROM note_access WHERE user_id = ? AND note_id = ?", owner.getId(), noteId);
+        jdbcTemplate.update("UPDATE note_access SET permission = 'ADMIN' WHERE user_id = ? AND note_id = ?",
+                reader.getId(), noteId);
+        jdbcTemplate.update("INSERT INTO note_access (user_id, note_id, permission) VALUES (?, ?, 'READ')",
+                reader.getId() + 1000, noteId);
+        assertTrue(noteAccessService.countDrift() > 0);
+
+        assertEquals(3, noteAccessService.repair());
+
+        assertEquals(0, noteAccessService.countDrift());
+        assertEquals(publicAccessId, accessId(NoteAccess.PUBLIC_USER_ID, noteId));
+        assertEquals("READ", jdbcTemplate.queryForObject(
+                "SELECT permission FROM note_access WHERE user_id = ? AND note_id = ?",
+                String.class, reader.getId(), noteId));
+    }
+
+    private Long accessId(Long userId, Long noteId) {
+        return jdbcTemplate.queryForObject("SELECT id FROM note_access WHERE user_id = ? AND note_id = ?",
+                Long.class, userId, noteId);
+    }
+}
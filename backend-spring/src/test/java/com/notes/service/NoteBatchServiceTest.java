@@ -0,0 +1,203 @@
+package com.notes.service;
+
+import com.notes.dto.note.NoteBatchOperationDto;
+import com.notes.dto.note.NoteBatchResultDto;
+import com.notes.model.Note;
+import com.notes.model.NoteVisibility;
+import com.notes.model.User;
+import com.notes.repository.NoteAccessRepository;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.NoteRevisionRepository;
+import com.notes.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+
+// Rejeu de la file hors ligne (POST /notes/batch) : idempotence par clientId et statut par opération
+@SpringBootTest
+@ActiveProfiles("test")
+class NoteBatchServiceTest {
+
+    @Autowired
+    private NoteBatchService noteBatchService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @SpyBean
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteAccessRepository noteAccessRepository;
+
+    @Autowired
+    private NoteRevisionRepository noteRevisionRepository;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User("batch-owner@example.com", "password-hash"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        noteRevisionRepository.deleteAll();
+        noteAccessRepository.deleteAll();
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void replayedCreationReturnsTheExistingNote() {
+        NoteBatchResultDto first = noteBatchService.apply(List.of(create("offline-1", "Hors ligne")), owner).get(0);
+        NoteBatchResultDto replayed = noteBatchService.apply(List.of(create("offline-1", "Hors ligne")), owner).get(0);
+
+        assertEquals(201, first.getStatus());
+        assertEquals(200, replayed.getStatus());
+        assertEquals(first.getNoteId(), replayed.getNoteId());
+        assertEquals("Hors ligne", replayed.getNote().getTitle());
+        assertEquals(1L, noteRepository.countByOwner(owner).longValue());
+    }
+
+    @Test
+    void laterOperationsTargetACreationOfTheSameBatchByClientId() {
+        NoteBatchOperationDto update = operation(NoteBatchOperationDto.Type.UPDATE, "draft", null);
+        update.setTitle("Renommée");
+        update.setContentMd("contenu modifié");
+        update.setVisibility(NoteVisibility.PRIVATE);
+
+        List<NoteBatchResultDto> results = noteBatchService.apply(List.of(
+                create("draft", "Brouillon"),
+                update,
+                create("temporary", "Temporaire"),
+                operation(NoteBatchOperationDto.Type.DELETE, "temporary", null)), owner);
+
+        assertEquals(List.of(201, 200, 201, 204), statuses(results));
+        Note draft = noteRepository.findById(results.get(0).getNoteId()).orElseThrow();
+        assertEquals("Renommée", draft.getTitle());
+        assertEquals(results.get(0).getNoteId(), results.get(1).getNoteId());
+        assertTrue(noteRepository.findById(results.get(2).getNoteId()).isEmpty());
+    }
+
+    @Test
+    void expectedFailuresAreReportedPerOperation() {
+        User stranger = userRepository.save(new User("batch-stranger@example.com", "password-hash"));
+        Note foreign = noteRepository.save(new Note("Autre", "contenu", stranger, NoteVisibility.PRIVATE));
+        Note mine = noteRepository.save(new Note("Mienne", "contenu", owner, NoteVisibility.PRIVATE));
+
+        NoteBatchOperationDto missing = operation(NoteBatchOperationDto.Type.DELETE, "missing", 999999L);
+        NoteBatchOperationDto forbidden = operation(NoteBatchOperationDto.Type.DELETE, "forbidden", foreign.getId());
+        NoteBatchOperationDto stale = operation(NoteBatchOperationDto.Type.UPDATE, "stale", mine.getId());
+        stale.setVersion(mine.getVersion() + 1);
+        stale.setTitle("Trop tard");
+        stale.setVisibility(NoteVisibility.PRIVATE);
+        NoteBatchOperationDto invalid = create("invalid", "");
+        NoteBatchOperationDto unknownClientId = operation(NoteBatchOperationDto.Type.DELETE, "never-created", null);
+
+        List<NoteBatchResultDto> results = noteBatchService.apply(List.of(
+                missing, forbidden, stale, invalid, unknownClientId, create("valid", "Valide")), owner);
+
+        assertEquals(List.of(404, 403, 412, 400, 400, 201), statuses(results));
+        results.subList(0, 5).forEach(result -> assertNull(result.getNote()));
+        // Les échecs attendus n'annulent pas la tranche : la création du même lot est validée
+        assertEquals(2L, noteRepository.countByOwner(owner).longValue());
+        assertEquals("Mienne", noteRepository.findById(mine.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void unexpectedErrorReplaysTheChunkOneOperationPerTransaction() {
+        // clientId plus long que la colonne (contrôlé par le contrôleur, pas par le service) :
+        // erreur de la base au commit, que les vérifications préalables ne détectent pas
+        NoteBatchOperationDto broken = create("x".repeat(80), "Cassée");
+
+        List<NoteBatchResultDto> results = noteBatchService.apply(List.of(
+                create("before", "Avant"), broken, create("after", "Après")), owner);
+
+        assertEquals(List.of(201, 500, 201), statuses(results));
+        assertEquals(2L, noteRepository.countByOwner(owner).longValue());
+    }
+
+    @Test
+    void concurrentReplaysOfTheSameCreationYieldOneNote() throws Exception {
+        int replays = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(replays);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<NoteBatchResultDto>> futures = new ArrayList<>();
+            for (int i = 0; i < replays; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return noteBatchService.apply(List.of(create("raced", "Envoyée deux fois")), owner).get(0);
+                }));
+            }
+            start.countDown();
+
+            List<Integer> statuses = new ArrayList<>();
+            Long noteId = null;
+            for (Future<NoteBatchResultDto> future : futures) {
+                NoteBatchResultDto result = future.get();
+                statuses.add(result.getStatus());
+                noteId = noteId != null ? noteId : result.getNoteId();
+                assertEquals(noteId, result.getNoteId());
+            }
+
+            assertEquals(1, statuses.stream().filter(status -> status == 201).count(), "statuses: " + statuses);
+            assertEquals(replays - 1, statuses.stream().filter(status -> status == 200).count(), "statuses: " + statuses);
+            assertEquals(1L, noteRepository.countByOwner(owner).longValue());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void creationCommittedByAnotherReplayAfterTheLookupIsReturned() {
+        // L'autre envoi valide sa note après la lecture des clientId de ce lot, pour la tranche comme
+        // pour le rejeu opération par opération : l'insertion viole uk_note_owner_client_id
+        Note other = new Note("Envoyée deux fois", "contenu", owner, NoteVisibility.PRIVATE);
+        other.setClientId("raced");
+        Long otherId = noteRepository.save(other).getId();
+        List<Object[]> committed = List.<Object[]>of(new Object[]{"raced", otherId});
+        doReturn(List.of()).doReturn(List.of()).doReturn(committed)
+                .when(noteRepository).findIdsByOwnerIdAndClientIdIn(any(), any());
+
+        NoteBatchResultDto result = noteBatchService.apply(List.of(create("raced", "Envoyée deux fois")), owner).get(0);
+
+        assertEquals(200, result.getStatus());
+        assertEquals(otherId, result.getNoteId());
+        assertEquals(1L, noteRepository.countByOwner(owner).longValue());
+    }
+
+    private static NoteBatchOperationDto create(String clientId, String title) {
+        NoteBatchOperationDto operation = operation(NoteBatchOperationDto.Type.CREATE, clientId, null);
+        operation.setTitle(title);
+        operation.setContentMd("contenu");
+        operation.setVisibility(NoteVisibility.PRIVATE);
+        return operation;
+    }
+
+    private static NoteBatchOperationDto operation(NoteBatchOperationDto.Type type, String clientId, Long id) {
+        return new NoteBatchOperationDto(type, clientId, id);
+    }
+
+    private static List<Integer> statuses(List<NoteBatchResultDto> results) {
+        return results.stream().map(NoteBatchResultDto::getStatus).toList();
+    }
+}
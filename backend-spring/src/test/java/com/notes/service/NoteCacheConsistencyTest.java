@@ -0,0 +1,156 @@
+package com.notes.service;
+
+import com.notes.config.BroadcastingCaffeineCache;
+import com.notes.config.CacheConfig;
+import com.notes.dto.note.NoteDto;
+import com.notes.dto.note.NoteUpdateDto;
+import com.notes.exception.UnauthorizedAccessException;
+import com.notes.model.Note;
+import com.notes.model.NoteVisibility;
+import com.notes.model.Share;
+import com.notes.model.SharePermission;
+import com.notes.model.User;
+import com.notes.repository.NoteAccessRepository;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.NoteRevisionRepository;
+import com.notes.repository.ShareRepository;
+import com.notes.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Lecture qui charge une note avant qu'une écriture concurrente soit validée : le modèle de lecture
+// en cache ne doit pas survivre à l'éviction de l'écrivain (ETag périmé, partage révoqué)
+@SpringBootTest
+@ActiveProfiles("test")
+class NoteCacheConsistencyTest {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private ShareService shareService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ShareRepository shareRepository;
+
+    @Autowired
+    private NoteAccessRepository noteAccessRepository;
+
+    @Autowired
+    private NoteRevisionRepository noteRevisionRepository;
+
+    @Autowired
+    private ViewCountAggregator viewCountAggregator;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        owner = userRepository.save(new User("cache-owner@example.com", "password-hash"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        noteRevisionRepository.deleteAll();
+        noteAccessRepository.deleteAll();
+        shareRepository.deleteAll();
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void readBeforeConcurrentUpdateDoesNotCacheStaleVersion() {
+        Note note = noteRepository.save(new Note("Avant", "contenu", owner, NoteVisibility.PRIVATE));
+        Long noteId = note.getId();
+
+        // Lecture dont la transaction se termine après le commit (et l'éviction) de l'écrivain
+        NoteDto read = readOnlyTransaction.execute(status -> {
+            NoteDto loaded = noteService.getNoteById(noteId, owner);
+            CompletableFuture.runAsync(() -> noteService.updateNote(noteId,
+                    new NoteUpdateDto("Après", "contenu modifié", NoteVisibility.PRIVATE), owner)).join();
+            return loaded;
+        });
+
+        Long currentVersion = noteRepository.findById(noteId).orElseThrow().getVersion();
+        assertEquals("Avant", read.getTitle());
+        assertEquals("Après", noteService.getNoteById(noteId, owner).getTitle());
+        assertEquals(Optional.of(currentVersion), noteService.findAccessibleNoteVersion(noteId, owner));
+    }
+
+    @Test
+    void readBeforeConcurrentRevocationDoesNotKeepRecipientAccess() {
+        User recipient = userRepository.save(new User("cache-recipient@example.com", "password-hash"));
+        Note note = noteRepository.save(new Note("Partagée", "contenu", owner, NoteVisibility.SHARED));
+        Share share = shareRepository.save(new Share(note, recipient, SharePermission.READ));
+        Long noteId = note.getId();
+
+        readOnlyTransaction.executeWithoutResult(status -> {
+            noteService.getNoteById(noteId, recipient);
+            CompletableFuture.runAsync(() -> shareService.revokeShare(share.getId(), owner)).join();
+        });
+
+        assertThrows(UnauthorizedAccessException.class, () -> noteService.getNoteById(noteId, recipient));
+        assertEquals(Optional.empty(), noteService.findAccessibleNoteVersion(noteId, recipient));
+    }
+
+    @Test
+    void viewCountFlushKeepsCachedNoteAndCount() {
+        Note note = noteRepository.save(new Note("Vues", "contenu", owner, NoteVisibility.PRIVATE));
+        Long noteId = note.getId();
+
+        assertEquals(1L, noteService.getNoteById(noteId, owner).getViewCount());
+        assertEquals(2L, noteService.getNoteById(noteId, owner).getViewCount());
+        viewCountAggregator.flush(true);
+
+        // Compteur écrit relu par requête : le vidage n'évince plus la note du cache
+        assertNotNull(cacheManager.getCache(CacheConfig.NOTES).get(noteId));
+        assertEquals(3L, noteService.getNoteById(noteId, owner).getViewCount());
+    }
+
+    @Test
+    void fillLoadedBeforeEvictionIsDropped() {
+        BroadcastingCaffeineCache notesCache = BroadcastingCaffeineCache.unwrap(cacheManager.getCache(CacheConfig.NOTES));
+        Long key = -1L;
+        NoteDto stale = new NoteDto();
+
+        long generation = notesCache.generation(key);
+        notesCache.evict(key);
+        notesCache.putUnlessInvalidated(key, stale, generation);
+        assertNull(notesCache.get(key));
+
+        notesCache.putUnlessInvalidated(key, stale, notesCache.generation(key));
+        assertEquals(stale, notesCache.get(key, NoteDto.class));
+        notesCache.evict(key);
+    }
+}
@@ -0,0 +1,119 @@
+package com.notes.service;
+
+import com.notes.dto.note.NoteContentPatchDto;
+import com.notes.dto.note.NoteContentPatchDto.Edit;
+import com.notes.exception.NoteVersionConflictException;
+import com.notes.model.Note;
+import com.notes.model.NoteVisibility;
+import com.notes.model.User;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.NoteRevisionRepository;
+import com.notes.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// PATCH du contenu par plages : remplacements appliqués contre baseVersion, plages invalides refusées
+// (400 côté contrôleur), version périmée refusée (412), patch sans effet sans nouvelle version
+@SpringBootTest
+@ActiveProfiles("test")
+class NoteContentPatchTest {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteRevisionRepository noteRevisionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+    private Note note;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User("patch-owner@example.com", "password-hash"));
+        note = noteRepository.save(new Note("Patch", "Bonjour le monde", owner, NoteVisibility.PRIVATE));
+    }
+
+    @AfterEach
+    void tearDown() {
+        noteRevisionRepository.deleteAll();
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void multipleEditsAreAppliedAgainstTheBaseContent() {
+        Long version = patch(note.getVersion(),
+                new Edit(0, 7, "Salut"),
+                new Edit(8, 8, "tout "),
+                new Edit(11, 16, "monde !"));
+
+        // Positions relatives au contenu de baseVersion, pas au contenu déjà modifié
+        assertEquals("Salut tout le monde !", content());
+        assertEquals(version, noteRepository.findById(note.getId()).orElseThrow().getVersion());
+        assertNotEquals(note.getVersion(), version);
+
+        // Suppression (texte absent) puis insertion en fin de contenu
+        patch(version, new Edit(5, 10, null), new Edit(21, 21, "?"));
+        assertEquals("Salut le monde !?", content());
+    }
+
+    @Test
+    void invalidRangesAreRejectedWithoutWriting() {
+        Long version = note.getVersion();
+
+        // Plages qui se chevauchent, non triées, inversée, au-delà du contenu
+        assertThrows(IllegalArgumentException.class, () -> patch(version, new Edit(0, 5, "a"), new Edit(3, 8, "b")));
+        assertThrows(IllegalArgumentException.class, () -> patch(version, new Edit(8, 10, "a"), new Edit(0, 2, "b")));
+        assertThrows(IllegalArgumentException.class, () -> patch(version, new Edit(5, 2, "a")));
+        assertThrows(IllegalArgumentException.class, () -> patch(version, new Edit(10, 17, "a")));
+
+        assertEquals("Bonjour le monde", content());
+        assertEquals(version, noteRepository.findById(note.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void staleBaseVersionIsRejectedWithCurrentVersion() {
+        Long current = patch(note.getVersion(), new Edit(0, 0, "» "));
+
+        NoteVersionConflictException conflict = assertThrows(NoteVersionConflictException.class,
+                () -> patch(note.getVersion(), new Edit(0, 7, "Salut")));
+
+        assertEquals(current, conflict.getCurrentVersion());
+        assertEquals("» Bonjour le monde", content());
+    }
+
+    @Test
+    void noOpPatchReturnsTheUnchangedVersion() {
+        Long version = note.getVersion();
+        long revisions = noteRevisionRepository.count();
+
+        assertEquals(version, patch(version, new Edit(0, 7, "Bonjour"), new Edit(16, 16, "")));
+
+        assertEquals(version, noteRepository.findById(note.getId()).orElseThrow().getVersion());
+        assertEquals(revisions, noteRevisionRepository.count());
+    }
+
+    private Long patch(Long baseVersion, Edit... edits) {
+        return noteService.patchNoteContent(note.getId(), new NoteContentPatchDto(baseVersion, List.of(edits)), owner);
+    }
+
+    private String content() {
+        return noteRepository.findById(note.getId()).orElseThrow().getContentMd();
+    }
+}
@@ -0,0 +1,263 @@
+package com.notes.service;
+
+import com.notes.dto.note.NoteCreateDto;
+import com.notes.model.NoteVisibility;
+import com.notes.model.User;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Allers-retours JDBC pour une création en masse par le chemin réel (NoteService, POST /notes/batch) :
+// notes et révisions en lots Hibernate (séquences par blocs de 50), accès et journal des
+// modifications en un lot chacun par transaction. Sans regroupement, chaque note coûterait
+// plusieurs requêtes (flush, upsert d'accès, lecture des destinataires, entrée du journal)
+@SpringBootTest
+@ActiveProfiles("test")
+class NoteInsertBatchingTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteInsertBatchingTest.class);
+
+    private static final int NOTES = 200;
+    private static final int BATCH_SIZE = 20;
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM note_changes");
+        jdbcTemplate.update("DELETE FROM note_access");
+        jdbcTemplate.update("DELETE FROM note_revisions");
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void bulkCreateThroughNoteServiceUsesJdbcBatches() {
+        User owner = userRepository.save(new User("batching@example.com", "password-hash"));
+
+        long roundTrips = StatementCounter.count(() -> transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < NOTES; i++) {
+                noteService.createNote(new NoteCreateDto("Note " + i, "contenu", NoteVisibility.PRIVATE), owner);
+            }
+        }));
+        logger.info("{} notes created through NoteService with {} JDBC round trips", NOTES, roundTrips);
+
+        assertEquals(NOTES, noteRepository.countByOwner(owner).longValue());
+        assertEquals(NOTES, count("SELECT COUNT(*) FROM note_revisions"));
+        assertEquals(NOTES, count("SELECT COUNT(*) FROM note_access"));
+        assertEquals(NOTES, count("SELECT COUNT(*) FROM note_changes"));
+        // Notes et révisions : un appel de séquence par bloc de 50 (+1 à l'initialisation de l'optimiseur)
+        // et un lot par tranche de 20 INSERT ; propriétaire : un chargement ; accès : un lot ;
+        // journal : une lecture et un lot
+        long maxRoundTrips = 2 * (NOTES / ALLOCATION_SIZE + 1 + NOTES / BATCH_SIZE) + 4;
+        assertTrue(roundTrips <= maxRoundTrips,
+                "Expected at most " + maxRoundTrips + " JDBC round trips, got " + roundTrips);
+    }
+
+    @Test
+    void batchEndpointUsesJdbcBatches() throws Exception {
+        User owner = userRepository.save(new User("batch-endpoint@example.com", "password-hash"));
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity()).build();
+
+        StringBuilder operations = new StringBuilder();
+        for (int i = 0; i < NOTES; i++) {
+            operations.append(i > 0 ? "," : "")
+                    .append("{\"type\":\"CREATE\",\"clientId\":\"client-").append(i)
+                    .append("\",\"title\":\"Note ").append(i)
+                    .append("\",\"contentMd\":\"contenu\",\"visibility\":\"PRIVATE\"}");
+        }
+        String body = "{\"operations\":[" + operations + "]}";
+
+        long roundTrips = StatementCounter.count(() -> {
+            try {
+                mockMvc.perform(post("/api/v1/notes/batch")
+                                .with(user(owner))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.succeeded").value(NOTES))
+                        .andExpect(jsonPath("$.failed").value(0));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        logger.info("{} notes created through POST /notes/batch with {} JDBC round trips", NOTES, roundTrips);
+
+        assertEquals(NOTES, noteRepository.countByOwner(owner).longValue());
+        // Par tranche de 20 : lecture des clientId, chargement du propriétaire, un lot de notes, un lot de
+        // révisions, un lot d'accès, lecture des destinataires et un lot d'entrées du journal ;
+        // plus les appels de séquence
+        long chunks = NOTES / BATCH_SIZE;
+        long maxRoundTrips = chunks * 7 + 2 * (NOTES / ALLOCATION_SIZE + 1);
+        assertTrue(roundTrips <= maxRoundTrips,
+                "Expected at most " + maxRoundTrips + " JDBC round trips, got " + roundTrips);
+    }
+
+    @Test
+    void expectedFailureDoesNotReplayTheChunk() throws Exception {
+        User owner = userRepository.save(new User("batch-replay@example.com", "password-hash"));
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).apply(springSecurity()).build();
+
+        // Une tranche : une mise à jour d'une note supprimée entre-temps (404) au milieu des créations
+        StringBuilder operations = new StringBuilder();
+        for (int i = 0; i < BATCH_SIZE - 1; i++) {
+            operations.append(i > 0 ? "," : "")
+                    .append("{\"type\":\"CREATE\",\"clientId\":\"replay-").append(i)
+                    .append("\",\"title\":\"Note ").append(i)
+                    .append("\",\"contentMd\":\"contenu\",\"visibility\":\"PRIVATE\"}");
+            if (i == BATCH_SIZE / 2) {
+                operations.append(",{\"type\":\"UPDATE\",\"clientId\":\"replay-gone\",\"id\":999999,\"title\":\"Supprimée\",")
+                        .append("\"contentMd\":\"contenu\",\"visibility\":\"PRIVATE\"}");
+            }
+        }
+        String body = "{\"operations\":[" + operations + "]}";
+
+        long roundTrips = StatementCounter.count(() -> {
+            try {
+                mockMvc.perform(post("/api/v1/notes/batch")
+                                .with(user(owner))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.succeeded").value(BATCH_SIZE - 1))
+                        .andExpect(jsonPath("$.failed").value(1))
+                        .andExpect(jsonPath("$.results[" + (BATCH_SIZE / 2 + 1) + "].status").value(404));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        logger.info("Chunk with one missing target applied with {} JDBC round trips", roundTrips);
+
+        assertEquals(BATCH_SIZE - 1, noteRepository.countByOwner(owner).longValue());
+        // Même borne qu'une tranche sans échec (plus la lecture de la note absente) : pas de rejeu
+        // opération par opération, qui coûterait plusieurs requêtes par opération
+        long maxRoundTrips = 8 + 2 * (BATCH_SIZE / ALLOCATION_SIZE + 1);
+        assertTrue(roundTrips <= maxRoundTrips,
+                "Expected at most " + maxRoundTrips + " JDBC round trips, got " + roundTrips);
+    }
+
+    private long count(String sql) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
+        return count != null ? count : 0L;
+    }
+
+    // Compte les exécutions de requêtes (execute*, executeBatch) faites par le thread mesuré
+    @TestConfiguration
+    static class StatementCounter {
+
+        private static final AtomicLong executions = new AtomicLong();
+        private static volatile Thread measured;
+
+        static long count(Runnable action) {
+            executions.set(0);
+            measured = Thread.currentThread();
+            try {
+                action.run();
+            } finally {
+                measured = null;
+            }
+            return executions.get();
+        }
+
+        @Bean
+        static BeanPostProcessor statementCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource) || bean instanceof CountingDataSource) {
+                        return bean;
+                    }
+                    return new CountingDataSource((DataSource) bean);
+                }
+            };
+        }
+
+        private static final class CountingDataSource extends DelegatingDataSource {
+
+            private CountingDataSource(DataSource target) {
+                super(target);
+            }
+
+            @Override
+            public Connection getConnection() throws SQLException {
+                return counting(Connection.class, super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return counting(Connection.class, super.getConnection(username, password));
+            }
+        }
+
+        // Connexion : les Statement créés sont enveloppés ; Statement : les exécutions sont comptées
+        @SuppressWarnings("unchecked")
+        private static <T> T counting(Class<T> type, T target) {
+            InvocationHandler handler = (proxy, method, args) -> {
+                if (Statement.class.isAssignableFrom(type) && method.getName().startsWith("execute")
+                        && Thread.currentThread() == measured) {
+                    executions.incrementAndGet();
+                }
+                try {
+                    Object result = method.invoke(target, args);
+                    if (type == Connection.class && result instanceof Statement) {
+                        return counting((Class<Statement>) method.getReturnType(), (Statement) result);
+                    }
+                    return result;
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            };
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+    }
+}
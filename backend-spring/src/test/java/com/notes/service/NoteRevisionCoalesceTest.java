@@ -0,0 +1,93 @@
+package com.notes.service;
+
+import com.notes.model.Note;
+import com.notes.model.NoteRevision;
+import com.notes.model.NoteVisibility;
+import com.notes.model.User;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.NoteRevisionRepository;
+import com.notes.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Sauvegardes automatiques d'un même auteur : fusionnées dans une révision pendant coalesce-ms
+// à partir de sa création, sans que chaque sauvegarde ne prolonge la fenêtre
+@SpringBootTest(properties = "notes.revisions.coalesce-ms=60000")
+@ActiveProfiles("test")
+class NoteRevisionCoalesceTest {
+
+    // Contenu assez long pour que chaque sauvegarde soit un DELTA (seul un DELTA est fusionné)
+    private static final String BODY = "ligne de contenu\n".repeat(200);
+
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+
+    @Autowired
+    private NoteRevisionRepository noteRevisionRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        noteRevisionRepository.deleteAll();
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void continuousAutosavesOpenANewRevisionOncePerWindow() {
+        User author = userRepository.save(new User("coalesce@example.com", "password-hash"));
+        Note note = noteRepository.save(new Note("Brouillon", BODY, author, NoteVisibility.PRIVATE));
+        transactionTemplate.executeWithoutResult(status -> noteRevisionService.recordInitial(note, author));
+
+        save(note, author, BODY + "v2");
+        LocalDateTime firstSave = LocalDateTime.now().minusSeconds(50).truncatedTo(ChronoUnit.MILLIS);
+        setCreatedAt(note, 2, firstSave);
+
+        // 50 s après la première sauvegarde : fusionnée, la date de création ne bouge pas
+        save(note, author, BODY + "v3");
+        assertEquals(2, latestRevision(note).getRevision());
+        assertEquals(firstSave, latestRevision(note).getCreatedAt().truncatedTo(ChronoUnit.MILLIS));
+
+        // 70 s après la première sauvegarde (20 s après la précédente) : nouvelle révision
+        setCreatedAt(note, 2, LocalDateTime.now().minusSeconds(70));
+        save(note, author, BODY + "v4");
+        assertEquals(3, latestRevision(note).getRevision());
+
+        // Un autre auteur ne fusionne jamais dans la révision d'un autre
+        User other = userRepository.save(new User("coalesce-other@example.com", "password-hash"));
+        save(note, other, BODY + "v5");
+        assertEquals(4, latestRevision(note).getRevision());
+    }
+
+    private void save(Note note, User author, String content) {
+        note.setContentMd(content);
+        transactionTemplate.executeWithoutResult(status -> noteRevisionService.record(note, author));
+    }
+
+    private void setCreatedAt(Note note, int revisionNumber, LocalDateTime createdAt) {
+        NoteRevision revision = noteRevisionRepository.findByNoteIdAndRevision(note.getId(), revisionNumber).orElseThrow();
+        revision.setCreatedAt(createdAt);
+        noteRevisionRepository.save(revision);
+    }
+
+    private NoteRevision latestRevision(Note note) {
+        return noteRevisionRepository.findFirstByNoteIdOrderByRevisionDesc(note.getId()).orElseThrow();
+    }
+}
@@ -0,0 +1,128 @@
+package com.notes.service;
+
+import com.notes.model.Note;
+import com.notes.model.NoteRevision;
+import com.notes.model.NoteRevisionKind;
+import com.notes.model.NoteVisibility;
+import com.notes.model.User;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.NoteRevisionRepository;
+import com.notes.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Compaction et rétention des révisions : seules les notes ayant encore du travail sont revisitées
+@SpringBootTest
+@ActiveProfiles("test")
+class NoteRevisionMaintenanceTest {
+
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+
+    @Autowired
+    private NoteRevisionRepository noteRevisionRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User("revisions@example.com", "password-hash"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        noteRevisionRepository.deleteAll();
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void compactsOldDeltasOnceAndRebasesOnExpiredSnapshots() {
+        LocalDateTime hour = LocalDateTime.now().minusDays(10).truncatedTo(ChronoUnit.HOURS);
+        Long compactedNoteId = noteRepository.save(new Note("Compaction", "v1", owner, NoteVisibility.PRIVATE)).getId();
+        NoteRevision base = save(snapshot(compactedNoteId, 1, "v1", hour));
+        save(delta(compactedNoteId, 2, base, "v1", "v2", hour.plusMinutes(10)));
+        save(delta(compactedNoteId, 3, base, "v1", "v3", hour.plusMinutes(20)));
+        save(delta(compactedNoteId, 4, base, "v1", "v4", hour.plusMinutes(30)));
+        save(delta(compactedNoteId, 5, base, "v1", "v5", LocalDateTime.now()));
+
+        LocalDateTime expired = LocalDateTime.now().minusDays(200);
+        Long expiredNoteId = noteRepository.save(new Note("Rétention", "a", owner, NoteVisibility.PRIVATE)).getId();
+        NoteRevision expiredBase = save(snapshot(expiredNoteId, 1, "a", expired));
+        save(delta(expiredNoteId, 2, expiredBase, "a", "ab", expired.plusMinutes(5)));
+        save(delta(expiredNoteId, 3, expiredBase, "a", "abc", LocalDateTime.now().minusDays(100)));
+        save(delta(expiredNoteId, 4, expiredBase, "a", "abcd", LocalDateTime.now().minusDays(50)));
+
+        noteRevisionService.maintain();
+
+        // Une révision par heure au-delà de compact-after-days, la dernière toujours conservée
+        assertEquals(List.of(1, 4, 5), revisionNumbers(compactedNoteId));
+
+        // SNAPSHOT expiré : le premier DELTA conservé devient SNAPSHOT, le suivant y est rebasé
+        assertEquals(List.of(3, 4), revisionNumbers(expiredNoteId));
+        NoteRevision rebased = noteRevisionRepository.findByNoteIdAndRevision(expiredNoteId, 3).orElseThrow();
+        assertEquals(NoteRevisionKind.SNAPSHOT, rebased.getKind());
+        assertEquals("abc", TextDelta.decompress(rebased.getPayload()));
+        NoteRevision latest = noteRevisionRepository.findByNoteIdAndRevision(expiredNoteId, 4).orElseThrow();
+        assertEquals(rebased.getId(), latest.getBaseRevisionId());
+        assertEquals("abcd", TextDelta.apply("abc", latest.getPayload()));
+
+        // Plus rien à faire : la maintenance suivante ne revisite aucune note
+        assertTrue(noteRevisionRepository.findNoteIdsToMaintain(0L, LocalDateTime.now().minusDays(7),
+                LocalDateTime.now().minusDays(180), PageRequest.of(0, 10)).isEmpty());
+    }
+
+    private List<Integer> revisionNumbers(Long noteId) {
+        return noteRevisionRepository.findAll().stream()
+                .filter(revision -> revision.getNoteId().equals(noteId))
+                .map(NoteRevision::getRevision)
+                .sorted()
+                .toList();
+    }
+
+    private NoteRevision save(NoteRevision revision) {
+        return noteRevisionRepository.save(revision);
+    }
+
+    private NoteRevision snapshot(Long noteId, int number, String content, LocalDateTime createdAt) {
+        NoteRevision revision = revision(noteId, number, content, createdAt);
+        revision.setKind(NoteRevisionKind.SNAPSHOT);
+        revision.setPayload(TextDelta.compress(content));
+        return revision;
+    }
+
+    private NoteRevision delta(Long noteId, int number, NoteRevision base, String baseContent, String content,
+                               LocalDateTime createdAt) {
+        NoteRevision revision = revision(noteId, number, content, createdAt);
+        revision.setKind(NoteRevisionKind.DELTA);
+        revision.setBaseRevisionId(base.getId());
+        revision.setPayload(TextDelta.encode(baseContent, content));
+        return revision;
+    }
+
+    private NoteRevision revision(Long noteId, int number, String content, LocalDateTime createdAt) {
+        NoteRevision revision = new NoteRevision(noteId, number, owner.getId());
+        revision.setTitle("Titre");
+        revision.setContentLength(content.length());
+        revision.setCreatedAt(createdAt);
+        return revision;
+    }
+}
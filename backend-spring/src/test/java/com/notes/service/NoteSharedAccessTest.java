@@ -0,0 +1,70 @@
+package com.notes.service;
+
+import com.notes.dto.note.NoteDto;
+import com.notes.exception.UnauthorizedAccessException;
+import com.notes.model.Note;
+import com.notes.model.NoteVisibility;
+import com.notes.model.Share;
+import com.notes.model.SharePermission;
+import com.notes.model.User;
+import com.notes.repository.NoteAccessRepository;
+import com.notes.repository.NoteRepository;
+import com.notes.repository.ShareRepository;
+import com.notes.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Lecture d'une note SHARED par son destinataire, depuis la base puis depuis le modèle de lecture en cache
+@SpringBootTest
+@ActiveProfiles("test")
+class NoteSharedAccessTest {
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ShareRepository shareRepository;
+
+    @Autowired
+    private NoteAccessRepository noteAccessRepository;
+
+    @AfterEach
+    void tearDown() {
+        noteAccessRepository.deleteAll();
+        shareRepository.deleteAll();
+        noteRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shareRecipientCanReadSharedNote() {
+        User owner = userRepository.save(new User("shared-owner@example.com", "password-hash"));
+        User recipient = userRepository.save(new User("shared-recipient@example.com", "password-hash"));
+        User stranger = userRepository.save(new User("shared-stranger@example.com", "password-hash"));
+
+        Note note = noteRepository.save(new Note("Note partagée", "contenu", owner, NoteVisibility.SHARED));
+        shareRepository.save(new Share(note, recipient, SharePermission.READ));
+
+        // Premier appel : chargement en base et mise en cache ; second appel : lecture du cache
+        NoteDto loaded = noteService.getNoteById(note.getId(), recipient);
+        NoteDto cached = noteService.getNoteById(note.getId(), recipient);
+
+        assertEquals(note.getId(), loaded.getId());
+        assertEquals(note.getId(), cached.getId());
+        assertTrue(noteService.findAccessibleNoteVersion(note.getId(), recipient).isPresent());
+        assertThrows(UnauthorizedAccessException.class, () -> noteService.getNoteById(note.getId(), stranger));
+    }
+}
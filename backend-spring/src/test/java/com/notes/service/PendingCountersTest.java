@@ -0,0 +1,63 @@
+package com.notes.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Aucun incrément perdu quand les vidages remplacent la table pendant les écritures
+class PendingCountersTest {
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS_PER_THREAD = 200_000;
+    private static final int KEYS = 4;
+
+    @Test
+    void drainsNeverLoseConcurrentIncrements() throws Exception {
+        PendingCounters counters = new PendingCounters();
+        AtomicLong drained = new AtomicLong();
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                    counters.add((long) (i % KEYS), 1);
+                }
+                return null;
+            }));
+        }
+        Future<?> flusher = executor.submit(() -> {
+            start.await();
+            while (writing.get()) {
+                counters.drain().values().forEach(drained::addAndGet);
+            }
+            return null;
+        });
+
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        flusher.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        counters.drain().values().forEach(drained::addAndGet);
+
+        assertEquals((long) THREADS * INCREMENTS_PER_THREAD, drained.get());
+        assertEquals(0, counters.get(0L));
+    }
+}
@@ -0,0 +1,46 @@
+package com.notes.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextDeltaTest {
+
+    private static final String BASE = "# Titre\n\nPremier paragraphe.\n\nDeuxième paragraphe.\n\n- a\n- b\n";
+
+    @Test
+    void deltaRestoresTargetExactly() {
+        String target = "# Titre modifié\n\nPremier paragraphe.\n\nAjout.\n\n- a\n- b\n- c";
+
+        assertEquals(target, TextDelta.apply(BASE, TextDelta.encode(BASE, target)));
+        assertEquals("", TextDelta.apply(BASE, TextDelta.encode(BASE, "")));
+        assertEquals(BASE, TextDelta.apply("", TextDelta.encode("", BASE)));
+    }
+
+    @Test
+    void localEditProducesSmallDelta() {
+        StringBuilder base = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            base.append("Ligne ").append(i).append(" d'une note assez longue pour être représentative\n");
+        }
+        String target = base.toString().replace("Ligne 250 ", "Ligne 250 modifiée ");
+
+        byte[] delta = TextDelta.encode(base.toString(), target);
+
+        assertEquals(target, TextDelta.apply(base.toString(), delta));
+        assertTrue(delta.length < TextDelta.compress(target).length / 4,
+                "Delta of " + delta.length + " bytes for a single line edit");
+    }
+
+    @Test
+    void compressionRoundTrip() {
+        assertEquals(BASE, TextDelta.decompress(TextDelta.compress(BASE)));
+    }
+
+    @Test
+    void emptyContentRoundTrip() {
+        assertEquals("", TextDelta.decompress(TextDelta.compress("")));
+        assertEquals("", TextDelta.apply("", TextDelta.encode("", "")));
+    }
+}
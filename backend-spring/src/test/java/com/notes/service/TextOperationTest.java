@@ -0,0 +1,75 @@
+package com.notes.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TextOperationTest {
+
+    @Test
+    void concurrentOperationsConverge() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String document = randomText(random, random.nextInt(20));
+            TextOperation a = randomOperation(random, document);
+            TextOperation b = randomOperation(random, document);
+
+            TextOperation[] transformed = TextOperation.transform(a, b);
+
+            assertEquals(transformed[1].apply(a.apply(document)), transformed[0].apply(b.apply(document)));
+        }
+    }
+
+    @Test
+    void insertionsAtSamePositionKeepServerOrder() {
+        TextOperation first = TextOperation.fromJson(List.of(2, "A", 1));
+        TextOperation second = TextOperation.fromJson(List.of(2, "B", 1));
+
+        TextOperation[] transformed = TextOperation.transform(first, second);
+
+        assertEquals("abABc", transformed[0].apply(second.apply("abc")));
+    }
+
+    @Test
+    void replacingProducesMinimalOperation() {
+        TextOperation operation = TextOperation.replacing("hello world", "hello brave world");
+
+        assertEquals(List.of(6, "brave ", 5), operation.toJson());
+        assertEquals("hello brave world", operation.apply("hello world"));
+    }
+
+    private static TextOperation randomOperation(Random random, String document) {
+        TextOperation operation = new TextOperation();
+        int position = 0;
+        while (position < document.length()) {
+            int length = 1 + random.nextInt(document.length() - position);
+            switch (random.nextInt(3)) {
+                case 0:
+                    operation.retain(length);
+                    position += length;
+                    break;
+                case 1:
+                    operation.delete(length);
+                    position += length;
+                    break;
+                default:
+                    operation.insert(randomText(random, 1 + random.nextInt(3)));
+            }
+        }
+        if (random.nextBoolean()) {
+            operation.insert(randomText(random, 2));
+        }
+        return operation;
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(3)));
+        }
+        return text.toString();
+    }
+}
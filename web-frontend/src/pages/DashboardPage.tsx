@@ -205,8 +205,8 @@ const DashboardPage: React.FC = () => {
                         />
                       </Box>
                       <Typography variant="body2" color="text.secondary" sx={{ mb: 1 }}>
-                        {note.contentMd?.substring(0, 100)}
-                        {note.contentMd && note.contentMd.length > 100 && '...'}
+                        {(note.excerpt ?? note.contentMd)?.substring(0, 100)}
+                        {(note.excerpt ?? note.contentMd ?? '').length > 100 && '...'}
                       </Typography>
                       <Box sx={{ display: 'flex', justifyContent: 'space-between', alignItems: 'center' }}>
                         <Typography variant="caption" color="text.secondary">
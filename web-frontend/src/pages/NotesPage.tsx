@@ -221,7 +221,7 @@ const NotesPage: React.FC = () => {
                       overflow: 'hidden',
                     }}
                   >
-                    {note.contentMd || 'Aucun contenu'}
+                    {note.excerpt || note.contentMd || 'Aucun contenu'}
                   </Typography>
 
                   <Box sx={{ display: 'flex', justifyContent: 'space-between', alignItems: 'center', mb: 1 }}>
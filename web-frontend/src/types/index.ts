@@ -48,7 +48,8 @@ export interface Note {
   ownerId: number;
   ownerEmail: string;
   title: string;
-  contentMd: string;
+  contentMd?: string;
+  excerpt?: string;
   visibility: NoteVisibility;
   createdAt: string;
   updatedAt: string;